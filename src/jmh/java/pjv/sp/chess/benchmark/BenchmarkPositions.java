@@ -0,0 +1,73 @@
+package pjv.sp.chess.benchmark;
+
+import pjv.sp.chess.model.Game;
+import pjv.sp.chess.model.board.Board;
+import pjv.sp.chess.model.pieces.Color;
+import pjv.sp.chess.model.player.HumanPlayer;
+
+/**
+ * BenchmarkPositions holds fixed corpus of positions used by all benchmarks,
+ * so results of different builds can be compared
+ * @author Jakub Rada
+ * @version 1.0
+ */
+public final class BenchmarkPositions {
+
+    /**
+     * Middlegame positions in FEN
+     */
+    public static final String[] MIDDLEGAME = {
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "r1bq1rk1/pp1nbppp/2p1pn2/3p2B1/2PP4/2N1PN2/PP3PPP/R2QKB1R w KQ - 0 7",
+        "r1b1kb1r/pp2pppp/1qnp1n2/8/3NP3/2N5/PPP1BPPP/R1BQK2R w KQkq - 4 7",
+        "2rq1rk1/pb1nbppp/1p2pn2/2pp4/2PP4/1PN1PN2/PB2BPPP/2RQ1RK1 b - - 3 11"
+    };
+
+    /**
+     * Endgame positions in FEN
+     */
+    public static final String[] ENDGAME = {
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "8/5pk1/6p1/3R3p/7P/6P1/r4PK1/8 w - - 0 40",
+        "6k1/5ppp/8/8/8/8/5PPP/3Q2K1 w - - 0 30",
+        "8/3k4/8/3P4/3K4/8/8/8 w - - 0 50",
+        "8/8/4k3/8/2K5/3B4/8/8 w - - 0 60",
+        "8/8/8/4k3/8/8/2N1K3/8 b - - 0 70"
+    };
+
+    /**
+     * BenchmarkPositions is only a holder of static data
+     */
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * Gets positions of passed phase
+     * @param phase "middlegame" or "endgame"
+     * @return Array of positions in FEN
+     * @throws IllegalArgumentException when the phase is unknown
+     */
+    public static String[] getPositions(String phase) {
+        switch (phase) {
+            case "middlegame":
+                return BenchmarkPositions.MIDDLEGAME;
+            case "endgame":
+                return BenchmarkPositions.ENDGAME;
+            default:
+                throw new IllegalArgumentException("Unknown phase " + phase);
+        }
+    }
+
+    /**
+     * Creates game with position described by FEN (player to move is taken from the FEN)
+     * @param fen position in FEN
+     * @return new Game
+     */
+    public static Game createGame(String fen) {
+        Board board = new Board(true);
+        board.setPosition(fen);
+        return new Game("Benchmark", "", new HumanPlayer("", "White", Color.WHITE), new HumanPlayer("", "Black", Color.BLACK), board);
+    }
+}
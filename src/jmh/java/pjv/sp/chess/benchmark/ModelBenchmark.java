@@ -0,0 +1,162 @@
+package pjv.sp.chess.benchmark;
+
+import pjv.sp.chess.model.Game;
+import pjv.sp.chess.model.board.Board;
+import pjv.sp.chess.model.board.MoveControl;
+import pjv.sp.chess.model.board.MoveList;
+import pjv.sp.chess.model.board.PackedMove;
+import pjv.sp.chess.model.board.Square;
+import pjv.sp.chess.model.pieces.Color;
+import pjv.sp.chess.model.pieces.Piece;
+import pjv.sp.chess.model.pieces.Position;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ModelBenchmark measures queries of the model layer used by controllers and
+ * PGN classes. Each invocation runs the query over all positions of the phase.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see BenchmarkPositions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    /**
+     * Phase of the game of measured positions
+     */
+    @Param({"middlegame", "endgame"})
+    private String phase;
+
+    /**
+     * Games with the positions
+     */
+    private Game[] games;
+
+    /**
+     * MoveControls of boards of the games
+     */
+    private MoveControl[] moveControls;
+
+    /**
+     * Pieces of the player to move in each position
+     */
+    private List<List<Piece>> pieces;
+
+    /**
+     * Pairs of starting and target positions of all legal moves in each position
+     */
+    private List<List<Position[]>> moves;
+
+    /**
+     * Creates games of the corpus and collects their legal moves
+     */
+    @Setup
+    public void setup() {
+        String[] positions = BenchmarkPositions.getPositions(this.phase);
+        this.games = new Game[positions.length];
+        this.moveControls = new MoveControl[positions.length];
+        this.pieces = new ArrayList<>();
+        this.moves = new ArrayList<>();
+        MoveList list = new MoveList();
+        for (int i = 0; i < positions.length; i++) {
+            this.games[i] = BenchmarkPositions.createGame(positions[i]);
+            this.moveControls[i] = new MoveControl(this.games[i].getChessBoard());
+            this.pieces.add(this.games[i].getPiecesOfColor(this.games[i].getPlayerToPlay().getColor()));
+            this.games[i].generateMoves(list);
+            List<Position[]> pairs = new ArrayList<>();
+            for (int m = 0; m < list.size(); m++) {
+                pairs.add(new Position[] {
+                    Square.toPosition(PackedMove.getFrom(list.get(m))),
+                    Square.toPosition(PackedMove.getTo(list.get(m)))
+                });
+            }
+            this.moves.add(pairs);
+        }
+    }
+
+    /**
+     * Legal moves of every piece of the player to move
+     * @param blackhole consumer of the results
+     */
+    @Benchmark
+    public void filteredMoves(Blackhole blackhole) {
+        for (int i = 0; i < this.games.length; i++) {
+            for (Piece piece : this.pieces.get(i)) {
+                blackhole.consume(this.moveControls[i].getFilteredMoves(piece, this.games[i].getRound()));
+            }
+        }
+    }
+
+    /**
+     * Attacks of both colors on every square
+     * @param blackhole consumer of the results
+     */
+    @Benchmark
+    public void underAttack(Blackhole blackhole) {
+        for (int i = 0; i < this.games.length; i++) {
+            for (int square = 0; square < Square.COUNT; square++) {
+                Position position = Square.toPosition(square);
+                blackhole.consume(this.moveControls[i].isUnderAttack(Color.WHITE, position, this.games[i].getRound()));
+                blackhole.consume(this.moveControls[i].isUnderAttack(Color.BLACK, position, this.games[i].getRound()));
+            }
+        }
+    }
+
+    /**
+     * Draw by insufficient material
+     * @param blackhole consumer of the results
+     */
+    @Benchmark
+    public void insufficientMaterial(Blackhole blackhole) {
+        for (MoveControl moveControl : this.moveControls) {
+            blackhole.consume(moveControl.checkInsufficientMaterial());
+        }
+    }
+
+    /**
+     * Pieces of both colors
+     * @param blackhole consumer of the results
+     */
+    @Benchmark
+    public void pieces(Blackhole blackhole) {
+        for (Game game : this.games) {
+            Board board = game.getChessBoard();
+            blackhole.consume(board.getPieces(Color.WHITE));
+            blackhole.consume(board.getPieces(Color.BLACK));
+        }
+    }
+
+    /**
+     * Disambiguation of every legal move
+     * @param blackhole consumer of the results
+     */
+    @Benchmark
+    public void disambiguation(Blackhole blackhole) {
+        for (int i = 0; i < this.games.length; i++) {
+            for (Position[] move : this.moves.get(i)) {
+                blackhole.consume(this.games[i].getDisambiguation(move[0], move[1]));
+            }
+        }
+    }
+}
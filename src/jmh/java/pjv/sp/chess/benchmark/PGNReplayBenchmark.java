@@ -0,0 +1,64 @@
+package pjv.sp.chess.benchmark;
+
+import pjv.sp.chess.model.pgn.PGNLoader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PGNReplayBenchmark measures loading of a finished game, that is parsing of
+ * the file and replaying all its moves on a new board
+ * @author Jakub Rada
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PGNReplayBenchmark {
+
+    /**
+     * Path of the replayed file relative to the project directory
+     */
+    @Param({"data/finished/test.pgn"})
+    private String path;
+
+    /**
+     * Replayed file
+     */
+    private File file;
+
+    /**
+     * Checks that the file exists (benchmarks have to run from the project directory)
+     */
+    @Setup
+    public void setup() {
+        this.file = new File(this.path);
+        if (!this.file.isFile()) {
+            throw new IllegalStateException("Missing file " + this.file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Loads the game from the file
+     * @return loaded PGNLoader
+     */
+    @Benchmark
+    public PGNLoader replay() {
+        return new PGNLoader(this.file);
+    }
+}
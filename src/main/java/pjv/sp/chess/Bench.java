@@ -0,0 +1,226 @@
+package pjv.sp.chess;
+
+import pjv.sp.chess.model.board.Fen;
+import pjv.sp.chess.model.board.MovePicker;
+import pjv.sp.chess.model.search.ParallelSearch;
+import pjv.sp.chess.model.search.Search;
+import pjv.sp.chess.model.search.SearchLimits;
+import pjv.sp.chess.model.search.SearchResult;
+import pjv.sp.chess.model.search.TranspositionTable;
+
+/**
+ * Bench is a command line tool that measures how the search scales with threads.
+ * Each bundled position is searched with 1, 2, 4 ... threads up to the passed
+ * number (number of processors by default), every search with a new table.
+ * The depth mode searches to a fixed depth and prints time to depth, nodes per
+ * second and speedup against one thread. The time mode searches each position
+ * for fixed time and prints average completed depth and number of positions where
+ * the move agrees with a single thread search of four times longer time, which
+ * shows quality of the search within the same wall-clock time.
+ * The order mode searches all positions on one thread to a fixed depth with all parts
+ * of move ordering, without each one of them and without any, and prints nodes, time
+ * and effective branching factor (nodes of the depth divided by nodes of one ply less).
+ * <pre>
+ * Bench depth &lt;depth&gt; [threads]
+ * Bench time &lt;millis per position&gt; [threads]
+ * Bench order &lt;depth&gt;
+ * </pre>
+ * @author Jakub Rada
+ * @version 1.0
+ * @see ParallelSearch
+ * @see MovePicker
+ */
+public final class Bench {
+
+    /**
+     * Size of the transposition table in megabytes of each search
+     */
+    private static final int TABLE_SIZE = 64;
+
+    /**
+     * Reference searches take this many times longer than the measured ones
+     */
+    private static final int REFERENCE_FACTOR = 4;
+
+    /**
+     * Middlegame and endgame positions of the benchmark
+     */
+    private static final String[] POSITIONS = {
+        Fen.STANDARD,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 0 8",
+        "r2q1rk1/1b2bppp/p2ppn2/1p6/3NP3/1BN1B3/PPP2PPP/R2Q1RK1 w - - 0 12",
+        "2r2rk1/pp1bqppp/2n1pn2/3p4/3P4/2PBPN2/P1Q2PPP/R1B2RK1 b - - 5 13",
+        "r1b2rk1/2q1bppp/p2p1n2/np2p3/3PP3/5N1P/PPBN1PP1/R1BQR1K1 b - - 0 13",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "6k1/5p2/6p1/8/7p/8/6PP/6K1 b - - 0 40",
+    };
+
+    /**
+     * Names of the parts of move ordering indexed by bit of their MovePicker ORDER flag
+     */
+    private static final String[] ORDERING_NAMES = {"hash move", "MVV/LVA", "killers", "history", "countermoves"};
+
+    /**
+     * Bench is only an entry point
+     */
+    private Bench() {
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args mode (depth or time), its depth or milliseconds and optional maximal number of threads
+     */
+    public static void main(String[] args) {
+        try {
+            int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            if (args.length > 1 && "depth".equals(args[0])) {
+                Bench.runDepth(Integer.parseInt(args[1]), maxThreads);
+            } else if (args.length > 1 && "time".equals(args[0])) {
+                Bench.runTime(Integer.parseInt(args[1]), maxThreads);
+            } else if (args.length > 1 && "order".equals(args[0])) {
+                Bench.runOrder(Integer.parseInt(args[1]));
+            } else {
+                System.err.println("Usage: Bench depth <depth> [threads]");
+                System.err.println("       Bench time <millis per position> [threads]");
+                System.err.println("       Bench order <depth>");
+                System.exit(2);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Searches all positions to the depth with growing number of threads
+     * @param depth depth of the searches
+     * @param maxThreads largest number of threads
+     */
+    private static void runDepth(int depth, int maxThreads) {
+        SearchLimits limits = new SearchLimits(depth, 0, 0);
+        // builds attack tables before the time is measured
+        Bench.search(Fen.STANDARD, new SearchLimits(1, 0, 0), 1);
+        long single = 0;
+        for (int threads = 1; threads <= maxThreads; threads = Bench.next(threads, maxThreads)) {
+            long nodes = 0;
+            long start = System.nanoTime();
+            for (String fen : Bench.POSITIONS) {
+                nodes += Bench.search(fen, limits, threads).getNodes();
+            }
+            long time = System.nanoTime() - start;
+            if (threads == 1) {
+                single = time;
+            }
+            System.out.println("Threads: " + threads);
+            System.out.println("Nodes: " + nodes);
+            System.out.println("Time to depth " + depth + ": " + time / 1_000_000 + " ms");
+            System.out.println("NPS: " + (time == 0 ? 0 : nodes * 1_000_000_000L / time));
+            System.out.println(String.format("Speedup: %.2f", (double) single / Math.max(time, 1)));
+            System.out.println();
+        }
+    }
+
+    /**
+     * Searches all positions for the time with growing number of threads and compares
+     * the moves with longer single thread searches
+     * @param millis time of one search in milliseconds
+     * @param maxThreads largest number of threads
+     */
+    private static void runTime(int millis, int maxThreads) {
+        int[] reference = new int[Bench.POSITIONS.length];
+        for (int i = 0; i < Bench.POSITIONS.length; i++) {
+            reference[i] = Bench.search(Bench.POSITIONS[i], SearchLimits.ofMillis(millis * Bench.REFERENCE_FACTOR), 1).getMove();
+        }
+        for (int threads = 1; threads <= maxThreads; threads = Bench.next(threads, maxThreads)) {
+            long nodes = 0;
+            int depths = 0;
+            int agreed = 0;
+            for (int i = 0; i < Bench.POSITIONS.length; i++) {
+                SearchResult result = Bench.search(Bench.POSITIONS[i], SearchLimits.ofMillis(millis), threads);
+                nodes += result.getNodes();
+                depths += result.getDepth();
+                if (result.getMove() == reference[i]) {
+                    agreed++;
+                }
+            }
+            System.out.println("Threads: " + threads);
+            System.out.println("Nodes: " + nodes);
+            System.out.println(String.format("Average depth: %.2f", (double) depths / Bench.POSITIONS.length));
+            System.out.println("Agreed with reference: " + agreed + "/" + Bench.POSITIONS.length);
+            System.out.println();
+        }
+    }
+
+    /**
+     * Searches all positions to the depth with each part of move ordering switched off
+     * @param depth depth of the searches (at least 2)
+     */
+    private static void runOrder(int depth) {
+        if (depth < 2) {
+            throw new IllegalArgumentException("Depth of order benchmark has to be at least 2: " + depth);
+        }
+        // warms up the code before the time is measured
+        for (String fen : Bench.POSITIONS) {
+            Bench.searchOrdered(fen, depth, MovePicker.ORDER_ALL);
+        }
+        Bench.printOrder("all", MovePicker.ORDER_ALL, depth);
+        for (int bit = 0; bit < Bench.ORDERING_NAMES.length; bit++) {
+            Bench.printOrder("without " + Bench.ORDERING_NAMES[bit], MovePicker.ORDER_ALL & ~(1 << bit), depth);
+        }
+        Bench.printOrder("none", 0, depth);
+    }
+
+    /**
+     * Searches all positions to the depth and one ply less with passed ordering and prints the statistics
+     * @param name name of the ordering
+     * @param ordering combination of MovePicker ORDER flags
+     * @param depth depth of the searches
+     */
+    private static void printOrder(String name, int ordering, int depth) {
+        long shallow = 0;
+        long nodes = 0;
+        long start = System.nanoTime();
+        for (String fen : Bench.POSITIONS) {
+            shallow += Bench.searchOrdered(fen, depth - 1, ordering);
+            nodes += Bench.searchOrdered(fen, depth, ordering);
+        }
+        long time = System.nanoTime() - start;
+        System.out.println(String.format("%-20s nodes %10d  time %6d ms  branching %.2f", name, nodes, time / 1_000_000,
+            (double) nodes / Math.max(shallow, 1)));
+    }
+
+    /**
+     * Searches the position on one thread with a new table and passed ordering
+     * @param fen position in FEN
+     * @param depth depth of the search
+     * @param ordering combination of MovePicker ORDER flags
+     * @return number of searched nodes
+     */
+    private static long searchOrdered(String fen, int depth, int ordering) {
+        Search search = new Search(Fen.parse(fen), new long[0], new TranspositionTable(Bench.TABLE_SIZE));
+        search.setOrdering(ordering);
+        return search.search(new SearchLimits(depth, 0, 0)).getNodes();
+    }
+
+    /**
+     * Searches the position with a new table
+     * @param fen position in FEN
+     * @param limits limits of the search
+     * @param threads number of threads
+     * @return result of the search
+     */
+    private static SearchResult search(String fen, SearchLimits limits, int threads) {
+        return new ParallelSearch(Fen.parse(fen), new long[0], new TranspositionTable(Bench.TABLE_SIZE), threads).search(limits);
+    }
+
+    /**
+     * Gets next measured number of threads (doubled, the largest number last)
+     * @param threads current number of threads
+     * @param maxThreads largest number of threads
+     * @return next number of threads, larger than maxThreads after the last one
+     */
+    private static int next(int threads, int maxThreads) {
+        return threads < maxThreads ? Math.min(threads * 2, maxThreads) : maxThreads + 1;
+    }
+}
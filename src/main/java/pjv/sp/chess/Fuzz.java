@@ -0,0 +1,102 @@
+package pjv.sp.chess;
+
+import pjv.sp.chess.model.board.Fen;
+import pjv.sp.chess.model.perft.MoveFuzzer;
+import pjv.sp.chess.model.perft.PerftPosition;
+import pjv.sp.chess.model.perft.PerftSuite;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fuzz is a command line tool that compares MoveGenerator with the reference
+ * generator in random games from the start position and from all positions
+ * of the perft suite. Minimized counterexamples are printed and appended to the
+ * file of regression positions, which is checked by MoveFuzzerTest.
+ * <pre>
+ * Fuzz &lt;games per position&gt; [seed] [file]
+ * </pre>
+ * @author Jakub Rada
+ * @version 1.0
+ * @see MoveFuzzer
+ */
+public final class Fuzz {
+
+    /**
+     * Default file with regression positions (relative to the project directory)
+     */
+    private static final String DEFAULT_FILE = "src/test/resources/pjv/sp/chess/model/perft/counterexamples.fen";
+
+    /**
+     * Fuzz is only an entry point
+     */
+    private Fuzz() {
+    }
+
+    /**
+     * Runs random games and reports differences of the generators
+     * @param args number of games per position, optional seed and file for counterexamples
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: Fuzz <games per position> [seed] [file]");
+            System.exit(2);
+        }
+        try {
+            int games = Integer.parseInt(args[0]);
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+            Path file = Paths.get(args.length > 2 ? args[2] : Fuzz.DEFAULT_FILE);
+            List<String> fens = new ArrayList<>();
+            fens.add(Fen.STANDARD);
+            for (PerftPosition position : PerftSuite.load()) {
+                fens.add(position.getFen());
+            }
+            MoveFuzzer fuzzer = new MoveFuzzer(seed, MoveFuzzer.DEFAULT_PLIES);
+            long start = System.nanoTime();
+            for (String fen : fens) {
+                fuzzer.run(fen, games);
+            }
+            long time = System.nanoTime() - start;
+            System.out.println("Seed: " + seed);
+            System.out.println("Positions: " + fuzzer.getPositions());
+            System.out.println("Time: " + time / 1_000_000 + " ms");
+            List<String> counterexamples = fuzzer.getCounterexamples();
+            for (String fen : counterexamples) {
+                System.out.println("DIFF " + fen + " :" + MoveFuzzer.describe(fen));
+            }
+            if (!counterexamples.isEmpty()) {
+                Fuzz.save(file, counterexamples);
+                System.out.println("Saved " + counterexamples.size() + " positions to " + file);
+                System.exit(1);
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Appends positions that are not in the file yet
+     * @param file file with one FEN on each line
+     * @param fens positions to be saved
+     * @throws IOException when the file cannot be written
+     */
+    private static void save(Path file, List<String> fens) throws IOException {
+        List<String> saved = Files.exists(file) ? Files.readAllLines(file, StandardCharsets.UTF_8) : new ArrayList<>();
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            for (String fen : fens) {
+                if (!saved.contains(fen)) {
+                    writer.println(fen);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package pjv.sp.chess;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Fen;
+import pjv.sp.chess.model.perft.ParallelPerft;
+import pjv.sp.chess.model.perft.PerftCounter;
+import pjv.sp.chess.model.perft.PerftPosition;
+import pjv.sp.chess.model.perft.PerftSuite;
+import pjv.sp.chess.model.perft.PerftTable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Perft is a command line tool that counts nodes of the tree of legal moves.
+ * It prints count of each root move (divide), total count and speed.
+ * The parallel mode counts the position with growing number of threads and
+ * prints speed of each run and speedup against one thread.
+ * <pre>
+ * Perft &lt;depth&gt; [fen|startpos]
+ * Perft --parallel &lt;depth&gt; [fen|startpos]
+ * Perft --suite [max nodes] [threads]
+ * </pre>
+ * @author Jakub Rada
+ * @version 1.0
+ * @see PerftCounter
+ * @see ParallelPerft
+ */
+public final class Perft {
+
+    /**
+     * Default limit of nodes of one count in suite mode
+     */
+    private static final long DEFAULT_SUITE_LIMIT = 5_000_000L;
+
+    /**
+     * Size of the table of counted subtrees in megabytes used by parallel counts
+     */
+    private static final int TABLE_SIZE = 128;
+
+    /**
+     * Perft is only an entry point
+     */
+    private Perft() {
+    }
+
+    /**
+     * Runs perft of the passed position or of the whole suite
+     * @param args depth and FEN (the start position when missing), --parallel with depth and FEN
+     *             or --suite with optional node limit and number of threads
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length > 0 && "--suite".equals(args[0])) {
+                long limit = args.length > 1 ? Long.parseLong(args[1]) : Perft.DEFAULT_SUITE_LIMIT;
+                int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+                System.exit(Perft.runSuite(limit, threads) ? 0 : 1);
+            } else if (args.length > 1 && "--parallel".equals(args[0])) {
+                Perft.runScaling(Perft.getFen(args, 2), Integer.parseInt(args[1]));
+            } else if (args.length > 0) {
+                Perft.runDivide(Perft.getFen(args, 1), Integer.parseInt(args[0]));
+            } else {
+                System.err.println("Usage: Perft <depth> [fen|startpos]");
+                System.err.println("       Perft --parallel <depth> [fen|startpos]");
+                System.err.println("       Perft --suite [max nodes] [threads]");
+                System.exit(2);
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Joins arguments from passed index into FEN
+     * @param args arguments of the program
+     * @param from index of the first part of the FEN
+     * @return position in FEN, the start position when it is missing or "startpos"
+     */
+    private static String getFen(String[] args, int from) {
+        String fen = args.length > from ? String.join(" ", Arrays.copyOfRange(args, from, args.length)) : "startpos";
+        return "startpos".equals(fen) ? Fen.STANDARD : fen;
+    }
+
+    /**
+     * Prints node counts of root moves, total count, time and nodes per second
+     * @param fen position in FEN
+     * @param depth number of plies
+     */
+    private static void runDivide(String fen, int depth) {
+        PerftCounter counter = new PerftCounter(Fen.parse(fen));
+        // builds attack tables before the time is measured
+        counter.count(1);
+        long start = System.nanoTime();
+        Map<String, Long> divide = counter.divide(depth);
+        long time = System.nanoTime() - start;
+        long nodes = 0;
+        for (Map.Entry<String, Long> entry : divide.entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            nodes += entry.getValue();
+        }
+        System.out.println();
+        System.out.println("Moves: " + divide.size());
+        Perft.printSpeed(nodes, time);
+    }
+
+    /**
+     * Counts the position with 1, 2, 4 ... threads up to the number of processors,
+     * each run has its own empty table. Prints speed of each run and its speedup.
+     * @param fen position in FEN
+     * @param depth number of plies
+     */
+    private static void runScaling(String fen, int depth) {
+        BitBoard bitBoard = Fen.parse(fen);
+        new PerftCounter(bitBoard).count(1);
+        int processors = Runtime.getRuntime().availableProcessors();
+        long single = 0;
+        for (int threads = 1; threads <= processors; threads = threads < processors ? Math.min(threads * 2, processors) : processors + 1) {
+            ParallelPerft perft = new ParallelPerft(threads, new PerftTable(Perft.TABLE_SIZE));
+            long start = System.nanoTime();
+            long nodes = perft.count(bitBoard, depth);
+            long time = System.nanoTime() - start;
+            if (threads == 1) {
+                single = time;
+            }
+            System.out.println("Threads: " + threads);
+            Perft.printSpeed(nodes, time);
+            System.out.println(String.format("Speedup: %.2f", (double) single / Math.max(time, 1)));
+            System.out.println();
+        }
+    }
+
+    /**
+     * Runs all counts of the bundled suite that are not larger than the limit
+     * @param limit maximal number of nodes of one count
+     * @param threads number of threads, more than one counts in parallel with a table of subtrees
+     * @return if all counts match
+     * @throws IOException when the suite cannot be loaded
+     */
+    private static boolean runSuite(long limit, int threads) throws IOException {
+        boolean ok = true;
+        long nodes = 0;
+        long time = 0;
+        ParallelPerft perft = threads > 1 ? new ParallelPerft(threads, new PerftTable(Perft.TABLE_SIZE)) : null;
+        for (PerftPosition position : PerftSuite.load()) {
+            BitBoard bitBoard = Fen.parse(position.getFen());
+            PerftCounter counter = new PerftCounter(bitBoard);
+            for (Map.Entry<Integer, Long> expected : position.getCounts().entrySet()) {
+                if (expected.getValue() > limit) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                long count = perft != null ? perft.count(bitBoard, expected.getKey()) : counter.count(expected.getKey());
+                time += System.nanoTime() - start;
+                nodes += count;
+                boolean match = count == expected.getValue();
+                ok &= match;
+                System.out.println((match ? "OK   " : "FAIL ") + position.getName() + " D" + expected.getKey() + " " + count
+                        + (match ? "" : " (expected " + expected.getValue() + ")"));
+            }
+        }
+        System.out.println();
+        Perft.printSpeed(nodes, time);
+        return ok;
+    }
+
+    /**
+     * Prints number of nodes, time and nodes per second
+     * @param nodes number of counted nodes
+     * @param nanos time in nanoseconds
+     */
+    private static void printSpeed(long nodes, long nanos) {
+        System.out.println("Nodes: " + nodes);
+        System.out.println("Time: " + nanos / 1_000_000 + " ms");
+        System.out.println("NPS: " + (nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos));
+    }
+}
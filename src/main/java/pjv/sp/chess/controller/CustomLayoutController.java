@@ -66,21 +66,19 @@ public class CustomLayoutController {
      */
     public void showLayoutPage() {
         this.updateView();
-        this.setStatus(this.boardChecker.checkBoard());
+        this.setStatus(this.boardChecker.checkBoard(this.board));
         ViewUtil.setRoot(this.customLayoutView.getRoot());
     }
 
     /**
-     * Updates view that displays content of the model and BoardChecker property
+     * Updates view that displays content of the model
      */
     private void updateView() {
-        this.boardChecker.reset();
-        // for every piece on the board add its icon to board view and add it to board checker
+        // for every piece on the board add its icon to board view
         for (Rank rank : Rank.VALUES) {
             for (File file : File.VALUES) {
                 Piece newPiece = this.board.getPiece(file, rank);
                 this.customLayoutView.getBoardView().putPieceIcon(newPiece.getIcon(), file, rank);
-                this.boardChecker.addPiece(newPiece);
             }
         }
     }
@@ -111,7 +109,7 @@ public class CustomLayoutController {
                 CustomLayoutController.LOG.info("Button to clear board pressed");
                 CustomLayoutController.this.board.clearBoard();
                 CustomLayoutController.this.updateView();
-                CustomLayoutController.this.setStatus(CustomLayoutController.this.boardChecker.checkBoard());
+                CustomLayoutController.this.setStatus(CustomLayoutController.this.boardChecker.checkBoard(CustomLayoutController.this.board));
             }
         });
 
@@ -120,6 +118,7 @@ public class CustomLayoutController {
             @Override
             public void handle(ActionEvent event) {
                 CustomLayoutController.LOG.info("Start button pressed - starting game");
+                CustomLayoutController.this.board.setHomeCastling();
                 Chess.GAME_CONTROLLER.resetGamePage();
                 Chess.GAME_CONTROLLER.showGamePage();
             }
@@ -141,8 +140,6 @@ public class CustomLayoutController {
                 this.customLayoutView.getBoardView().getCell(file, rank).getPane().setOnMouseClicked(new EventHandler<MouseEvent>() {
                     @Override
                     public void handle(MouseEvent event) {
-                        // get piece that is currently on clicked position
-                        Piece oldPiece = CustomLayoutController.this.board.getPiece(file, rank);
                         // piece that is currently selected in pieceStackView
                         Piece newPiece = CustomLayoutController.this.customLayoutView.getPieceStackView().getPiece(file, rank);
                         // put piece on board and its icon on view
@@ -150,7 +147,7 @@ public class CustomLayoutController {
                         CustomLayoutController.this.customLayoutView.getBoardView().putPieceIcon(CustomLayoutController.this.board.getPiece(file, rank).getIcon(), file, rank);
                         CustomLayoutController.LOG.info(String.format("%s %s placed on %s%s", newPiece.getColor().getLabel(), newPiece.getClass().getSimpleName(), file.getLabel(), rank.getLabel()));
                         // check board for validity
-                        Status status = CustomLayoutController.this.boardChecker.changeOnBoard(oldPiece, newPiece);
+                        Status status = CustomLayoutController.this.boardChecker.checkBoard(CustomLayoutController.this.board);
                         CustomLayoutController.this.setStatus(status);
                     }
                 });
@@ -5,6 +5,7 @@ import pjv.sp.chess.model.Continue;
 import pjv.sp.chess.model.Game;
 import pjv.sp.chess.model.Result;
 import pjv.sp.chess.model.board.File;
+import pjv.sp.chess.model.board.PackedMove;
 import pjv.sp.chess.model.board.Rank;
 import pjv.sp.chess.model.pgn.Disambiguation;
 import pjv.sp.chess.model.pgn.PGNRecorder;
@@ -15,12 +16,14 @@ import pjv.sp.chess.model.pieces.Piece;
 import pjv.sp.chess.model.pieces.Pawn;
 import pjv.sp.chess.model.pieces.Position;
 import pjv.sp.chess.model.player.CompleteMove;
+import pjv.sp.chess.model.player.ComputerPlayer;
 import pjv.sp.chess.model.player.Player;
 import pjv.sp.chess.model.settings.Settings;
 import pjv.sp.chess.model.time.RoundTimer;
 import pjv.sp.chess.view.GameView;
 import pjv.sp.chess.view.ViewUtil;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.event.EventHandler;
@@ -29,6 +32,7 @@ import javafx.scene.input.MouseEvent;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntSupplier;
 import java.util.logging.Logger;
 
 /**
@@ -62,6 +66,11 @@ public class GameController {
      */
     private final List<RoundTimer> timers = new ArrayList<>();
 
+    /**
+     * Disambiguation of the move that is being performed (found before the board changes)
+     */
+    private Disambiguation disambiguation;
+
     /**
      * Creates new GameController object and initializes its view
      */
@@ -209,19 +218,18 @@ public class GameController {
             GameController.LOG.info(String.format("Insufficient material -> draw", color.getLabel()));
             return new Continue(false, Result.DRAW, "(insufficient material)");
         }
+        // check if the same position occurred too many times
+        if (this.game.isFivefoldRepetition()) {
+            GameController.LOG.info("Fivefold repetition -> draw");
+            return new Continue(false, Result.DRAW, "(fivefold repetition)");
+        } else if (this.game.isThreefoldRepetition()) {
+            GameController.LOG.info("Threefold repetition -> draw");
+            return new Continue(false, Result.DRAW, "(threefold repetition)");
+        }
         // check if the color is in check
         this.game.setCheck(this.game.checkCheck(color));
-        int possibleMovesCount = 0;
-        // check possible moves for each piece of the passed color
-        for (Rank rank : Rank.VALUES) {
-            for (File file : File.VALUES) {
-                if (color.equals(this.game.getChessBoard().getPiece(file, rank).getColor())) {
-                    possibleMovesCount += this.game.getMoves(this.game.getChessBoard().getPiece(file, rank)).size();
-                }
-            }
-        }
         // if player cannot make any move
-        if (possibleMovesCount == 0) {
+        if (!this.game.hasLegalMove()) {
             // checkmate
             if (this.game.isCheck()) {
                 this.game.setCheckmate(true);
@@ -234,6 +242,11 @@ public class GameController {
                 return new Continue(false, Result.DRAW, "(Stalemate)");
             }
         }
+        // check if fifty moves were played without capture or pawn move
+        if (this.game.isFiftyMoveRule()) {
+            GameController.LOG.info("Fifty-move rule -> draw");
+            return new Continue(false, Result.DRAW, "(fifty-move rule)");
+        }
         return new Continue(true, Result.UNKNOWN, "");
     }
 
@@ -246,10 +259,11 @@ public class GameController {
         // switch timers
         this.timers.get(color.getOppositeColor().getIndex()).pause();
         this.timers.get(color.getIndex()).proceed();
-        // actiavate/deactivate colors
+        // actiavate/deactivate colors, pieces of computer are activated only when its move is known
+        boolean computer = this.game.getPlayerToPlay().getComputer();
         for (Rank rank : Rank.VALUES) {
             for (File file : File.VALUES) {
-                if (color.equals(this.game.getChessBoard().getPiece(file, rank).getColor())) {
+                if (!computer && color.equals(this.game.getChessBoard().getPiece(file, rank).getColor())) {
                     this.gameView.getBoard().getCell(file, rank).setActive(true);
                 } else {
                     this.gameView.getBoard().getCell(file, rank).setActive(false);
@@ -264,16 +278,40 @@ public class GameController {
             GameController.LOG.info(String.format("%s pieces were activated", color.getLabel()));
             this.gameView.setStatus(String.format("%s player plays", color.getLabel()));
         }
-        // if player to play is computer, get his move and perform it
-        if (this.game.getPlayerToPlay().getComputer()) {
-            // get move from computer
-            CompleteMove computerMove = this.game.getPlayerToPlay().getCompleteMove(this.game);
-            Position source = computerMove.getPiece().getPosition();
-            Position target = computerMove.getMove().getPosition();
-            // simulate events as if computer clicked on the screen
-            Event.fireEvent(this.gameView.getBoard().getCell(source.getFile(), source.getRank()).getPane(), Player.click);
-            Event.fireEvent(this.gameView.getBoard().getCell(target.getFile(), target.getRank()).getPane(), Player.click);
+        // if player to play is computer, search his move on separate thread so the view stays responsive
+        if (computer) {
+            Game searchedGame = this.game;
+            ComputerPlayer player = (ComputerPlayer) this.game.getPlayerToPlay();
+            // the game is copied here on the FX thread, the search thread touches only the copies
+            IntSupplier task = player.prepareSearch(this.game, this.timers.get(color.getIndex()).getRemainingMillis());
+            Thread search = new Thread(() -> {
+                int move = task.getAsInt();
+                Platform.runLater(() -> this.playComputerMove(searchedGame, player, move));
+            });
+            search.setDaemon(true);
+            search.start();
+        }
+    }
+
+    /**
+     * Performs move found by computer player, the move is dropped when the game
+     * ended or was left while the computer was thinking
+     * @param searchedGame Game in which the move was searched
+     * @param player ComputerPlayer that searched the move
+     * @param move packed move to be performed
+     */
+    private void playComputerMove(Game searchedGame, ComputerPlayer player, int move) {
+        if (this.game != searchedGame || this.game.getPlayerToPlay() != player || !Result.UNKNOWN.equals(this.game.getResult())
+            || move == PackedMove.NONE) {
+            return;
         }
+        CompleteMove computerMove = player.toCompleteMove(this.game, move);
+        Position source = computerMove.getPiece().getPosition();
+        Position target = computerMove.getMove().getPosition();
+        // simulate events as if computer clicked on the screen
+        this.gameView.getBoard().getCell(source.getFile(), source.getRank()).setActive(true);
+        Event.fireEvent(this.gameView.getBoard().getCell(source.getFile(), source.getRank()).getPane(), Player.click);
+        Event.fireEvent(this.gameView.getBoard().getCell(target.getFile(), target.getRank()).getPane(), Player.click);
     }
 
     /**
@@ -291,9 +329,9 @@ public class GameController {
      * Check if piece on passed position shoud be promoted and perform promotion if necessary
      * @param file File position of the checked piece
      * @param rank Rank position of the checked piece
+     * @param testPiece Piece that was moved to the position (board already holds queen after promotion)
      */
-    private void testPromotion(File file, Rank rank) {
-        Piece testPiece = this.game.getChessBoard().getPiece(file, rank);
+    private void testPromotion(File file, Rank rank, Piece testPiece) {
         // get position of the square in absolute numbers
         Bounds a = this.gameView.getBoard().getBoard().localToScreen(this.gameView.getBoard().getBoard().getCellBounds(file.getValue() + 1, rank.getValue() + 1));
         double cellSize = this.gameView.getBoard().getCellSize();
@@ -399,8 +437,6 @@ public class GameController {
      * @param promotion whether the move ended in promotion or not
      */
     private void finishMove(File file, Rank rank, boolean promotion) {
-        // solve ambiguities for pgn
-        Disambiguation disambiguation = this.game.getDisambiguation(file, rank, this.gameView.getBoard().getSelectedPosition());
         // initiate next round
         this.game.nextRound();
         Continue continueGame = this.continueGame(GameController.this.game.getPlayerToPlay().getColor());
@@ -410,7 +446,7 @@ public class GameController {
             this.gameView.getBoard().getSelectedPosition(),
             new Position(file, rank),
             this.gameView.getBoard().getCell(file, rank).getMoveType(),
-            disambiguation,
+            this.disambiguation,
             this.game.getRound() / 2,
             promotion,
             this.game.isCheck(),
@@ -506,18 +542,18 @@ public class GameController {
                         // if is targetable perform move
                         if (GameController.this.gameView.getBoard().getCell(file, rank).getTargetable()) {
                             GameController.this.gameView.getBoard().getSelected().unsetSelectedBackground();
+                            // solve ambiguities for pgn while the board is still in the state before the move
+                            GameController.this.disambiguation = GameController.this.game.getDisambiguation(
+                                GameController.this.gameView.getBoard().getSelectedPosition(),
+                                new Position(file, rank)
+                            );
+                            Piece moved = GameController.this.game.getChessBoard().getPiece(GameController.this.gameView.getBoard().getSelectedPosition());
                             // remove piece next to pawn when the move is enpassant
                             if (MoveType.ENPASSANT.equals(GameController.this.gameView.getBoard().getCell(file, rank).getMoveType())) {
-                                Rank removeRank = Color.WHITE.equals(GameController.this.game.getChessBoard().getPiece(GameController.this.gameView.getBoard().getSelectedPosition()).getColor()) ? rank.getPrevious() : rank.getNext();
-                                GameController.this.game.getChessBoard().removePiece(new Position(file, removeRank));
+                                Rank removeRank = Color.WHITE.equals(moved.getColor()) ? rank.getPrevious() : rank.getNext();
                                 GameController.this.gameView.getBoard().removePiece(file, removeRank);
                             } else if (MoveType.QUEENSIDE_CASTLING.equals(GameController.this.gameView.getBoard().getCell(file, rank).getMoveType())) {
                                 // move rook when its queenside castling
-                                GameController.this.game.getChessBoard().movePiece(
-                                    new Position(File.A, rank),
-                                    new Position(file.getNext(), rank),
-                                    GameController.this.game.getRound()
-                                );
                                 GameController.this.gameView.getBoard().movePiece(
                                     GameController.this.gameView.getBoard().getCell(file.getNext(), rank).getIcon(),
                                     new Position(File.A, rank),
@@ -526,11 +562,6 @@ public class GameController {
                                 );
                             } else if (MoveType.KINGSIDE_CASTLING.equals(GameController.this.gameView.getBoard().getCell(file, rank).getMoveType())) {
                                 // move rook when its kingside castling
-                                GameController.this.game.getChessBoard().movePiece(
-                                    new Position(File.H, rank),
-                                    new Position(file.getPrevious(), rank),
-                                    GameController.this.game.getRound()
-                                );
                                 GameController.this.gameView.getBoard().movePiece(
                                     GameController.this.gameView.getBoard().getCell(file.getPrevious(), rank).getIcon(),
                                     new Position(File.H, rank),
@@ -538,11 +569,10 @@ public class GameController {
                                     new Position(file.getPrevious(), rank)
                                 );
                             }
-                            // move piece on selected square to currently clicked square
+                            // move piece on selected square to currently clicked square (board moves the rook and captured pawn too)
                             GameController.this.game.getChessBoard().movePiece(
                                 GameController.this.gameView.getBoard().getSelectedPosition(),
-                                new Position(file, rank),
-                                GameController.this.game.getRound()
+                                new Position(file, rank)
                             );
                             GameController.this.gameView.getBoard().clearTargets();
                             GameController.this.gameView.getBoard().movePiece(
@@ -552,7 +582,7 @@ public class GameController {
                                 new Position(file, rank)
                             );
                             // test promotion for state after move
-                            GameController.this.testPromotion(file, rank);
+                            GameController.this.testPromotion(file, rank, moved);
                         }
                     }
                 });
@@ -2,11 +2,8 @@ package pjv.sp.chess.controller;
 
 import pjv.sp.chess.Chess;
 import pjv.sp.chess.model.Game;
-import pjv.sp.chess.model.board.File;
-import pjv.sp.chess.model.board.Rank;
 import pjv.sp.chess.model.pgn.PGNLoader;
 import pjv.sp.chess.model.pgn.PGNRecorder;
-import pjv.sp.chess.model.pieces.Color;
 
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
@@ -48,8 +45,6 @@ public class LoadGameController {
         // create game in intial position from game tags
         Game game = this.loader.createGame();
         game.getChessBoard().setCustom(this.loader.getCustom());
-        // check if castlings can be performed in the future
-        this.processCastlings(this.loader.getMovedForCastling(), game);
         // create pgn recorder for created game and fill it with game information
         PGNRecorder pgn = new PGNRecorder(game, Chess.GAME_CONTROLLER.getGameView().getPGN());
         // set game parameters to current state and pass it to game controller
@@ -62,25 +57,6 @@ public class LoadGameController {
         Chess.GAME_CONTROLLER.showGamePage();
     }
 
-    /**
-     * Set piece properties when castling can be performed in the future
-     * @param movedForCastling boolean values for kings and rooks if they moved or not
-     * @param game Game whose state is modified
-     */
-    private void processCastlings(boolean[][] movedForCastling, Game game) {
-        for (Color color : new Color[] {Color.WHITE, Color.BLACK}) {
-            if (!movedForCastling[color.getIndex()][0]) {
-                game.getChessBoard().getPiece(File.A, color.equals(Color.WHITE) ? Rank.ONE : Rank.EIGHT).setNotMoved();
-            }
-            if (!movedForCastling[color.getIndex()][1]) {
-                game.getChessBoard().getPiece(File.H, color.equals(Color.WHITE) ? Rank.ONE : Rank.EIGHT).setNotMoved();
-            }
-            if (!movedForCastling[2][color.getIndex()]) {
-                game.getChessBoard().getKing(color).setNotMoved();
-            }
-        }
-    }
-
     /**
      * Provide user with file selection dialogue
      */
@@ -1,18 +1,20 @@
 package pjv.sp.chess.model;
 
+import pjv.sp.chess.model.board.BitBoard;
 import pjv.sp.chess.model.board.Board;
-import pjv.sp.chess.model.board.File;
 import pjv.sp.chess.model.board.MoveControl;
-import pjv.sp.chess.model.board.Rank;
+import pjv.sp.chess.model.board.MoveList;
+import pjv.sp.chess.model.board.PackedMove;
+import pjv.sp.chess.model.board.Square;
 import pjv.sp.chess.model.pgn.Disambiguation;
 import pjv.sp.chess.model.pieces.Color;
-import pjv.sp.chess.model.pieces.Empty;
 import pjv.sp.chess.model.pieces.Move;
 import pjv.sp.chess.model.pieces.Piece;
 import pjv.sp.chess.model.pieces.Position;
 import pjv.sp.chess.model.player.Player;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -24,6 +26,21 @@ import java.util.List;
  */
 public class Game {
 
+    /**
+     * Number of occurrences of a position after which the game is drawn by threefold repetition
+     */
+    public static final int THREEFOLD = 3;
+
+    /**
+     * Number of occurrences of a position after which the game is drawn automatically
+     */
+    public static final int FIVEFOLD = 5;
+
+    /**
+     * Initial size of the history of position keys, it grows when needed
+     */
+    private static final int INITIAL_HISTORY = 64;
+
     /**
      * Board object that holds current state of the chessboard
      */
@@ -84,6 +101,38 @@ public class Game {
      */
     private boolean checkmate;
 
+    /**
+     * Legal moves of the player to play in the current position (snapshot),
+     * generated once and shared by all queries until the position changes
+     */
+    private final MoveList legalMoves = new MoveList();
+
+    /**
+     * Key of the position of the legal moves snapshot
+     */
+    private long legalMovesKey;
+
+    /**
+     * If the legal moves snapshot belongs to the current round
+     */
+    private boolean legalMovesValid;
+
+    /**
+     * Keys of positions since the last irreversible move (capture, pawn move or
+     * change of castling rights), the current position is the last one
+     */
+    private long[] keyHistory = new long[Game.INITIAL_HISTORY];
+
+    /**
+     * Number of keys in the history
+     */
+    private int keyHistorySize;
+
+    /**
+     * Castling rights of the last recorded position
+     */
+    private int lastCastling;
+
     /**
      * Creates new game object with passed values
      * 
@@ -103,7 +152,8 @@ public class Game {
         this.moveControl = new MoveControl(board);
         this.datum = new Datum();
         this.round = 1;
-        this.playerToPlay = this.white;
+        this.playerToPlay = Color.WHITE.equals(board.getSideToMove()) ? this.white : this.black;
+        this.recordPosition();
     }
 
     /**
@@ -120,6 +170,7 @@ public class Game {
      */
     public void setRound(int round) {
         this.round = round;
+        this.legalMovesValid = false;
     }
 
     /**
@@ -172,11 +223,110 @@ public class Game {
 
     /**
      * Ends current round and starts a new one.
-     * Swithces players.
+     * Swithces players, state of the board was already updated by the move.
      */
     public void nextRound() {
         this.round++;
         this.playerToPlay = Color.WHITE.equals(this.playerToPlay.getColor()) ? this.black : this.white;
+        this.legalMovesValid = false;
+        this.recordPosition();
+    }
+
+    /**
+     * Adds key of the current position to the history. The history is cleared
+     * first when the last move was irreversible (the halfmove clock was reset or
+     * castling rights changed), earlier positions cannot repeat.
+     */
+    private void recordPosition() {
+        if (this.board.getHalfmoveClock() == 0 || this.board.getCastling() != this.lastCastling) {
+            this.keyHistorySize = 0;
+            this.lastCastling = this.board.getCastling();
+        }
+        if (this.keyHistorySize == this.keyHistory.length) {
+            this.keyHistory = Arrays.copyOf(this.keyHistory, this.keyHistory.length * 2);
+        }
+        this.keyHistory[this.keyHistorySize++] = this.board.getKey();
+    }
+
+    /**
+     * Gets how many times the current position occurred in the game (including now).
+     * Only positions with the same player to play since the last irreversible move are scanned.
+     * @return number of occurrences, 1 for a new position
+     */
+    public int getRepetitions() {
+        return this.countKey(this.board.getKey(), this.keyHistorySize - 3) + 1;
+    }
+
+    /**
+     * Gets how many times the position after passed move of the player to play
+     * already occurred in the game. The move is played and taken back on the BitBoard.
+     * @param move packed legal move of the player to play
+     * @return number of earlier occurrences, 0 for a new position
+     */
+    public int getRepetitions(int move) {
+        BitBoard bitBoard = this.board.getBitBoard();
+        bitBoard.makeMove(move);
+        long key = bitBoard.getKey();
+        bitBoard.unmakeMove();
+        return PackedMove.isCapture(move) || PackedMove.getPiece(move) == BitBoard.PAWN ? 0 : this.countKey(key, this.keyHistorySize - 2);
+    }
+
+    /**
+     * Counts occurrences of the key in the history, every second position is checked
+     * (only positions with the same player to play can be equal)
+     * @param key Zobrist key of the position
+     * @param last index of the last key to be checked
+     * @return number of occurrences
+     */
+    private int countKey(long key, int last) {
+        int count = 0;
+        for (int i = last; i >= 0; i -= 2) {
+            if (this.keyHistory[i] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets keys of positions since the last irreversible move, the current position is the last one
+     * @return copy of the history of position keys
+     */
+    public long[] getKeyHistory() {
+        return Arrays.copyOf(this.keyHistory, this.keyHistorySize);
+    }
+
+    /**
+     * Checks if the current position occurred at least three times
+     * @return boolean value if the game can be drawn by threefold repetition
+     */
+    public boolean isThreefoldRepetition() {
+        return this.getRepetitions() >= Game.THREEFOLD;
+    }
+
+    /**
+     * Checks if the current position occurred at least five times
+     * @return boolean value if the game is drawn by fivefold repetition
+     */
+    public boolean isFivefoldRepetition() {
+        return this.getRepetitions() >= Game.FIVEFOLD;
+    }
+
+    /**
+     * Checks if fifty moves of each player were played without capture or pawn move
+     * @return boolean value if the game is drawn by the fifty-move rule
+     * @see Board#isFiftyMoveRule()
+     */
+    public boolean isFiftyMoveRule() {
+        return this.board.isFiftyMoveRule();
+    }
+
+    /**
+     * Gets Zobrist key of the current position
+     * @return 64-bit key of the position
+     */
+    public long getPositionKey() {
+        return this.board.getKey();
     }
 
     /**
@@ -193,6 +343,10 @@ public class Game {
      */
     public void setPlayerToPlay(Color color) {
         this.playerToPlay = Color.WHITE.equals(color) ? this.white : this.black;
+        this.board.setSideToMove(color);
+        this.legalMovesValid = false;
+        this.keyHistorySize = 0;
+        this.recordPosition();
     }
 
     /**
@@ -244,54 +398,122 @@ public class Game {
     }
 
     /**
-     * Gets type of possible Disambiguation for pgn move creation
-     * @param file File position of the move
-     * @param rank Rank position of the move
+     * Gets type of possible Disambiguation for pgn move creation. It has to be
+     * called for a move of the player to play before the move is performed,
+     * other moves to the target are looked up in the legal moves snapshot.
      * @param startingPosition inital position of the piece that is moved
+     * @param target position where the piece is moved
      * @return Disambiguation object
      * @see Disambiguation
      */
-    public Disambiguation getDisambiguation(File file, Rank rank, Position startingPosition) {
-        Piece movedPiece = this.board.getPiece(file, rank);
-        this.board.putPiece(new Empty(new Position(file, rank)), file, rank);
-        List<Piece> possibleAmbiguations = new ArrayList<>();
-        List<Piece> sameType = this.getPiecesOfSameType(movedPiece, this.getPiecesOfColor(movedPiece.getColor()));
-        for (Piece piece : sameType) {
-            List<Move> moves = this.getMoves(piece);
-            for (Move move : moves) {
-                if (move.getPosition().getFile().equals(file) && move.getPosition().getRank().equals(rank)) {
-                    possibleAmbiguations.add(piece);
-                }
+    public Disambiguation getDisambiguation(Position startingPosition, Position target) {
+        int from = Square.of(startingPosition);
+        int to = Square.of(target);
+        int type = this.board.getBitBoard().getType(from);
+        MoveList moves = this.getLegalMoves();
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int other = PackedMove.getFrom(move);
+            if (PackedMove.getTo(move) == to && PackedMove.getPiece(move) == type && other != from) {
+                ambiguous = true;
+                sameFile |= Square.fileValue(other) == Square.fileValue(from);
+                sameRank |= Square.rankValue(other) == Square.rankValue(from);
             }
         }
         Disambiguation disambiguation;
-        if (possibleAmbiguations.size() == 0) {
+        if (!ambiguous) {
             disambiguation = Disambiguation.OK;
-        } else {
+        } else if (!sameFile) {
             disambiguation = Disambiguation.ORIGINATING_FILE;
-            for (Piece piece : possibleAmbiguations) {
-                if (piece.getPosition().getFile().equals(startingPosition.getFile())) {
-                    disambiguation = Disambiguation.ORIGINATING_RANK;
-                    if (piece.getPosition().getRank().equals(startingPosition.getRank())) {
-                        disambiguation = Disambiguation.ORIGINATING_POSITION;
-                        break;
-                    }
-                }
-            }
+        } else if (!sameRank) {
+            disambiguation = Disambiguation.ORIGINATING_RANK;
+        } else {
+            disambiguation = Disambiguation.ORIGINATING_POSITION;
         }
-        this.board.putPiece(movedPiece, file, rank);
         return disambiguation;
     }
 
     /**
      * Gets all possible Moves for passed piece.
-     * It filters out moves that would cause check to ally King or caused trouble
-     * during castling
+     * Moves of the player to play are taken from the legal moves snapshot,
+     * promotion is returned only once for each target square.
      * @param piece Piece for which search moves
      * @return List of Moves that can be played with this Piece
      */
     public List<Move> getMoves(Piece piece) {
-        return this.moveControl.getFilteredMoves(piece, this.round);
+        if (!this.playerToPlay.getColor().equals(piece.getColor())) {
+            return this.moveControl.getFilteredMoves(piece, this.round);
+        }
+        List<Move> pieceMoves = new ArrayList<>();
+        int from = Square.of(piece.getPosition());
+        MoveList moves = this.getLegalMoves();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (PackedMove.getFrom(move) == from && (!PackedMove.isPromotion(move) || PackedMove.getPromotion(move) == BitBoard.QUEEN)) {
+                pieceMoves.add(MoveControl.toMove(move));
+            }
+        }
+        return pieceMoves;
+    }
+
+    /**
+     * Gets legal moves of the player to play as packed moves. The list is
+     * generated once per position and shared, callers must not change it.
+     * @return MoveList with the legal moves snapshot
+     * @see PackedMove
+     */
+    public MoveList getLegalMoves() {
+        long key = this.board.getKey();
+        if (!this.legalMovesValid || this.legalMovesKey != key) {
+            this.moveControl.generateMoves(this.playerToPlay.getColor(), this.round, this.legalMoves);
+            this.legalMovesKey = key;
+            this.legalMovesValid = true;
+        }
+        return this.legalMoves;
+    }
+
+    /**
+     * Checks if move of the player to play gives check, the move is not played.
+     * Promotion is considered to a queen.
+     * @param startingPosition inital position of the piece that is moved
+     * @param target position where the piece is moved
+     * @return boolean value if the move is legal and gives check
+     */
+    public boolean givesCheck(Position startingPosition, Position target) {
+        int from = Square.of(startingPosition);
+        int to = Square.of(target);
+        MoveList moves = this.getLegalMoves();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (PackedMove.getFrom(move) == from && PackedMove.getTo(move) == to
+                    && (!PackedMove.isPromotion(move) || PackedMove.getPromotion(move) == BitBoard.QUEEN)) {
+                return this.moveControl.givesCheck(this.playerToPlay.getColor(), this.round, move);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the player to play has any legal move (no checkmate or stalemate).
+     * Uses the snapshot when it exists, otherwise stops at the first piece that can move.
+     * @return boolean value if there is a legal move
+     */
+    public boolean hasLegalMove() {
+        if (this.legalMovesValid && this.legalMovesKey == this.board.getKey()) {
+            return !this.legalMoves.isEmpty();
+        }
+        return this.moveControl.hasLegalMove(this.playerToPlay.getColor(), this.round);
+    }
+
+    /**
+     * Writes all legal moves of the player to play into passed list as packed moves
+     * @param moves list that is cleared and filled with packed moves
+     */
+    public void generateMoves(MoveList moves) {
+        this.moveControl.generateMoves(this.playerToPlay.getColor(), this.round, moves);
     }
 
     /**
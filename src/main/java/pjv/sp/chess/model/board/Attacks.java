@@ -0,0 +1,233 @@
+package pjv.sp.chess.model.board;
+
+import pjv.sp.chess.model.pieces.MoveVector;
+
+/**
+ * Attacks class holds precomputed attack tables. For every square there is
+ * a mask of squares attacked by a knight, a king and a pawn of each color
+ * standing on it. Tables are built once when the class is loaded from the
+ * same MoveVectors the pieces use, so generating moves of these pieces is
+ * a single lookup masked by occupancy of the board. Attacks of sliding pieces
+ * are looked up in magic bitboard tables.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see Square
+ * @see MoveVector
+ * @see Magic
+ */
+public final class Attacks {
+
+    /**
+     * Vectors of knight moves
+     */
+    private static final MoveVector[] KNIGHT_VECTORS = {
+        MoveVector.KNIGHT_NNW, MoveVector.KNIGHT_NNE, MoveVector.KNIGHT_NEE, MoveVector.KNIGHT_SEE,
+        MoveVector.KNIGHT_SSE, MoveVector.KNIGHT_SSW, MoveVector.KNIGHT_SWW, MoveVector.KNIGHT_NWW
+    };
+
+    /**
+     * Vectors of king moves
+     */
+    private static final MoveVector[] KING_VECTORS = {
+        MoveVector.NORTH, MoveVector.NORTH_EAST, MoveVector.EAST, MoveVector.SOUTH_EAST,
+        MoveVector.SOUTH, MoveVector.SOUTH_WEST, MoveVector.WEST, MoveVector.NORTH_WEST
+    };
+
+    /**
+     * Vectors of pawn captures (from white's point of view)
+     */
+    private static final MoveVector[] PAWN_VECTORS = {
+        MoveVector.NORTH_EAST, MoveVector.NORTH_WEST
+    };
+
+    /**
+     * Knight attacks indexed by square
+     */
+    private static final long[] KNIGHT = new long[Square.COUNT];
+
+    /**
+     * King attacks indexed by square
+     */
+    private static final long[] KING = new long[Square.COUNT];
+
+    /**
+     * Pawn captures indexed by [color][square]
+     */
+    private static final long[][] PAWN = new long[2][Square.COUNT];
+
+    /**
+     * Squares strictly between two squares on a common line indexed by [square][square]
+     * (empty if the squares do not share a line)
+     */
+    private static final long[][] BETWEEN = new long[Square.COUNT][Square.COUNT];
+
+    /**
+     * Whole lines through two squares indexed by [square][square]
+     * (empty if the squares do not share a line)
+     */
+    private static final long[][] LINE = new long[Square.COUNT][Square.COUNT];
+
+    static {
+        for (int square = 0; square < Square.COUNT; square++) {
+            Attacks.KNIGHT[square] = Attacks.leaperAttacks(square, Attacks.KNIGHT_VECTORS, BitBoard.WHITE);
+            Attacks.KING[square] = Attacks.leaperAttacks(square, Attacks.KING_VECTORS, BitBoard.WHITE);
+            Attacks.PAWN[BitBoard.WHITE][square] = Attacks.leaperAttacks(square, Attacks.PAWN_VECTORS, BitBoard.WHITE);
+            Attacks.PAWN[BitBoard.BLACK][square] = Attacks.leaperAttacks(square, Attacks.PAWN_VECTORS, BitBoard.BLACK);
+        }
+        for (int a = 0; a < Square.COUNT; a++) {
+            for (int b = 0; b < Square.COUNT; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long ends = (1L << a) | (1L << b);
+                if ((Attacks.rook(a, 0L) & (1L << b)) != 0L) {
+                    Attacks.BETWEEN[a][b] = Attacks.rook(a, 1L << b) & Attacks.rook(b, 1L << a);
+                    Attacks.LINE[a][b] = (Attacks.rook(a, 0L) & Attacks.rook(b, 0L)) | ends;
+                } else if ((Attacks.bishop(a, 0L) & (1L << b)) != 0L) {
+                    Attacks.BETWEEN[a][b] = Attacks.bishop(a, 1L << b) & Attacks.bishop(b, 1L << a);
+                    Attacks.LINE[a][b] = (Attacks.bishop(a, 0L) & Attacks.bishop(b, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    /**
+     * Attacks is only a holder of static tables
+     */
+    private Attacks() {
+    }
+
+    /**
+     * Computes mask of squares reachable by one step along each vector
+     * @param square index of the initial square
+     * @param vectors MoveVectors of the piece
+     * @param color index of the color, vectors of black pieces are mirrored vertically
+     * @return mask of reachable squares that are on the board
+     */
+    private static long leaperAttacks(int square, MoveVector[] vectors, int color) {
+        // rank values grow towards white's side, so white moves "up" by decreasing them
+        int direction = color == BitBoard.WHITE ? -1 : 1;
+        long attacks = 0L;
+        for (MoveVector vector : vectors) {
+            int file = Square.fileValue(square) + vector.getX();
+            int rank = Square.rankValue(square) + direction * vector.getY();
+            if (file >= 0 && file < File.COUNT && rank >= 0 && rank < Rank.COUNT) {
+                attacks |= 1L << Square.of(file, rank);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Gets squares attacked by a knight
+     * @param square index of the square of the knight
+     * @return mask of attacked squares
+     */
+    public static long knight(int square) {
+        return Attacks.KNIGHT[square];
+    }
+
+    /**
+     * Gets squares attacked by a king
+     * @param square index of the square of the king
+     * @return mask of attacked squares
+     */
+    public static long king(int square) {
+        return Attacks.KING[square];
+    }
+
+    /**
+     * Gets squares attacked (diagonally) by a pawn
+     * @param color index of the color of the pawn
+     * @param square index of the square of the pawn
+     * @return mask of attacked squares
+     */
+    public static long pawn(int color, int square) {
+        return Attacks.PAWN[color][square];
+    }
+
+    /**
+     * Gets squares attacked by a rook
+     * @param square index of the square of the rook
+     * @param occupied mask of occupied squares
+     * @return mask of attacked squares (including the blocking pieces)
+     */
+    public static long rook(int square, long occupied) {
+        return Magic.ROOK.attacks(square, occupied);
+    }
+
+    /**
+     * Gets squares attacked by a bishop
+     * @param square index of the square of the bishop
+     * @param occupied mask of occupied squares
+     * @return mask of attacked squares (including the blocking pieces)
+     */
+    public static long bishop(int square, long occupied) {
+        return Magic.BISHOP.attacks(square, occupied);
+    }
+
+    /**
+     * Gets squares attacked by a queen
+     * @param square index of the square of the queen
+     * @param occupied mask of occupied squares
+     * @return mask of attacked squares (including the blocking pieces)
+     */
+    public static long queen(int square, long occupied) {
+        return Magic.ROOK.attacks(square, occupied) | Magic.BISHOP.attacks(square, occupied);
+    }
+
+    /**
+     * Gets squares attacked by a piece of passed type
+     * @param type BitBoard type of the piece
+     * @param color index of the color of the piece (used only by pawns)
+     * @param square index of the square of the piece
+     * @param occupied mask of occupied squares
+     * @return mask of attacked squares (including the blocking pieces)
+     */
+    public static long piece(int type, int color, int square, long occupied) {
+        switch (type) {
+            case BitBoard.PAWN:
+                return Attacks.pawn(color, square);
+            case BitBoard.ROOK:
+                return Attacks.rook(square, occupied);
+            case BitBoard.KNIGHT:
+                return Attacks.knight(square);
+            case BitBoard.BISHOP:
+                return Attacks.bishop(square, occupied);
+            case BitBoard.QUEEN:
+                return Attacks.queen(square, occupied);
+            default:
+                return Attacks.king(square);
+        }
+    }
+
+    /**
+     * Gets squares strictly between two squares that share a rank, file or diagonal
+     * @param a index of the first square
+     * @param b index of the second square
+     * @return mask of squares between, empty if the squares are not on a common line
+     */
+    public static long between(int a, int b) {
+        return Attacks.BETWEEN[a][b];
+    }
+
+    /**
+     * Gets whole rank, file or diagonal going through two squares
+     * @param a index of the first square
+     * @param b index of the second square
+     * @return mask of the line (from edge to edge), empty if the squares are not on a common line
+     */
+    public static long line(int a, int b) {
+        return Attacks.LINE[a][b];
+    }
+
+    /**
+     * Gets index of the square one step in front of a pawn
+     * @param color index of the color of the pawn
+     * @param square index of the square of the pawn
+     * @return index of the square in front of the pawn (may be outside of the board)
+     */
+    public static int pawnPush(int color, int square) {
+        return color == BitBoard.WHITE ? square - File.COUNT : square + File.COUNT;
+    }
+}
@@ -0,0 +1,787 @@
+package pjv.sp.chess.model.board;
+
+import pjv.sp.chess.model.pieces.Color;
+import pjv.sp.chess.model.pieces.MoveType;
+import pjv.sp.chess.model.pieces.PieceType;
+
+import java.util.Arrays;
+
+/**
+ * BitBoard class holds compact representation of the chessboard. Each piece type
+ * of each color has its own 64-bit mask where every bit represents one square
+ * (see Square for the order of squares). Occupancy masks of both colors and of
+ * the whole board are kept up to date together with a mailbox of piece types,
+ * so both "what is on this square" and "where are all pieces of this type"
+ * are answered without scanning the board.
+ * Colors and piece types are passed as their indexes to keep hot paths free of
+ * enum lookups.
+ * Besides pieces the BitBoard holds state of the position (side to move, castling
+ * rights, en passant square and clocks). Packed moves are played by makeMove and
+ * taken back by unmakeMove, which restores everything from a compact undo stack
+ * of longs, so playing moves does not allocate.
+ * Zobrist key of the position is updated with every change of pieces and state,
+ * middlegame and endgame piece-square scores with every change of pieces.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see Square
+ * @see Color
+ * @see PieceType
+ */
+public class BitBoard {
+
+    /**
+     * Index of white color (mirrors Color.WHITE)
+     */
+    public static final int WHITE = 0;
+
+    /**
+     * Index of black color (mirrors Color.BLACK)
+     */
+    public static final int BLACK = 1;
+
+    /**
+     * Index of no color (mirrors Color.EMPTY)
+     */
+    public static final int NO_COLOR = 2;
+
+    /**
+     * Index of pawn type (mirrors PieceType.PAWN)
+     */
+    public static final int PAWN = 0;
+
+    /**
+     * Index of rook type (mirrors PieceType.ROOK)
+     */
+    public static final int ROOK = 1;
+
+    /**
+     * Index of knight type (mirrors PieceType.KNIGHT)
+     */
+    public static final int KNIGHT = 2;
+
+    /**
+     * Index of bishop type (mirrors PieceType.BISHOP)
+     */
+    public static final int BISHOP = 3;
+
+    /**
+     * Index of queen type (mirrors PieceType.QUEEN)
+     */
+    public static final int QUEEN = 4;
+
+    /**
+     * Index of king type (mirrors PieceType.KING)
+     */
+    public static final int KING = 5;
+
+    /**
+     * Index of empty square type (mirrors PieceType.EMPTY)
+     */
+    public static final int EMPTY = 6;
+
+    /**
+     * Castling right bit of white kingside castling
+     */
+    public static final int WHITE_KINGSIDE = 1;
+
+    /**
+     * Castling right bit of white queenside castling
+     */
+    public static final int WHITE_QUEENSIDE = 2;
+
+    /**
+     * Castling right bit of black kingside castling
+     */
+    public static final int BLACK_KINGSIDE = 4;
+
+    /**
+     * Castling right bit of black queenside castling
+     */
+    public static final int BLACK_QUEENSIDE = 8;
+
+    /**
+     * All castling rights
+     */
+    public static final int ALL_CASTLING = 15;
+
+    /**
+     * Values of pieces in centipawns indexed by piece type, the one table of material used by
+     * evaluation, static exchange evaluation, delta pruning and ordering of captures
+     * (the king is worth more than all other pieces, so it is never given for them)
+     */
+    private static final int[] VALUES = {100, 500, 320, 330, 900, 20000, 0};
+
+    /**
+     * Piece types from the least valuable, in this order pieces join an exchange
+     */
+    private static final int[] SEE_ORDER = {BitBoard.PAWN, BitBoard.KNIGHT, BitBoard.BISHOP, BitBoard.ROOK, BitBoard.QUEEN, BitBoard.KING};
+
+    /**
+     * Initial size of the undo stack, it grows when needed
+     */
+    private static final int INITIAL_HISTORY = 256;
+
+    /**
+     * Castling rights kept after a move from or to each square (rights are lost
+     * when king or rook leaves its initial square or the rook is captured)
+     */
+    private static final int[] CASTLING_MASKS = new int[Square.COUNT];
+
+    static {
+        Arrays.fill(BitBoard.CASTLING_MASKS, BitBoard.ALL_CASTLING);
+        BitBoard.CASTLING_MASKS[Square.of(File.A, Rank.ONE)] &= ~BitBoard.WHITE_QUEENSIDE;
+        BitBoard.CASTLING_MASKS[Square.of(File.H, Rank.ONE)] &= ~BitBoard.WHITE_KINGSIDE;
+        BitBoard.CASTLING_MASKS[Square.of(File.E, Rank.ONE)] &= ~(BitBoard.WHITE_KINGSIDE | BitBoard.WHITE_QUEENSIDE);
+        BitBoard.CASTLING_MASKS[Square.of(File.A, Rank.EIGHT)] &= ~BitBoard.BLACK_QUEENSIDE;
+        BitBoard.CASTLING_MASKS[Square.of(File.H, Rank.EIGHT)] &= ~BitBoard.BLACK_KINGSIDE;
+        BitBoard.CASTLING_MASKS[Square.of(File.E, Rank.EIGHT)] &= ~(BitBoard.BLACK_KINGSIDE | BitBoard.BLACK_QUEENSIDE);
+    }
+
+    /**
+     * Masks of pieces indexed by [color][piece type]
+     */
+    private final long[][] pieces = new long[2][PieceType.COUNT];
+
+    /**
+     * Masks of all pieces of each color
+     */
+    private final long[] colors = new long[2];
+
+    /**
+     * Mask of all pieces on the board
+     */
+    private long occupied;
+
+    /**
+     * Piece type on each square (EMPTY if there is no piece)
+     */
+    private final int[] types = new int[Square.COUNT];
+
+    /**
+     * Material signature of the position
+     */
+    private final Material material = new Material();
+
+    /**
+     * Index of the color to move
+     */
+    private int sideToMove;
+
+    /**
+     * Castling rights (WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE, BLACK_QUEENSIDE bits)
+     */
+    private int castling;
+
+    /**
+     * Square behind a pawn that performed double step in the last move or Square.NONE
+     */
+    private int enPassant;
+
+    /**
+     * Number of halfmoves since the last capture or pawn move
+     */
+    private int halfmoveClock;
+
+    /**
+     * Number of the full move, starts at 1 and grows after each black move
+     */
+    private int fullmoveNumber;
+
+    /**
+     * Zobrist key of pieces, castling rights and side to move (en passant is added in getKey)
+     */
+    private long key;
+
+    /**
+     * Sum of middlegame piece-square scores of all pieces (from the point of view of white)
+     */
+    private int middlegame;
+
+    /**
+     * Sum of endgame piece-square scores of all pieces (from the point of view of white)
+     */
+    private int endgame;
+
+    /**
+     * Gains of each capture of the last static exchange evaluation (reused to avoid allocation)
+     */
+    private final int[] swaps = new int[32];
+
+    /**
+     * Undo stack, each entry holds the played move and state before it
+     * (see makeMove for the layout)
+     */
+    private long[] history = new long[BitBoard.INITIAL_HISTORY];
+
+    /**
+     * Number of entries in the undo stack
+     */
+    private int historySize;
+
+    /**
+     * Creates new empty BitBoard
+     */
+    public BitBoard() {
+        Arrays.fill(this.types, BitBoard.EMPTY);
+        this.resetState();
+    }
+
+    /**
+     * Sets state of the position to initial values (white to move, no castling,
+     * no en passant, first move) and forgets played moves
+     */
+    private void resetState() {
+        this.setSideToMove(BitBoard.WHITE);
+        this.setCastling(0);
+        this.enPassant = Square.NONE;
+        this.halfmoveClock = 0;
+        this.fullmoveNumber = 1;
+        this.historySize = 0;
+    }
+
+    /**
+     * Removes all pieces from the board and resets state of the position
+     */
+    public void clear() {
+        for (int color = 0; color < 2; color++) {
+            Arrays.fill(this.pieces[color], 0L);
+            this.colors[color] = 0L;
+        }
+        this.occupied = 0L;
+        Arrays.fill(this.types, BitBoard.EMPTY);
+        this.material.clear();
+        // empty position with initial state has key 0
+        this.key = 0L;
+        this.middlegame = 0;
+        this.endgame = 0;
+        this.sideToMove = BitBoard.WHITE;
+        this.castling = 0;
+        this.resetState();
+    }
+
+    /**
+     * Puts piece on passed square, piece that was there before is removed
+     * @param square index of the square
+     * @param color index of the color of the piece
+     * @param type index of the type of the piece
+     */
+    public void put(int square, int color, int type) {
+        if (this.types[square] != BitBoard.EMPTY) {
+            this.remove(square);
+        }
+        long bit = 1L << square;
+        this.pieces[color][type] |= bit;
+        this.colors[color] |= bit;
+        this.occupied |= bit;
+        this.types[square] = type;
+        this.key ^= Zobrist.piece(color, type, square);
+        this.middlegame += PieceSquareTables.middlegame(color, type, square);
+        this.endgame += PieceSquareTables.endgame(color, type, square);
+        this.material.add(color, type, square);
+    }
+
+    /**
+     * Removes piece from passed square, does nothing if the square is empty
+     * @param square index of the square
+     */
+    public void remove(int square) {
+        int type = this.types[square];
+        if (type == BitBoard.EMPTY) {
+            return;
+        }
+        long bit = 1L << square;
+        int color = (this.colors[BitBoard.WHITE] & bit) != 0 ? BitBoard.WHITE : BitBoard.BLACK;
+        this.pieces[color][type] &= ~bit;
+        this.colors[color] &= ~bit;
+        this.occupied &= ~bit;
+        this.types[square] = BitBoard.EMPTY;
+        this.key ^= Zobrist.piece(color, type, square);
+        this.middlegame -= PieceSquareTables.middlegame(color, type, square);
+        this.endgame -= PieceSquareTables.endgame(color, type, square);
+        this.material.remove(color, type, square);
+    }
+
+    /**
+     * Plays packed move on the board. Captures, en passant, castling (rook is moved
+     * too) and promotion are handled, as well as state of the position.
+     * Layout of the undo entry:
+     * <pre>
+     *  0 - 23  packed move
+     * 24 - 27  castling rights
+     * 28 - 34  en passant square + 1 (0 means Square.NONE)
+     * 35 - 50  halfmove clock
+     * </pre>
+     * @param move packed move that is legal in the position
+     * @see PackedMove
+     */
+    public void makeMove(int move) {
+        if (this.historySize == this.history.length) {
+            this.history = Arrays.copyOf(this.history, this.history.length * 2);
+        }
+        this.history[this.historySize++] = (move & 0xFFFFFFL)
+            | ((long) this.castling << 24)
+            | ((long) (this.enPassant + 1) << 28)
+            | ((long) this.halfmoveClock << 35);
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int piece = PackedMove.getPiece(move);
+        int promotion = PackedMove.getPromotion(move);
+        MoveType type = PackedMove.getType(move);
+        int color = this.getColor(from);
+        if (type == MoveType.ENPASSANT) {
+            this.remove(Attacks.pawnPush(color ^ 1, to));
+        } else {
+            this.remove(to);
+        }
+        this.remove(from);
+        this.put(to, color, promotion == BitBoard.EMPTY ? piece : promotion);
+        if (type == MoveType.KINGSIDE_CASTLING) {
+            this.remove(to + 1);
+            this.put(to - 1, color, BitBoard.ROOK);
+        } else if (type == MoveType.QUEENSIDE_CASTLING) {
+            this.remove(to - 2);
+            this.put(to + 1, color, BitBoard.ROOK);
+        }
+        this.setCastling(this.castling & BitBoard.CASTLING_MASKS[from] & BitBoard.CASTLING_MASKS[to]);
+        this.enPassant = piece == BitBoard.PAWN && Math.abs(to - from) == 2 * File.COUNT ? (from + to) / 2 : Square.NONE;
+        this.halfmoveClock = piece == BitBoard.PAWN || PackedMove.isCapture(move) ? 0 : this.halfmoveClock + 1;
+        if (color == BitBoard.BLACK) {
+            this.fullmoveNumber++;
+        }
+        this.setSideToMove(color ^ 1);
+    }
+
+    /**
+     * Takes back the last move played by makeMove and restores state of the position
+     * @return packed move that was taken back
+     */
+    public int unmakeMove() {
+        long entry = this.history[--this.historySize];
+        int move = (int) (entry & 0xFFFFFFL);
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int captured = PackedMove.getCaptured(move);
+        MoveType type = PackedMove.getType(move);
+        int color = this.getColor(to);
+        this.remove(to);
+        this.put(from, color, PackedMove.getPiece(move));
+        if (type == MoveType.ENPASSANT) {
+            this.put(Attacks.pawnPush(color ^ 1, to), color ^ 1, BitBoard.PAWN);
+        } else if (captured != BitBoard.EMPTY) {
+            this.put(to, color ^ 1, captured);
+        } else if (type == MoveType.KINGSIDE_CASTLING) {
+            this.remove(to - 1);
+            this.put(to + 1, color, BitBoard.ROOK);
+        } else if (type == MoveType.QUEENSIDE_CASTLING) {
+            this.remove(to + 1);
+            this.put(to - 2, color, BitBoard.ROOK);
+        }
+        this.setCastling((int) ((entry >>> 24) & 0xF));
+        this.enPassant = (int) ((entry >>> 28) & 0x7F) - 1;
+        this.halfmoveClock = (int) ((entry >>> 35) & 0xFFFF);
+        if (color == BitBoard.BLACK) {
+            this.fullmoveNumber--;
+        }
+        this.setSideToMove(color);
+        return move;
+    }
+
+    /**
+     * Gets number of moves that can be taken back
+     * @return size of the undo stack
+     */
+    public int getHistorySize() {
+        return this.historySize;
+    }
+
+    /**
+     * Gets type of the piece on passed square
+     * @param square index of the square
+     * @return index of the piece type or EMPTY
+     */
+    public int getType(int square) {
+        return this.types[square];
+    }
+
+    /**
+     * Gets color of the piece on passed square
+     * @param square index of the square
+     * @return index of the color or NO_COLOR if the square is empty
+     */
+    public int getColor(int square) {
+        long bit = 1L << square;
+        if ((this.colors[BitBoard.WHITE] & bit) != 0) {
+            return BitBoard.WHITE;
+        }
+        return (this.colors[BitBoard.BLACK] & bit) != 0 ? BitBoard.BLACK : BitBoard.NO_COLOR;
+    }
+
+    /**
+     * Checks if there is no piece on passed square
+     * @param square index of the square
+     * @return boolean value if the square is empty
+     */
+    public boolean isEmpty(int square) {
+        return this.types[square] == BitBoard.EMPTY;
+    }
+
+    /**
+     * Gets mask of pieces of passed color and type
+     * @param color index of the color
+     * @param type index of the piece type
+     * @return 64-bit mask of squares with such pieces
+     */
+    public long getPieces(int color, int type) {
+        return this.pieces[color][type];
+    }
+
+    /**
+     * Gets mask of all pieces of passed color
+     * @param color index of the color
+     * @return 64-bit mask of squares occupied by the color
+     */
+    public long getOccupancy(int color) {
+        return this.colors[color];
+    }
+
+    /**
+     * Gets mask of all pieces on the board
+     * @return 64-bit mask of occupied squares
+     */
+    public long getOccupancy() {
+        return this.occupied;
+    }
+
+    /**
+     * Gets square of the king of passed color
+     * @param color index of the color
+     * @return index of the square or Square.NONE when there is no king
+     */
+    public int getKingSquare(int color) {
+        long king = this.pieces[color][BitBoard.KING];
+        return king == 0L ? Square.NONE : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Gets material signature of the position, it is updated with each put and remove
+     * @return Material of the position
+     */
+    public Material getMaterial() {
+        return this.material;
+    }
+
+    /**
+     * Gets index of the color to move
+     * @return index of the color
+     */
+    public int getSideToMove() {
+        return this.sideToMove;
+    }
+
+    /**
+     * Sets color to move
+     * @param sideToMove index of the color
+     */
+    public void setSideToMove(int sideToMove) {
+        if (this.sideToMove != sideToMove) {
+            this.key ^= Zobrist.side();
+        }
+        this.sideToMove = sideToMove;
+    }
+
+    /**
+     * Gets castling rights of the position
+     * @return castling bits
+     */
+    public int getCastling() {
+        return this.castling;
+    }
+
+    /**
+     * Sets castling rights of the position
+     * @param castling castling bits
+     */
+    public void setCastling(int castling) {
+        this.key ^= Zobrist.castling(this.castling) ^ Zobrist.castling(castling);
+        this.castling = castling;
+    }
+
+    /**
+     * Gets en passant square of the position
+     * @return index of the square behind pawn that performed double step or Square.NONE
+     */
+    public int getEnPassant() {
+        return this.enPassant;
+    }
+
+    /**
+     * Sets en passant square of the position
+     * @param enPassant index of the square or Square.NONE
+     */
+    public void setEnPassant(int enPassant) {
+        this.enPassant = enPassant;
+    }
+
+    /**
+     * Gets number of halfmoves since the last capture or pawn move
+     * @return value of the halfmove clock
+     */
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
+    /**
+     * Sets number of halfmoves since the last capture or pawn move
+     * @param halfmoveClock value of the halfmove clock
+     */
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * Gets number of the full move
+     * @return value of the fullmove number
+     */
+    public int getFullmoveNumber() {
+        return this.fullmoveNumber;
+    }
+
+    /**
+     * Sets number of the full move
+     * @param fullmoveNumber value of the fullmove number
+     */
+    public void setFullmoveNumber(int fullmoveNumber) {
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Gets Zobrist key of the position. En passant file is part of the key only
+     * when a pawn of the side to move stands next to the pawn that performed double
+     * step, otherwise the position is the same as without the en passant square.
+     * @return 64-bit key of the position
+     * @see Zobrist
+     */
+    public long getKey() {
+        if (this.enPassant != Square.NONE
+            && (Attacks.pawn(this.sideToMove ^ 1, this.enPassant) & this.pieces[this.sideToMove][BitBoard.PAWN]) != 0L) {
+            return this.key ^ Zobrist.enPassant(this.enPassant);
+        }
+        return this.key;
+    }
+
+    /**
+     * Computes Zobrist key of the position from scratch (used to verify the
+     * incrementally updated key)
+     * @return 64-bit key of the position
+     */
+    public long computeKey() {
+        long computed = Zobrist.castling(this.castling);
+        if (this.sideToMove == BitBoard.BLACK) {
+            computed ^= Zobrist.side();
+        }
+        for (int color = 0; color < 2; color++) {
+            for (int type = 0; type <= BitBoard.KING; type++) {
+                for (long mask = this.pieces[color][type]; mask != 0L; mask &= mask - 1) {
+                    computed ^= Zobrist.piece(color, type, Long.numberOfTrailingZeros(mask));
+                }
+            }
+        }
+        if (this.enPassant != Square.NONE
+            && (Attacks.pawn(this.sideToMove ^ 1, this.enPassant) & this.pieces[this.sideToMove][BitBoard.PAWN]) != 0L) {
+            computed ^= Zobrist.enPassant(this.enPassant);
+        }
+        return computed;
+    }
+
+    /**
+     * Gets sum of middlegame piece-square scores of all pieces
+     * @return score in centipawns from the point of view of white
+     * @see PieceSquareTables
+     */
+    public int getMiddlegame() {
+        return this.middlegame;
+    }
+
+    /**
+     * Gets sum of endgame piece-square scores of all pieces
+     * @return score in centipawns from the point of view of white
+     * @see PieceSquareTables
+     */
+    public int getEndgame() {
+        return this.endgame;
+    }
+
+    /**
+     * Computes sum of middlegame piece-square scores from scratch (for checks of the
+     * incrementally updated score)
+     * @return score in centipawns from the point of view of white
+     */
+    public int computeMiddlegame() {
+        int computed = 0;
+        for (int color = 0; color < 2; color++) {
+            for (int type = 0; type <= BitBoard.KING; type++) {
+                for (long mask = this.pieces[color][type]; mask != 0L; mask &= mask - 1) {
+                    computed += PieceSquareTables.middlegame(color, type, Long.numberOfTrailingZeros(mask));
+                }
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * Computes sum of endgame piece-square scores from scratch (for checks of the
+     * incrementally updated score)
+     * @return score in centipawns from the point of view of white
+     */
+    public int computeEndgame() {
+        int computed = 0;
+        for (int color = 0; color < 2; color++) {
+            for (int type = 0; type <= BitBoard.KING; type++) {
+                for (long mask = this.pieces[color][type]; mask != 0L; mask &= mask - 1) {
+                    computed += PieceSquareTables.endgame(color, type, Long.numberOfTrailingZeros(mask));
+                }
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * Gets all pieces of passed color attacking passed square. The search goes
+     * outward from the square: a piece attacks it exactly when the same piece
+     * standing on the square would attack that piece back (pawns use the table
+     * of the opposite color).
+     * @param square index of the attacked square
+     * @param color index of the color of the attackers
+     * @param occupied mask of occupied squares used to block sliding pieces
+     * @return mask of squares of all attackers
+     */
+    public long attackersTo(int square, int color, long occupied) {
+        long[] own = this.pieces[color];
+        long queens = own[BitBoard.QUEEN];
+        return (Attacks.pawn(color ^ 1, square) & own[BitBoard.PAWN])
+            | (Attacks.knight(square) & own[BitBoard.KNIGHT])
+            | (Attacks.king(square) & own[BitBoard.KING])
+            | (Attacks.rook(square, occupied) & (own[BitBoard.ROOK] | queens))
+            | (Attacks.bishop(square, occupied) & (own[BitBoard.BISHOP] | queens));
+    }
+
+    /**
+     * Gets all pieces of passed color attacking passed square on the current board
+     * @param square index of the attacked square
+     * @param color index of the color of the attackers
+     * @return mask of squares of all attackers
+     */
+    public long attackersTo(int square, int color) {
+        return this.attackersTo(square, color, this.occupied);
+    }
+
+    /**
+     * Checks if any piece of passed color attacks passed square. Cheap leaper
+     * lookups go first and the search stops at the first attacker found.
+     * @param square index of the attacked square
+     * @param color index of the color of the attackers
+     * @param occupied mask of occupied squares used to block sliding pieces
+     * @return boolean value if the square is attacked
+     */
+    public boolean isAttacked(int square, int color, long occupied) {
+        long[] own = this.pieces[color];
+        if ((Attacks.pawn(color ^ 1, square) & own[BitBoard.PAWN]) != 0L
+            || (Attacks.knight(square) & own[BitBoard.KNIGHT]) != 0L
+            || (Attacks.king(square) & own[BitBoard.KING]) != 0L) {
+            return true;
+        }
+        long queens = own[BitBoard.QUEEN];
+        long rooks = own[BitBoard.ROOK] | queens;
+        if (rooks != 0L && (Attacks.rook(square, occupied) & rooks) != 0L) {
+            return true;
+        }
+        long bishops = own[BitBoard.BISHOP] | queens;
+        return bishops != 0L && (Attacks.bishop(square, occupied) & bishops) != 0L;
+    }
+
+    /**
+     * Checks if the king of the side to move is attacked, cheaper than the analysis
+     * of the position by MoveGenerator when only the check is needed
+     * @return boolean value if the side to move is in check
+     */
+    public boolean isCheck() {
+        int king = this.getKingSquare(this.sideToMove);
+        return king != Square.NONE && this.isAttacked(king, this.sideToMove ^ 1);
+    }
+
+    /**
+     * Checks if any piece of passed color attacks passed square on the current board
+     * @param square index of the attacked square
+     * @param color index of the color of the attackers
+     * @return boolean value if the square is attacked
+     */
+    public boolean isAttacked(int square, int color) {
+        return this.isAttacked(square, color, this.occupied);
+    }
+
+    /**
+     * Gets value of a piece
+     * @param type index of the piece type (EMPTY is worth 0)
+     * @return value in centipawns
+     */
+    public static int getValue(int type) {
+        return BitBoard.VALUES[type];
+    }
+
+    /**
+     * Evaluates exchange of pieces on the target square of passed move (static exchange
+     * evaluation). Both sides capture on the square with their least valuable attacker
+     * and may stop capturing when it does not pay off. Pieces revealed behind moved
+     * sliders join the exchange, pins are not taken into account.
+     * @param move packed move of the side to move (capture or quiet move)
+     * @return expected material gain of the side playing the move in centipawns,
+     *         negative when the moved piece is lost for less
+     */
+    public int see(int move) {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int side = this.getColor(from);
+        long occupied = this.occupied ^ Square.bit(from);
+        if (PackedMove.getType(move) == MoveType.ENPASSANT) {
+            occupied ^= Square.bit(Attacks.pawnPush(side ^ 1, to));
+        }
+        int attacker = PackedMove.getPiece(move);
+        int depth = 0;
+        this.swaps[0] = BitBoard.VALUES[PackedMove.getCaptured(move)];
+        if (PackedMove.isPromotion(move)) {
+            attacker = PackedMove.getPromotion(move);
+            this.swaps[0] += BitBoard.VALUES[attacker] - BitBoard.VALUES[BitBoard.PAWN];
+        }
+        while (depth < this.swaps.length - 1) {
+            side ^= 1;
+            long attackers = this.attackersTo(to, side, occupied) & occupied;
+            if (attackers == 0L) {
+                break;
+            }
+            int square = Square.NONE;
+            int type = BitBoard.EMPTY;
+            for (int candidate : BitBoard.SEE_ORDER) {
+                long candidates = attackers & this.pieces[side][candidate];
+                if (candidates != 0L) {
+                    square = Long.numberOfTrailingZeros(candidates);
+                    type = candidate;
+                    break;
+                }
+            }
+            // king cannot capture a defended piece
+            if (type == BitBoard.KING && (this.attackersTo(to, side ^ 1, occupied) & occupied) != 0L) {
+                break;
+            }
+            depth++;
+            this.swaps[depth] = BitBoard.VALUES[attacker] - this.swaps[depth - 1];
+            occupied ^= Square.bit(square);
+            attacker = type;
+        }
+        // each side takes back only when the capture does not lose
+        while (depth > 0) {
+            this.swaps[depth - 1] = -Math.max(-this.swaps[depth - 1], this.swaps[depth]);
+            depth--;
+        }
+        return this.swaps[0];
+    }
+}
@@ -1,39 +1,85 @@
 package pjv.sp.chess.model.board;
 
+import pjv.sp.chess.model.pieces.Bishop;
 import pjv.sp.chess.model.pieces.Color;
 import pjv.sp.chess.model.pieces.Empty;
 import pjv.sp.chess.model.pieces.King;
+import pjv.sp.chess.model.pieces.Knight;
+import pjv.sp.chess.model.pieces.MoveType;
 import pjv.sp.chess.model.pieces.Pawn;
 import pjv.sp.chess.model.pieces.Piece;
+import pjv.sp.chess.model.pieces.PieceType;
 import pjv.sp.chess.model.pieces.Position;
+import pjv.sp.chess.model.pieces.Queen;
 import pjv.sp.chess.model.pieces.Rook;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Board class holds information about current state of the game chessboard.
  * It provides API for putting, getting and moving pieces on it as well as
  * creating new layouts.
+ * The position itself is stored in BitBoard masks, Piece objects are kept
+ * only in a flat array indexed by squares so the views and controllers can
+ * still work with them.
+ * State of the position (side to move, castling rights, en passant square,
+ * halfmove clock and fullmove number) is owned by the BitBoard as a few primitive
+ * fields, so the position can be written to FEN and read back exactly.
+ * Moves played by makeMove can be taken back by unmakeMove. The BitBoard keeps
+ * its own undo stack, the Board only remembers which Piece objects were moved
+ * and captured, so the same objects are restored.
  * @author Jakub Rada
  * @version 1.0
+ * @see BitBoard
  */
 public class Board {
 
     /**
-     * Two dimensional ArrayList that represents the board and holds pieces in it.
+     * Initial size of the undo stacks, they grow when needed
      */
-    private List<List<Piece>> board = new ArrayList<>(File.COUNT);
+    private static final int INITIAL_HISTORY = 64;
 
     /**
-     * Boolean value that determines if the board starts with standard or custom layout
+     * Number of halfmoves without capture or pawn move after which the game is drawn (fifty-move rule)
      */
-    private boolean custom;
+    public static final int FIFTY_MOVES = 100;
+
+    /**
+     * Pieces on the board indexed by squares (see Square for the order)
+     */
+    private final Piece[] squares = new Piece[Square.COUNT];
+
+    /**
+     * Compact representation of the board used for all queries on the position
+     */
+    private final BitBoard bitBoard = new BitBoard();
+
+    /**
+     * Empty piece of each square, reused whenever the square is emptied
+     */
+    private final Empty[] empties = new Empty[Square.COUNT];
+
+    /**
+     * Pieces moved by makeMove (undo stack)
+     */
+    private Piece[] movedPieces = new Piece[Board.INITIAL_HISTORY];
+
+    /**
+     * Pieces (or Empty) captured by makeMove (undo stack)
+     */
+    private Piece[] capturedPieces = new Piece[Board.INITIAL_HISTORY];
+
+    /**
+     * Number of moves that can be taken back
+     */
+    private int historySize;
 
     /**
-     * Field that holds kings pieces for easier access to them (no need to search whole board)
+     * Boolean value that determines if the board starts with standard or custom layout
      */
-    private final Piece[] kings = new Piece[2];
+    private boolean custom;
 
     /**
      * Creates new board based on passed boolean value
@@ -45,10 +91,14 @@ public class Board {
      */
     public Board(boolean custom) {
         this.custom = custom;
+        for (int square = 0; square < Square.COUNT; square++) {
+            this.empties[square] = new Empty(Square.toPosition(square));
+        }
         if (custom) {
             this.createBlankBoard();
         } else {
             this.createStandardBoard();
+            this.bitBoard.setCastling(BitBoard.ALL_CASTLING);
         }
     }
 
@@ -60,13 +110,49 @@ public class Board {
         this.custom = custom;
     }
 
+    /**
+     * Gives castling rights to a finished custom layout: each color may castle to the side
+     * where its king and rook stand on their initial squares
+     */
+    public void setHomeCastling() {
+        int castling = 0;
+        if (this.isHome(Square.of(File.E, Rank.ONE), BitBoard.WHITE, BitBoard.KING)) {
+            if (this.isHome(Square.of(File.H, Rank.ONE), BitBoard.WHITE, BitBoard.ROOK)) {
+                castling |= BitBoard.WHITE_KINGSIDE;
+            }
+            if (this.isHome(Square.of(File.A, Rank.ONE), BitBoard.WHITE, BitBoard.ROOK)) {
+                castling |= BitBoard.WHITE_QUEENSIDE;
+            }
+        }
+        if (this.isHome(Square.of(File.E, Rank.EIGHT), BitBoard.BLACK, BitBoard.KING)) {
+            if (this.isHome(Square.of(File.H, Rank.EIGHT), BitBoard.BLACK, BitBoard.ROOK)) {
+                castling |= BitBoard.BLACK_KINGSIDE;
+            }
+            if (this.isHome(Square.of(File.A, Rank.EIGHT), BitBoard.BLACK, BitBoard.ROOK)) {
+                castling |= BitBoard.BLACK_QUEENSIDE;
+            }
+        }
+        this.bitBoard.setCastling(castling);
+    }
+
+    /**
+     * Checks if piece of passed color and type stands on passed square
+     * @param square index of the square
+     * @param color index of the color
+     * @param type index of the piece type
+     * @return boolean value if the piece is there
+     */
+    private boolean isHome(int square, int color, int type) {
+        return this.bitBoard.getType(square) == type && this.bitBoard.getColor(square) == color;
+    }
+
     /**
      * Clears board - fills it with empty pieces
      */
     public void clearBoard() {
         for (Rank rank : Rank.VALUES) {
             for (File file : File.VALUES) {
-                this.board.get(rank.getValue()).set(file.getValue(), new Empty(new Position(file, rank)));
+                this.place(this.empties[Square.of(file, rank)], Square.of(file, rank));
             }
         }
     }
@@ -76,7 +162,7 @@ public class Board {
      */
     private void createBlankBoard() {
         for (Rank rank : Rank.VALUES) {
-            this.board.add(StandardBoard.generateEmptyLine(rank));
+            this.placeLine(StandardBoard.generateEmptyLine(rank));
         }
     }
 
@@ -84,18 +170,40 @@ public class Board {
      * Creates standard board layout according to chess rules
      */
     private void createStandardBoard() {
-        this.board.add(StandardBoard.generateKingLine(Color.BLACK, Rank.EIGHT));
-        this.board.add(StandardBoard.generatePawnLine(Color.BLACK, Rank.SEVEN));
+        this.placeLine(StandardBoard.generateKingLine(Color.BLACK, Rank.EIGHT));
+        this.placeLine(StandardBoard.generatePawnLine(Color.BLACK, Rank.SEVEN));
         /* Fill empty space between white and black lines */
         for (Rank rank : Rank.VALUES) {
             if (rank.getValue() > 1 && rank.getValue() < File.COUNT - 2) {
-                this.board.add(StandardBoard.generateEmptyLine(rank));
+                this.placeLine(StandardBoard.generateEmptyLine(rank));
             }
         }
-        this.board.add(StandardBoard.generatePawnLine(Color.WHITE, Rank.TWO));
-        this.board.add(StandardBoard.generateKingLine(Color.WHITE, Rank.ONE));
-        this.kings[Color.WHITE.getIndex()] = this.getPiece(File.E, Rank.ONE);
-        this.kings[Color.BLACK.getIndex()] = this.getPiece(File.E, Rank.EIGHT);
+        this.placeLine(StandardBoard.generatePawnLine(Color.WHITE, Rank.TWO));
+        this.placeLine(StandardBoard.generateKingLine(Color.WHITE, Rank.ONE));
+    }
+
+    /**
+     * Places all pieces of a generated line on their positions
+     * @param line List of Pieces that represents line on the board
+     */
+    private void placeLine(List<Piece> line) {
+        for (Piece piece : line) {
+            this.place(piece, Square.of(piece.getPosition()));
+        }
+    }
+
+    /**
+     * Stores piece on passed square and mirrors the change in the bitboards
+     * @param piece Piece to be stored
+     * @param square index of the square
+     */
+    private void place(Piece piece, int square) {
+        this.squares[square] = piece;
+        if (Color.EMPTY.equals(piece.getColor())) {
+            this.bitBoard.remove(square);
+        } else {
+            this.bitBoard.put(square, piece.getColor().getIndex(), piece.getType().getIndex());
+        }
     }
 
     /**
@@ -110,33 +218,18 @@ public class Board {
     public void putPiece(Piece piece, File file, Rank rank) {
         piece.getPosition().setFile(file);
         piece.getPosition().setRank(rank);
-        this.board.get(rank.getValue()).set(file.getValue(), piece);
+        this.place(piece, Square.of(file, rank));
     }
 
     /**
      * Puts piece on board when building custom starting position. The position of the
-     * piece is set as its parameter. It handles setting inital values of properties
-     * of some pieces (Pawn, King, Rook) needed for special moves.
+     * piece is set as its parameter. State of the position is not changed, castling
+     * rights are given by setHomeCastling when the layout is finished.
      * @param piece piece to place on the board
      * @see Piece
      */
     public void putPieceInitial(Piece piece) {
-        // if its pawn set its moved property based on its rank
-        if (Pawn.class.equals(piece.getClass())) {
-            if (Color.WHITE.equals(piece.getColor()) && !Rank.TWO.equals(piece.getPosition().getRank())) {
-                piece.setMoved();
-            } else if (Color.BLACK.equals(piece.getColor()) && !Rank.SEVEN.equals(piece.getPosition().getRank())) {
-                piece.setMoved();
-            }
-        }
-        // automatically set rook and king as moved (there is no way of determining they were not moved)
-        if (King.class.equals(piece.getClass())) {
-            piece.setMoved();
-            this.kings[piece.getColor().getIndex()] = piece;
-        } else if (Rook.class.equals(piece.getClass())) {
-            piece.setMoved();
-        }
-        this.board.get(piece.getPosition().getRank().getValue()).set(piece.getPosition().getFile().getValue(), piece);
+        this.place(piece, Square.of(piece.getPosition()));
     }
 
     /**
@@ -145,47 +238,284 @@ public class Board {
      * @see Position
      */
     public void removePiece(Position position) {
-        this.putPiece(new Empty(position), position.getFile(), position.getRank());
+        this.place(this.empties[Square.of(position)], Square.of(position));
     }
 
     /**
-     * Move piece from one position to another
+     * Move piece from one position to another as a move of the game. Castling moves
+     * the rook too, en passant removes the captured pawn and a pawn reaching the last
+     * rank is promoted to queen (replace it by putPiece for other promotions).
+     * State of the position is updated in the same way as by makeMove.
      * @param source initial position of the moved piece
      * @param target position of the piece to be moved at
-     * @param round round of the game
      * @see Position
      */
-    public void movePiece(Position source, Position target, int round) {
-        this.checkPawn(source, target, round);
-        this.putPiece(this.getPiece(source.getFile(), source.getRank()), target.getFile(), target.getRank());
-        this.putPiece(new Empty(source), source.getFile(), source.getRank());
-        this.getPiece(target).setMoved();
+    public void movePiece(Position source, Position target) {
+        int from = Square.of(source);
+        int to = Square.of(target);
+        int piece = this.bitBoard.getType(from);
+        int captured = this.bitBoard.getType(to);
+        MoveType type = MoveType.NORMAL;
+        int promotion = BitBoard.EMPTY;
+        if (piece == BitBoard.KING && to - from == 2) {
+            type = MoveType.KINGSIDE_CASTLING;
+        } else if (piece == BitBoard.KING && from - to == 2) {
+            type = MoveType.QUEENSIDE_CASTLING;
+        } else if (piece == BitBoard.PAWN && to == this.bitBoard.getEnPassant() && captured == BitBoard.EMPTY) {
+            type = MoveType.ENPASSANT;
+        } else if (piece == BitBoard.PAWN && (Square.rankValue(to) == Rank.EIGHT.getValue() || Square.rankValue(to) == Rank.ONE.getValue())) {
+            promotion = BitBoard.QUEEN;
+        }
+        this.makeMove(PackedMove.of(from, to, type, piece, captured, promotion));
     }
 
     /**
-     * Check if the moved piece is pawn and if its performing double step.
-     * In this case save round of the move (neede for en passant control)
-     * @param source initial position of the moved piece
-     * @param target position of the piece to be moved at
-     * @param round round of the game
-     * @see Position
+     * Plays packed move on the board, Piece objects follow the move in the same way
+     * as with movePiece (including the rook of castling and the captured en passant pawn).
+     * Promotion creates the promoted piece, other moves allocate nothing.
+     * @param move packed move that is legal in the position
+     * @see PackedMove
      */
-    private void checkPawn(Position source, Position target, int round) {
-        if (Pawn.class.equals(this.getPiece(source).getClass())) {
-            // check if it was double step
-            if (Math.abs(target.getRank().getValue() - source.getRank().getValue()) == 2) {
-                this.getPiece(source).setDoubleStep(round);
-            }
+    public void makeMove(int move) {
+        if (this.historySize == this.movedPieces.length) {
+            this.movedPieces = Arrays.copyOf(this.movedPieces, this.historySize * 2);
+            this.capturedPieces = Arrays.copyOf(this.capturedPieces, this.historySize * 2);
+        }
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        MoveType type = PackedMove.getType(move);
+        Piece piece = this.squares[from];
+        int capturedSquare = MoveType.ENPASSANT.equals(type) ? Attacks.pawnPush(piece.getColor().getOppositeColor().getIndex(), to) : to;
+        this.movedPieces[this.historySize] = piece;
+        this.capturedPieces[this.historySize] = this.squares[capturedSquare];
+        this.historySize++;
+        this.bitBoard.makeMove(move);
+        this.squares[capturedSquare] = this.empties[capturedSquare];
+        this.squares[from] = this.empties[from];
+        Piece placed = PackedMove.isPromotion(move) ? Board.createPiece(PackedMove.getPromotion(move), piece.getColor(), Square.toPosition(to)) : piece;
+        this.setSquare(placed, to);
+        if (MoveType.KINGSIDE_CASTLING.equals(type)) {
+            this.moveRook(to + 1, to - 1);
+        } else if (MoveType.QUEENSIDE_CASTLING.equals(type)) {
+            this.moveRook(to - 2, to + 1);
         }
     }
 
     /**
-     * Gets the board matrix
+     * Takes back the last move played by makeMove, the same Piece objects
+     * are put back and state of the position is restored
+     */
+    public void unmakeMove() {
+        this.historySize--;
+        Piece piece = this.movedPieces[this.historySize];
+        Piece captured = this.capturedPieces[this.historySize];
+        this.movedPieces[this.historySize] = null;
+        this.capturedPieces[this.historySize] = null;
+        int move = this.bitBoard.unmakeMove();
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        MoveType type = PackedMove.getType(move);
+        this.squares[to] = this.empties[to];
+        this.setSquare(piece, from);
+        if (MoveType.ENPASSANT.equals(type)) {
+            this.squares[Attacks.pawnPush(piece.getColor().getOppositeColor().getIndex(), to)] = captured;
+        } else {
+            this.squares[to] = captured;
+        }
+        if (MoveType.KINGSIDE_CASTLING.equals(type)) {
+            this.moveRook(to - 1, to + 1);
+        } else if (MoveType.QUEENSIDE_CASTLING.equals(type)) {
+            this.moveRook(to + 1, to - 2);
+        }
+    }
+
+    /**
+     * Gets number of moves that can be taken back by unmakeMove
+     * @return size of the undo stack
+     */
+    public int getHistorySize() {
+        return this.historySize;
+    }
+
+    /**
+     * Stores piece object on passed square without changing the BitBoard
+     * @param piece Piece to be stored
+     * @param square index of the square
+     */
+    private void setSquare(Piece piece, int square) {
+        piece.getPosition().setFile(Square.getFile(square));
+        piece.getPosition().setRank(Square.getRank(square));
+        this.squares[square] = piece;
+    }
+
+    /**
+     * Moves rook object of castling without changing the BitBoard
+     * @param from index of the initial square of the rook
+     * @param to index of the target square of the rook
+     */
+    private void moveRook(int from, int to) {
+        Piece rook = this.squares[from];
+        this.squares[from] = this.empties[from];
+        this.setSquare(rook, to);
+    }
+
+    /**
+     * Sets position described by FEN including its state (side to move, castling
+     * rights, en passant square and move counters), played moves are forgotten
+     * @param fen String in FEN format
+     * @throws IllegalArgumentException when the string is not a valid FEN
+     */
+    public void setPosition(String fen) {
+        BitBoard position = Fen.parse(fen);
+        this.clearBoard();
+        this.bitBoard.clear();
+        Arrays.fill(this.movedPieces, 0, this.historySize, null);
+        Arrays.fill(this.capturedPieces, 0, this.historySize, null);
+        this.historySize = 0;
+        for (long occupied = position.getOccupancy(); occupied != 0; occupied &= occupied - 1) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            Color color = position.getColor(square) == BitBoard.WHITE ? Color.WHITE : Color.BLACK;
+            this.putPieceInitial(Board.createPiece(position.getType(square), color, Square.toPosition(square)));
+        }
+        this.bitBoard.setSideToMove(position.getSideToMove());
+        this.bitBoard.setCastling(position.getCastling());
+        this.bitBoard.setEnPassant(position.getEnPassant());
+        this.bitBoard.setHalfmoveClock(position.getHalfmoveClock());
+        this.bitBoard.setFullmoveNumber(position.getFullmoveNumber());
+    }
+
+    /**
+     * Gets position of the board in FEN including its state
+     * @return String in FEN format
+     * @see Fen
+     */
+    public String getFen() {
+        return Fen.format(this.bitBoard);
+    }
+
+    /**
+     * Creates piece of passed type (used for promotions and FEN positions)
+     * @param type BitBoard type of the piece
+     * @param color Color of the piece
+     * @param position Position of the piece
+     * @return new Piece
+     */
+    private static Piece createPiece(int type, Color color, Position position) {
+        switch (type) {
+            case BitBoard.PAWN:
+                return new Pawn(color, position);
+            case BitBoard.KING:
+                return new King(color, position);
+            case BitBoard.ROOK:
+                return new Rook(color, position);
+            case BitBoard.BISHOP:
+                return new Bishop(color, position);
+            case BitBoard.KNIGHT:
+                return new Knight(color, position);
+            default:
+                return new Queen(color, position);
+        }
+    }
+
+    /**
+     * Gets the board matrix. The matrix is created on each call, changes in
+     * it are not reflected on the board.
      * @return two dimensional List of type Piece
      * @see Piece
      */
     public List<List<Piece>> getBoard() {
-        return this.board;
+        List<List<Piece>> board = new ArrayList<>(Rank.COUNT);
+        for (int rank = 0; rank < Rank.COUNT; rank++) {
+            List<Piece> row = new ArrayList<>(File.COUNT);
+            for (int file = 0; file < File.COUNT; file++) {
+                row.add(this.squares[Square.of(file, rank)]);
+            }
+            board.add(row);
+        }
+        return board;
+    }
+
+    /**
+     * Gets compact representation of the board
+     * @return BitBoard that mirrors this board
+     * @see BitBoard
+     */
+    public BitBoard getBitBoard() {
+        return this.bitBoard;
+    }
+
+    /**
+     * Gets Zobrist key of the position, it is updated with each change of the board
+     * @return 64-bit key of the position
+     * @see Zobrist
+     */
+    public long getKey() {
+        return this.bitBoard.getKey();
+    }
+
+    /**
+     * Gets material signature of the position, it is updated with each change of the board
+     * @return Material of the position
+     * @see Material
+     */
+    public Material getMaterial() {
+        return this.bitBoard.getMaterial();
+    }
+
+    /**
+     * Gets color to move in the position
+     * @return Color of the player to move
+     */
+    public Color getSideToMove() {
+        return this.bitBoard.getSideToMove() == BitBoard.WHITE ? Color.WHITE : Color.BLACK;
+    }
+
+    /**
+     * Sets color to move in the position (used when the player to start is chosen)
+     * @param color Color of the player to move
+     */
+    public void setSideToMove(Color color) {
+        this.bitBoard.setSideToMove(color.getIndex());
+    }
+
+    /**
+     * Gets castling rights of the position
+     * @return castling bits (see BitBoard castling constants)
+     */
+    public int getCastling() {
+        return this.bitBoard.getCastling();
+    }
+
+    /**
+     * Gets en passant square of the position
+     * @return index of the square behind pawn that performed double step in the last move or Square.NONE
+     */
+    public int getEnPassant() {
+        return this.bitBoard.getEnPassant();
+    }
+
+    /**
+     * Gets number of halfmoves since the last capture or pawn move
+     * @return value of the halfmove clock
+     */
+    public int getHalfmoveClock() {
+        return this.bitBoard.getHalfmoveClock();
+    }
+
+    /**
+     * Gets number of the full move, it starts at 1 and grows after each black move
+     * @return value of the fullmove number
+     */
+    public int getFullmoveNumber() {
+        return this.bitBoard.getFullmoveNumber();
+    }
+
+    /**
+     * Checks if fifty moves of each player were played without capture or pawn move
+     * @return boolean value if the game is drawn by the fifty-move rule
+     */
+    public boolean isFiftyMoveRule() {
+        return this.bitBoard.getHalfmoveClock() >= Board.FIFTY_MOVES;
     }
 
     /**
@@ -206,7 +536,18 @@ public class Board {
      * @see Piece
      */
     public Piece getPiece(File file, Rank rank) {
-        return this.board.get(rank.getValue()).get(file.getValue());
+        return this.squares[Square.of(file, rank)];
+    }
+
+    /**
+     * Gets piece on specified square
+     * @param square index of the square (see Square)
+     * @return Piece that is present on passed square
+     * @see Square
+     * @see Piece
+     */
+    public Piece getPiece(int square) {
+        return this.squares[square];
     }
 
     /**
@@ -217,7 +558,7 @@ public class Board {
      * @see Position
      */
     public Piece getPiece(Position position) {
-        return this.getPiece(position.getFile(), position.getRank());
+        return this.squares[Square.of(position)];
     }
 
     /**
@@ -229,12 +570,16 @@ public class Board {
      */
     public List<Piece> getPieces(Color color) {
         List<Piece> pieces = new ArrayList<>();
-        for (List<Piece> row : this.board) {
-            for (Piece piece : row) {
+        if (Color.EMPTY.equals(color)) {
+            for (Piece piece : this.squares) {
                 if (color.equals(piece.getColor())) {
                     pieces.add(piece);
                 }
             }
+        } else {
+            for (long mask = this.bitBoard.getOccupancy(color.getIndex()); mask != 0; mask &= mask - 1) {
+                pieces.add(this.squares[Long.numberOfTrailingZeros(mask)]);
+            }
         }
         return pieces;
     }
@@ -255,12 +600,46 @@ public class Board {
         return piecesOfType;
     }
 
+    /**
+     * Gets squares of pieces of passed color and type. The set is kept up to date
+     * by every change of the board, so it can be iterated without scanning the
+     * board or allocating:
+     * {@code for (long m = board.getSquares(color, type); m != 0L; m &= m - 1) board.getPiece(Long.numberOfTrailingZeros(m))}
+     * @param color Color of the pieces (not EMPTY)
+     * @param type PieceType of the pieces (not EMPTY)
+     * @return set of square indexes as 64-bit mask
+     * @see Square
+     */
+    public long getSquares(Color color, PieceType type) {
+        return this.bitBoard.getPieces(color.getIndex(), type.getIndex());
+    }
+
+    /**
+     * Gets squares of all pieces of passed color, see getSquares(Color, PieceType)
+     * @param color Color of the pieces (not EMPTY)
+     * @return set of square indexes as 64-bit mask
+     */
+    public long getSquares(Color color) {
+        return this.bitBoard.getOccupancy(color.getIndex());
+    }
+
+    /**
+     * Gets number of pieces of passed color and type
+     * @param color Color of the pieces (not EMPTY)
+     * @param type PieceType of the pieces (not EMPTY)
+     * @return count of the pieces
+     */
+    public int getCount(Color color, PieceType type) {
+        return Long.bitCount(this.getSquares(color, type));
+    }
+
     /**
      * Gets King piece of passed color
      * @param color color of king to return
      * @return King Piece of passed color
      */
     public Piece getKing(Color color) {
-        return this.kings[color.getIndex()];
+        int square = this.bitBoard.getKingSquare(color.getIndex());
+        return square == Square.NONE ? null : this.squares[square];
     }
 }
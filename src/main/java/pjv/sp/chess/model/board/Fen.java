@@ -0,0 +1,172 @@
+package pjv.sp.chess.model.board;
+
+/**
+ * Fen class reads and writes positions of a BitBoard in Forsyth-Edwards Notation.
+ * All six fields are supported, missing fields at the end get their usual
+ * default values (white to move, no castling, no en passant, clocks 0 and 1).
+ * @author Jakub Rada
+ * @version 1.0
+ * @see BitBoard
+ */
+public final class Fen {
+
+    /**
+     * FEN of the standard starting position
+     */
+    public static final String STANDARD = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * Labels of white pieces indexed by BitBoard piece type
+     */
+    private static final String LABELS = "PRNBQK";
+
+    /**
+     * Labels of castling rights in the order of the castling bits
+     */
+    private static final String CASTLING_LABELS = "KQkq";
+
+    /**
+     * Fen is only a holder of static utilities
+     */
+    private Fen() {
+    }
+
+    /**
+     * Sets position described by passed FEN to the BitBoard, previous pieces and moves are removed
+     * @param fen String in FEN format
+     * @param bitBoard BitBoard where the position is set
+     * @throws IllegalArgumentException when the string is not a valid FEN
+     */
+    public static void parse(String fen, BitBoard bitBoard) {
+        String[] fields = fen.trim().split("\\s+");
+        bitBoard.clear();
+        int square = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                if (square % File.COUNT != 0) {
+                    throw new IllegalArgumentException("Wrong FEN rank length: " + fen);
+                }
+            } else if (c >= '1' && c <= '8') {
+                square += c - '0';
+            } else {
+                int type = Fen.LABELS.indexOf(Character.toUpperCase(c));
+                if (type < 0 || square >= Square.COUNT) {
+                    throw new IllegalArgumentException("Wrong FEN piece placement: " + fen);
+                }
+                bitBoard.put(square++, Character.isUpperCase(c) ? BitBoard.WHITE : BitBoard.BLACK, type);
+            }
+        }
+        if (square != Square.COUNT) {
+            throw new IllegalArgumentException("Wrong FEN piece placement: " + fen);
+        }
+        if (fields.length > 1) {
+            if (!"w".equals(fields[1]) && !"b".equals(fields[1])) {
+                throw new IllegalArgumentException("Wrong FEN side to move: " + fen);
+            }
+            bitBoard.setSideToMove("w".equals(fields[1]) ? BitBoard.WHITE : BitBoard.BLACK);
+        }
+        if (fields.length > 2 && !"-".equals(fields[2])) {
+            int castling = 0;
+            for (char c : fields[2].toCharArray()) {
+                int index = Fen.CASTLING_LABELS.indexOf(c);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Wrong FEN castling rights: " + fen);
+                }
+                castling |= 1 << index;
+            }
+            bitBoard.setCastling(castling);
+        }
+        if (fields.length > 3 && !"-".equals(fields[3])) {
+            int enPassant = Square.ofLabel(fields[3]);
+            if (enPassant == Square.NONE) {
+                throw new IllegalArgumentException("Wrong FEN en passant square: " + fen);
+            }
+            bitBoard.setEnPassant(enPassant);
+        }
+        try {
+            if (fields.length > 4) {
+                bitBoard.setHalfmoveClock(Integer.parseInt(fields[4]));
+            }
+            if (fields.length > 5) {
+                bitBoard.setFullmoveNumber(Integer.parseInt(fields[5]));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Wrong FEN move counters: " + fen);
+        }
+    }
+
+    /**
+     * Creates new BitBoard with position described by passed FEN
+     * @param fen String in FEN format
+     * @return BitBoard with the position
+     * @throws IllegalArgumentException when the string is not a valid FEN
+     */
+    public static BitBoard parse(String fen) {
+        BitBoard bitBoard = new BitBoard();
+        Fen.parse(fen, bitBoard);
+        return bitBoard;
+    }
+
+    /**
+     * Formats position of the BitBoard into FEN
+     * @param bitBoard BitBoard to be described
+     * @return String in FEN format
+     */
+    public static String format(BitBoard bitBoard) {
+        return Fen.formatPlacement(bitBoard) + " " + Fen.formatState(bitBoard);
+    }
+
+    /**
+     * Formats only piece placement (the first field of FEN)
+     * @param bitBoard BitBoard to be described
+     * @return String with piece placement
+     */
+    public static String formatPlacement(BitBoard bitBoard) {
+        StringBuilder sb = new StringBuilder();
+        for (int rank = 0; rank < Rank.COUNT; rank++) {
+            int empty = 0;
+            for (int file = 0; file < File.COUNT; file++) {
+                int square = Square.of(file, rank);
+                if (bitBoard.isEmpty(square)) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                char label = Fen.LABELS.charAt(bitBoard.getType(square));
+                sb.append(bitBoard.getColor(square) == BitBoard.WHITE ? label : Character.toLowerCase(label));
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (rank < Rank.COUNT - 1) {
+                sb.append('/');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats state of the position (the last five fields of FEN)
+     * @param bitBoard BitBoard to be described
+     * @return String with side to move, castling, en passant and clocks
+     */
+    public static String formatState(BitBoard bitBoard) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(bitBoard.getSideToMove() == BitBoard.WHITE ? 'w' : 'b').append(' ');
+        if (bitBoard.getCastling() == 0) {
+            sb.append('-');
+        }
+        for (int i = 0; i < Fen.CASTLING_LABELS.length(); i++) {
+            if ((bitBoard.getCastling() & (1 << i)) != 0) {
+                sb.append(Fen.CASTLING_LABELS.charAt(i));
+            }
+        }
+        sb.append(' ').append(bitBoard.getEnPassant() == Square.NONE ? "-" : Square.getLabel(bitBoard.getEnPassant()));
+        sb.append(' ').append(bitBoard.getHalfmoveClock());
+        sb.append(' ').append(bitBoard.getFullmoveNumber());
+        return sb.toString();
+    }
+}
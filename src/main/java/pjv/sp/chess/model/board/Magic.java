@@ -0,0 +1,253 @@
+package pjv.sp.chess.model.board;
+
+import pjv.sp.chess.model.pieces.MoveVector;
+
+/**
+ * Magic class holds magic bitboard tables of one type of sliding piece. For each
+ * square the relevant blockers (occupancy of the rays without the board edge)
+ * are multiplied by a magic number and shifted, which gives a unique index of
+ * the precomputed attack set for that blocker configuration. Attacks of a
+ * sliding piece are then found with one multiply, shift and lookup.
+ * Magic numbers are searched for when the class is loaded, the search uses a
+ * fixed seed so the tables are the same on each run. The tables are checked
+ * against plain ray walk by verify().
+ * @author Jakub Rada
+ * @version 1.0
+ * @see Attacks
+ */
+final class Magic {
+
+    /**
+     * Vectors of rook moves
+     */
+    private static final MoveVector[] ROOK_VECTORS = {
+        MoveVector.NORTH, MoveVector.EAST, MoveVector.SOUTH, MoveVector.WEST
+    };
+
+    /**
+     * Vectors of bishop moves
+     */
+    private static final MoveVector[] BISHOP_VECTORS = {
+        MoveVector.NORTH_EAST, MoveVector.SOUTH_EAST, MoveVector.SOUTH_WEST, MoveVector.NORTH_WEST
+    };
+
+    /**
+     * Largest number of blocker configurations of one square (rook in a corner)
+     */
+    private static final int MAX_CONFIGURATIONS = 1 << 12;
+
+    /**
+     * Magic tables for rooks
+     */
+    static final Magic ROOK = new Magic(Magic.ROOK_VECTORS, 0x2545F4914F6CDD1DL);
+
+    /**
+     * Magic tables for bishops
+     */
+    static final Magic BISHOP = new Magic(Magic.BISHOP_VECTORS, 0x9E3779B97F4A7C15L);
+
+    /**
+     * Vectors along which the piece slides
+     */
+    private final MoveVector[] vectors;
+
+    /**
+     * Masks of relevant blockers indexed by square
+     */
+    private final long[] masks = new long[Square.COUNT];
+
+    /**
+     * Magic numbers indexed by square
+     */
+    private final long[] magics = new long[Square.COUNT];
+
+    /**
+     * Shifts of multiplied blockers indexed by square
+     */
+    private final int[] shifts = new int[Square.COUNT];
+
+    /**
+     * Offsets of each square's part of the attack table
+     */
+    private final int[] offsets = new int[Square.COUNT];
+
+    /**
+     * Attack sets of all squares and blocker configurations
+     */
+    private final long[] table;
+
+    /**
+     * State of the random generator used while searching for magic numbers
+     */
+    private long seed;
+
+    /**
+     * Creates magic tables for piece sliding along passed vectors
+     * @param vectors MoveVectors of the sliding piece
+     * @param seed initial state of the random generator
+     */
+    private Magic(MoveVector[] vectors, long seed) {
+        this.vectors = vectors;
+        this.seed = seed;
+        int size = 0;
+        for (int square = 0; square < Square.COUNT; square++) {
+            this.masks[square] = this.relevantMask(square);
+            this.shifts[square] = Long.SIZE - Long.bitCount(this.masks[square]);
+            this.offsets[square] = size;
+            size += 1 << Long.bitCount(this.masks[square]);
+        }
+        this.table = new long[size];
+        this.generate();
+        assert this.verify() : "Magic attack tables differ from the ray walk";
+    }
+
+    /**
+     * Searches magic number of every square and fills the attack table
+     */
+    private void generate() {
+        long[] occupancies = new long[Magic.MAX_CONFIGURATIONS];
+        long[] attacks = new long[Magic.MAX_CONFIGURATIONS];
+        // attempt number when the table entry was last written, avoids clearing the table on each attempt
+        int[] written = new int[Magic.MAX_CONFIGURATIONS];
+        int attempt = 0;
+        for (int square = 0; square < Square.COUNT; square++) {
+            long mask = this.masks[square];
+            // enumerate all subsets of the mask (carry-rippler)
+            int count = 0;
+            long occupancy = 0L;
+            do {
+                occupancies[count] = occupancy;
+                attacks[count] = this.walk(square, occupancy);
+                count++;
+                occupancy = (occupancy - mask) & mask;
+            } while (occupancy != 0L);
+            boolean found = false;
+            while (!found) {
+                long magic = this.nextSparse();
+                // magic has to spread the blockers into the top bits used as index
+                if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                    continue;
+                }
+                attempt++;
+                found = true;
+                for (int i = 0; i < count; i++) {
+                    int index = (int) ((occupancies[i] * magic) >>> this.shifts[square]);
+                    if (written[index] < attempt) {
+                        written[index] = attempt;
+                        this.table[this.offsets[square] + index] = attacks[i];
+                    } else if (this.table[this.offsets[square] + index] != attacks[i]) {
+                        found = false;
+                        break;
+                    }
+                }
+                if (found) {
+                    this.magics[square] = magic;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets next pseudo random number (xorshift64*)
+     * @return random 64-bit number
+     */
+    private long next() {
+        this.seed ^= this.seed >>> 12;
+        this.seed ^= this.seed << 25;
+        this.seed ^= this.seed >>> 27;
+        return this.seed * 0x2545F4914F6CDD1DL;
+    }
+
+    /**
+     * Gets random number with only few bits set, good magic candidates are sparse
+     * @return random 64-bit number with about 8 bits set
+     */
+    private long nextSparse() {
+        return this.next() & this.next() & this.next();
+    }
+
+    /**
+     * Gets mask of squares whose occupancy can change attacks from passed square.
+     * The last square of each ray is omitted as it is attacked either way.
+     * @param square index of the square of the sliding piece
+     * @return mask of relevant blockers
+     */
+    private long relevantMask(int square) {
+        long mask = 0L;
+        for (MoveVector vector : this.vectors) {
+            int file = Square.fileValue(square) + vector.getX();
+            int rank = Square.rankValue(square) - vector.getY();
+            while (this.isOnBoard(file + vector.getX(), rank - vector.getY())) {
+                mask |= 1L << Square.of(file, rank);
+                file += vector.getX();
+                rank -= vector.getY();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Walks all rays from passed square until they leave the board or hit a piece.
+     * This is the reference implementation the magic tables are built from and
+     * checked against.
+     * @param square index of the square of the sliding piece
+     * @param occupied mask of occupied squares
+     * @return mask of attacked squares (including the blocking pieces)
+     */
+    long walk(int square, long occupied) {
+        long attacks = 0L;
+        for (MoveVector vector : this.vectors) {
+            int file = Square.fileValue(square) + vector.getX();
+            int rank = Square.rankValue(square) - vector.getY();
+            while (this.isOnBoard(file, rank)) {
+                long bit = 1L << Square.of(file, rank);
+                attacks |= bit;
+                if ((occupied & bit) != 0L) {
+                    break;
+                }
+                file += vector.getX();
+                rank -= vector.getY();
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Checks if passed coordinates are on board or not
+     * @param file value of the file
+     * @param rank value of the rank
+     * @return boolean value if passed coordinates are inside the chessboard
+     */
+    private boolean isOnBoard(int file, int rank) {
+        return file >= 0 && file < File.COUNT && rank >= 0 && rank < Rank.COUNT;
+    }
+
+    /**
+     * Gets attacks of the sliding piece
+     * @param square index of the square of the piece
+     * @param occupied mask of occupied squares
+     * @return mask of attacked squares (including the blocking pieces)
+     */
+    long attacks(int square, long occupied) {
+        return this.table[this.offsets[square] + (int) (((occupied & this.masks[square]) * this.magics[square]) >>> this.shifts[square])];
+    }
+
+    /**
+     * Compares attacks from the tables with the ray walk for every square
+     * and every configuration of relevant blockers
+     * @return true if all attack sets match
+     */
+    boolean verify() {
+        for (int square = 0; square < Square.COUNT; square++) {
+            long mask = this.masks[square];
+            long occupancy = 0L;
+            do {
+                if (this.attacks(square, occupancy) != this.walk(square, occupancy)) {
+                    return false;
+                }
+                occupancy = (occupancy - mask) & mask;
+            } while (occupancy != 0L);
+        }
+        return true;
+    }
+}
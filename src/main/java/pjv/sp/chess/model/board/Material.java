@@ -0,0 +1,200 @@
+package pjv.sp.chess.model.board;
+
+import java.util.Arrays;
+
+/**
+ * Material class holds material signature of the position: counts of pieces
+ * of each color and type and counts of bishops on light squares. BitBoard
+ * updates it in constant time with every put and remove. The key of the
+ * material is XOR of Zobrist keys indexed by counts instead of squares,
+ * positions with the same pieces have the same key.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see BitBoard
+ */
+public class Material {
+
+    /**
+     * Index of the count of light squared bishops (after the piece types)
+     */
+    private static final int LIGHT_BISHOPS = BitBoard.KING + 1;
+
+    /**
+     * Phase of the position with all pieces except pawns and kings
+     */
+    public static final int MAX_PHASE = 24;
+
+    /**
+     * Weights of piece types in the phase indexed by BitBoard piece type
+     */
+    private static final int[] PHASE_WEIGHTS = {0, 2, 1, 1, 4, 0};
+
+    /**
+     * Counts of pieces indexed by [color][piece type or LIGHT_BISHOPS]
+     */
+    private final int[][] counts = new int[2][Material.LIGHT_BISHOPS + 1];
+
+    /**
+     * Key of the material
+     */
+    private long key;
+
+    /**
+     * Sum of phase weights of all pieces
+     */
+    private int phase;
+
+    /**
+     * Creates new material signature of an empty board
+     */
+    public Material() {
+    }
+
+    /**
+     * Checks if square is light
+     * @param square index of the square
+     * @return true if the square is light
+     */
+    public static boolean isLightSquare(int square) {
+        return ((Square.fileValue(square) + Square.rankValue(square)) & 1) == 0;
+    }
+
+    /**
+     * Removes all pieces
+     */
+    void clear() {
+        for (int color = 0; color < 2; color++) {
+            Arrays.fill(this.counts[color], 0);
+        }
+        this.key = 0L;
+        this.phase = 0;
+    }
+
+    /**
+     * Includes piece that was put on the board
+     * @param color index of the color of the piece
+     * @param type index of the type of the piece
+     * @param square index of the square of the piece
+     */
+    void add(int color, int type, int square) {
+        this.key ^= Zobrist.piece(color, type, this.counts[color][type]++);
+        this.phase += Material.PHASE_WEIGHTS[type];
+        if (type == BitBoard.BISHOP && Material.isLightSquare(square)) {
+            this.counts[color][Material.LIGHT_BISHOPS]++;
+        }
+    }
+
+    /**
+     * Excludes piece that was removed from the board
+     * @param color index of the color of the piece
+     * @param type index of the type of the piece
+     * @param square index of the square of the piece
+     */
+    void remove(int color, int type, int square) {
+        this.key ^= Zobrist.piece(color, type, --this.counts[color][type]);
+        this.phase -= Material.PHASE_WEIGHTS[type];
+        if (type == BitBoard.BISHOP && Material.isLightSquare(square)) {
+            this.counts[color][Material.LIGHT_BISHOPS]--;
+        }
+    }
+
+    /**
+     * Gets number of pieces of passed color and type
+     * @param color index of the color
+     * @param type index of the piece type
+     * @return count of pieces
+     */
+    public int getCount(int color, int type) {
+        return this.counts[color][type];
+    }
+
+    /**
+     * Gets number of bishops of passed color on light squares
+     * @param color index of the color
+     * @return count of bishops
+     */
+    public int getLightBishops(int color) {
+        return this.counts[color][Material.LIGHT_BISHOPS];
+    }
+
+    /**
+     * Gets number of bishops of passed color on dark squares
+     * @param color index of the color
+     * @return count of bishops
+     */
+    public int getDarkBishops(int color) {
+        return this.getCount(color, BitBoard.BISHOP) - this.getLightBishops(color);
+    }
+
+    /**
+     * Gets number of knights, bishops, rooks and queens of passed color
+     * @param color index of the color
+     * @return count of pieces
+     */
+    public int getPieceCount(int color) {
+        return this.getCount(color, BitBoard.KNIGHT) + this.getCount(color, BitBoard.BISHOP)
+            + this.getCount(color, BitBoard.ROOK) + this.getCount(color, BitBoard.QUEEN);
+    }
+
+    /**
+     * Gets key of the material, positions with the same counts of pieces have the same key
+     * @return 64-bit material key
+     */
+    public long getKey() {
+        return this.key;
+    }
+
+    /**
+     * Checks if checkmate is impossible for both colors: no pawns, rooks and queens
+     * and at most one minor piece or only bishops all on squares of one color
+     * @return true if the game should end in draw due to insufficient material
+     */
+    public boolean isInsufficient() {
+        for (int color = 0; color < 2; color++) {
+            if (this.getCount(color, BitBoard.PAWN) + this.getCount(color, BitBoard.ROOK) + this.getCount(color, BitBoard.QUEEN) > 0) {
+                return false;
+            }
+        }
+        int knights = this.getCount(BitBoard.WHITE, BitBoard.KNIGHT) + this.getCount(BitBoard.BLACK, BitBoard.KNIGHT);
+        int bishops = this.getCount(BitBoard.WHITE, BitBoard.BISHOP) + this.getCount(BitBoard.BLACK, BitBoard.BISHOP);
+        int light = this.getLightBishops(BitBoard.WHITE) + this.getLightBishops(BitBoard.BLACK);
+        return knights + bishops <= 1 || (knights == 0 && (light == 0 || light == bishops));
+    }
+
+    /**
+     * Checks if only kings and pawns are on the board
+     * @return true for pawn endings
+     */
+    public boolean isPawnEnding() {
+        return this.getPieceCount(BitBoard.WHITE) + this.getPieceCount(BitBoard.BLACK) == 0;
+    }
+
+    /**
+     * Gets phase of the game computed from pieces on the board, minor pieces
+     * count 1, rooks 2 and queens 4
+     * @return phase from 0 (endgame) to MAX_PHASE (opening or middlegame)
+     */
+    public int getPhase() {
+        return Math.min(this.phase, Material.MAX_PHASE);
+    }
+
+    /**
+     * Gets name of the material in the usual form of endgame tables, for example KRPvKR
+     * @return String with pieces of white and black
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int color = 0; color < 2; color++) {
+            if (color == BitBoard.BLACK) {
+                sb.append('v');
+            }
+            for (int type : new int[] {BitBoard.KING, BitBoard.QUEEN, BitBoard.ROOK, BitBoard.BISHOP, BitBoard.KNIGHT, BitBoard.PAWN}) {
+                for (int i = 0; i < this.getCount(color, type); i++) {
+                    sb.append("PRNBQK".charAt(type));
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
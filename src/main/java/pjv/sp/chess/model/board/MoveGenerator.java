@@ -0,0 +1,543 @@
+package pjv.sp.chess.model.board;
+
+import pjv.sp.chess.model.pieces.MoveType;
+
+/**
+ * MoveGenerator class generates legal moves on a BitBoard without playing them.
+ * When the position is analyzed (see update) it finds pieces giving check to the
+ * king of the side to move, a mask of squares that resolve the check and pieces
+ * pinned to the king. Legal targets of any piece are then its attacks limited
+ * by these masks, only king moves and en passant need extra attack checks which
+ * are done on occupancy masks. The BitBoard is only read, never modified.
+ * Moves are written as packed ints into a MoveList passed by the caller.
+ * One generator keeps state of one analyzed position, so it must not be shared
+ * between threads.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see BitBoard
+ * @see Attacks
+ * @see PackedMove
+ */
+public class MoveGenerator {
+
+    /**
+     * Square of the white king before castling (e1)
+     */
+    private static final int WHITE_KING_HOME = Square.of(File.E, Rank.ONE);
+
+    /**
+     * Square of the black king before castling (e8)
+     */
+    private static final int BLACK_KING_HOME = Square.of(File.E, Rank.EIGHT);
+
+    /**
+     * Piece types a pawn can be promoted to
+     */
+    private static final int[] PROMOTIONS = {BitBoard.QUEEN, BitBoard.ROOK, BitBoard.BISHOP, BitBoard.KNIGHT};
+
+    /**
+     * Mask of the first and the last rank where pawns are promoted
+     */
+    private static final long PROMOTION_RANKS = 0xFF000000000000FFL;
+
+    /**
+     * BitBoard whose moves are generated
+     */
+    private final BitBoard bitBoard;
+
+    /**
+     * Index of the color to move
+     */
+    private int color;
+
+    /**
+     * Square of the king of the color to move
+     */
+    private int kingSquare;
+
+    /**
+     * Mask of enemy pieces giving check
+     */
+    private long checkers;
+
+    /**
+     * Mask of squares where non-king pieces have to move (all squares if not in check)
+     */
+    private long checkMask;
+
+    /**
+     * Mask of own pieces pinned to the king
+     */
+    private long pinned;
+
+    /**
+     * Castling rights of the position (bits from BitBoard)
+     */
+    private int castling;
+
+    /**
+     * Square where a pawn can capture en passant or Square.NONE
+     */
+    private int enPassant;
+
+    /**
+     * Squares from which a piece of each type would attack the enemy king
+     * (direct checks), indexed by BitBoard piece type
+     */
+    private final long[] checkSquares = new long[BitBoard.KING + 1];
+
+    /**
+     * Own pieces that discover check when they leave the line to the enemy king
+     */
+    private long discoverers;
+
+    /**
+     * If checkSquares and discoverers belong to the analyzed position
+     * (they are computed on the first givesCheck call)
+     */
+    private boolean checkInfoValid;
+
+    /**
+     * Creates new MoveGenerator for passed BitBoard
+     * @param bitBoard BitBoard whose moves are generated
+     */
+    public MoveGenerator(BitBoard bitBoard) {
+        this.bitBoard = bitBoard;
+        this.kingSquare = Square.NONE;
+        this.enPassant = Square.NONE;
+    }
+
+    /**
+     * Analyzes current position for passed color to move. Has to be called after
+     * every change of the board before targets are requested.
+     * @param color index of the color to move
+     * @param castling castling rights of the position
+     * @param enPassant square where a pawn can capture en passant or Square.NONE
+     */
+    public void update(int color, int castling, int enPassant) {
+        this.color = color;
+        this.castling = castling;
+        this.enPassant = enPassant;
+        this.kingSquare = this.bitBoard.getKingSquare(color);
+        this.checkInfoValid = false;
+        this.checkers = 0L;
+        this.checkMask = ~0L;
+        this.pinned = 0L;
+        if (this.kingSquare == Square.NONE) {
+            return;
+        }
+        int enemy = color ^ 1;
+        long occupied = this.bitBoard.getOccupancy();
+        long own = this.bitBoard.getOccupancy(color);
+        this.checkers = this.bitBoard.attackersTo(this.kingSquare, enemy, occupied);
+        if (this.checkers != 0L) {
+            // with two checkers only the king can move, so the mask stays empty
+            this.checkMask = Long.bitCount(this.checkers) > 1 ? 0L : this.checkers | Attacks.between(this.kingSquare, Long.numberOfTrailingZeros(this.checkers));
+        }
+        // enemy sliders that would attack the king through own pieces
+        long queens = this.bitBoard.getPieces(enemy, BitBoard.QUEEN);
+        long snipers = (Attacks.rook(this.kingSquare, 0L) & (this.bitBoard.getPieces(enemy, BitBoard.ROOK) | queens))
+            | (Attacks.bishop(this.kingSquare, 0L) & (this.bitBoard.getPieces(enemy, BitBoard.BISHOP) | queens));
+        for (; snipers != 0L; snipers &= snipers - 1) {
+            long blockers = Attacks.between(this.kingSquare, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0L) {
+                this.pinned |= blockers;
+            }
+        }
+    }
+
+    /**
+     * Gets legal targets of the piece on passed square. Castling is a king move
+     * by two files, en passant is a pawn move to the empty en passant square.
+     * @param from index of the square of the moved piece
+     * @return mask of squares the piece can legally move to
+     */
+    public long getTargets(int from) {
+        if (this.bitBoard.getColor(from) != this.color || this.kingSquare == Square.NONE) {
+            return 0L;
+        }
+        int type = this.bitBoard.getType(from);
+        if (type == BitBoard.KING) {
+            return this.getKingTargets(from);
+        }
+        if (this.checkMask == 0L) {
+            return 0L;
+        }
+        long occupied = this.bitBoard.getOccupancy();
+        long targets;
+        switch (type) {
+            case BitBoard.PAWN:
+                targets = this.getPawnTargets(from);
+                break;
+            case BitBoard.KNIGHT:
+                targets = Attacks.knight(from);
+                break;
+            case BitBoard.BISHOP:
+                targets = Attacks.bishop(from, occupied);
+                break;
+            case BitBoard.ROOK:
+                targets = Attacks.rook(from, occupied);
+                break;
+            case BitBoard.QUEEN:
+                targets = Attacks.queen(from, occupied);
+                break;
+            default:
+                targets = 0L;
+        }
+        targets &= ~this.bitBoard.getOccupancy(this.color) & this.checkMask;
+        if ((this.pinned & (1L << from)) != 0L) {
+            // pinned piece can move only along the line of the pin
+            targets &= Attacks.line(this.kingSquare, from);
+        }
+        if (type == BitBoard.PAWN && this.isEnPassantLegal(from)) {
+            targets |= 1L << this.enPassant;
+        }
+        return targets;
+    }
+
+    /**
+     * Writes all legal moves of the analyzed position into passed list
+     * @param moves list that is cleared and filled with packed moves
+     */
+    public void generate(MoveList moves) {
+        moves.clear();
+        for (long own = this.bitBoard.getOccupancy(this.color); own != 0L; own &= own - 1) {
+            this.addMoves(Long.numberOfTrailingZeros(own), moves, ~0L);
+        }
+    }
+
+    /**
+     * Writes legal moves of the piece on passed square into passed list
+     * @param from index of the square of the moved piece
+     * @param moves list that is cleared and filled with packed moves
+     */
+    public void generate(int from, MoveList moves) {
+        moves.clear();
+        this.addMoves(from, moves, ~0L);
+    }
+
+    /**
+     * Writes legal captures (including en passant) and promotions of the analyzed
+     * position into passed list. Together with generateQuiets it gives all legal moves.
+     * @param moves list that is cleared and filled with packed moves
+     */
+    public void generateCaptures(MoveList moves) {
+        moves.clear();
+        long enemy = this.bitBoard.getOccupancy(this.color ^ 1);
+        long pawnTargets = this.getPawnNoisyTargets(enemy);
+        for (long own = this.bitBoard.getOccupancy(this.color); own != 0L; own &= own - 1) {
+            int from = Long.numberOfTrailingZeros(own);
+            this.addMoves(from, moves, this.bitBoard.getType(from) == BitBoard.PAWN ? pawnTargets : enemy);
+        }
+    }
+
+    /**
+     * Writes legal moves that are not generated by generateCaptures (quiet moves
+     * and castling) into passed list
+     * @param moves list that is cleared and filled with packed moves
+     */
+    public void generateQuiets(MoveList moves) {
+        moves.clear();
+        long enemy = this.bitBoard.getOccupancy(this.color ^ 1);
+        long pawnTargets = this.getPawnNoisyTargets(enemy);
+        for (long own = this.bitBoard.getOccupancy(this.color); own != 0L; own &= own - 1) {
+            int from = Long.numberOfTrailingZeros(own);
+            this.addMoves(from, moves, this.bitBoard.getType(from) == BitBoard.PAWN ? ~pawnTargets : ~enemy);
+        }
+    }
+
+    /**
+     * Gets targets of pawn moves that are generated as captures: enemy pieces,
+     * the en passant square and the promotion ranks
+     * @param enemy mask of enemy pieces
+     * @return mask of squares
+     */
+    private long getPawnNoisyTargets(long enemy) {
+        long targets = enemy | MoveGenerator.PROMOTION_RANKS;
+        return this.enPassant == Square.NONE ? targets : targets | Square.bit(this.enPassant);
+    }
+
+    /**
+     * Checks if passed packed move is legal in the analyzed position (used for moves
+     * that come from elsewhere, like moves stored in tables or killer moves)
+     * @param move packed move
+     * @return boolean value if the move would be generated in the position
+     */
+    public boolean isLegal(int move) {
+        if (move == PackedMove.NONE) {
+            return false;
+        }
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int piece = PackedMove.getPiece(move);
+        if (this.bitBoard.getType(from) != piece || (this.getTargets(from) & Square.bit(to)) == 0L) {
+            return false;
+        }
+        boolean promotion = piece == BitBoard.PAWN && (MoveGenerator.PROMOTION_RANKS & Square.bit(to)) != 0L;
+        int promoted = PackedMove.getPromotion(move);
+        if (promotion != PackedMove.isPromotion(move) || promoted == BitBoard.PAWN || promoted == BitBoard.KING) {
+            return false;
+        }
+        return this.pack(from, to, promoted) == move;
+    }
+
+    /**
+     * Packs legal targets of the piece on passed square and adds them to the list.
+     * Promotion adds one move for each piece the pawn can become.
+     * @param from index of the square of the moved piece
+     * @param moves list where the moves are added
+     * @param mask mask of targets that are added
+     */
+    private void addMoves(int from, MoveList moves, long mask) {
+        boolean pawn = this.bitBoard.getType(from) == BitBoard.PAWN;
+        for (long targets = this.getTargets(from) & mask; targets != 0L; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if (pawn && (MoveGenerator.PROMOTION_RANKS & Square.bit(to)) != 0L) {
+                for (int promotion : MoveGenerator.PROMOTIONS) {
+                    moves.add(this.pack(from, to, promotion));
+                }
+            } else {
+                moves.add(this.pack(from, to, BitBoard.EMPTY));
+            }
+        }
+    }
+
+    /**
+     * Packs move of the piece on passed square to passed target, type of the move
+     * and captured piece are taken from the position
+     * @param from index of the square of the moved piece
+     * @param to index of the target square
+     * @param promotion type of the promoted piece or BitBoard.EMPTY
+     * @return packed move
+     */
+    private int pack(int from, int to, int promotion) {
+        int piece = this.bitBoard.getType(from);
+        int captured = this.bitBoard.getType(to);
+        MoveType type;
+        if (piece == BitBoard.KING && Math.abs(Square.fileValue(to) - Square.fileValue(from)) == 2) {
+            type = to > from ? MoveType.KINGSIDE_CASTLING : MoveType.QUEENSIDE_CASTLING;
+        } else if (piece == BitBoard.PAWN && to == this.enPassant && captured == BitBoard.EMPTY) {
+            type = MoveType.ENPASSANT;
+            captured = BitBoard.PAWN;
+        } else {
+            type = captured == BitBoard.EMPTY ? MoveType.NORMAL : MoveType.CAPTURE;
+        }
+        return PackedMove.of(from, to, type, piece, captured, promotion);
+    }
+
+    /**
+     * Checks if there is any legal move in the analyzed position
+     * @return boolean value if the color to move has a legal move
+     */
+    public boolean hasLegalMove() {
+        for (long own = this.bitBoard.getOccupancy(this.color); own != 0L; own &= own - 1) {
+            if (this.getTargets(Long.numberOfTrailingZeros(own)) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets pushes and captures of a pawn without en passant
+     * @param from index of the square of the pawn
+     * @return mask of pseudo-legal pawn targets
+     */
+    private long getPawnTargets(int from) {
+        long targets = Attacks.pawn(this.color, from) & this.bitBoard.getOccupancy(this.color ^ 1);
+        int push = Attacks.pawnPush(this.color, from);
+        if (push >= 0 && push < Square.COUNT && this.bitBoard.isEmpty(push)) {
+            targets |= 1L << push;
+            // double step only from the initial rank
+            int initialRank = this.color == BitBoard.WHITE ? Rank.TWO.getValue() : Rank.SEVEN.getValue();
+            int doublePush = Attacks.pawnPush(this.color, push);
+            if (Square.rankValue(from) == initialRank && this.bitBoard.isEmpty(doublePush)) {
+                targets |= 1L << doublePush;
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Checks if pawn on passed square can capture en passant. The capture removes
+     * two pieces from one rank, so instead of masks the resulting occupancy
+     * is tested for attacks on the king (this also covers discovered checks).
+     * @param from index of the square of the pawn
+     * @return boolean value if en passant capture is legal
+     */
+    private boolean isEnPassantLegal(int from) {
+        if (this.enPassant == Square.NONE || (Attacks.pawn(this.color, from) & (1L << this.enPassant)) == 0L) {
+            return false;
+        }
+        int enemy = this.color ^ 1;
+        int captured = Attacks.pawnPush(enemy, this.enPassant);
+        if (this.bitBoard.getType(captured) != BitBoard.PAWN || this.bitBoard.getColor(captured) != enemy) {
+            return false;
+        }
+        long occupied = (this.bitBoard.getOccupancy() ^ (1L << from) ^ (1L << captured)) | (1L << this.enPassant);
+        return (this.bitBoard.attackersTo(this.kingSquare, enemy, occupied) & ~(1L << captured)) == 0L;
+    }
+
+    /**
+     * Gets legal targets of the king including castling
+     * @param from index of the square of the king
+     * @return mask of squares the king can move to
+     */
+    private long getKingTargets(int from) {
+        int enemy = this.color ^ 1;
+        // king must not hide behind itself from sliding attackers
+        long occupied = this.bitBoard.getOccupancy() ^ (1L << from);
+        long targets = 0L;
+        for (long moves = Attacks.king(from) & ~this.bitBoard.getOccupancy(this.color); moves != 0L; moves &= moves - 1) {
+            int target = Long.numberOfTrailingZeros(moves);
+            if (!this.bitBoard.isAttacked(target, enemy, occupied)) {
+                targets |= 1L << target;
+            }
+        }
+        if (this.checkers == 0L) {
+            int home = this.color == BitBoard.WHITE ? MoveGenerator.WHITE_KING_HOME : MoveGenerator.BLACK_KING_HOME;
+            int kingside = this.color == BitBoard.WHITE ? BitBoard.WHITE_KINGSIDE : BitBoard.BLACK_KINGSIDE;
+            int queenside = this.color == BitBoard.WHITE ? BitBoard.WHITE_QUEENSIDE : BitBoard.BLACK_QUEENSIDE;
+            if (from == home && (this.castling & kingside) != 0 && this.canCastle(home, home + 3, home + 2)) {
+                targets |= 1L << (home + 2);
+            }
+            if (from == home && (this.castling & queenside) != 0 && this.canCastle(home, home - 4, home - 2)) {
+                targets |= 1L << (home - 2);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Checks if the king can castle with the rook, squares between them have to be
+     * empty and squares the king passes must not be attacked
+     * @param king index of the square of the king
+     * @param rook index of the square of the rook
+     * @param target index of the square where the king ends
+     * @return boolean value if the castling is legal
+     */
+    private boolean canCastle(int king, int rook, int target) {
+        if (this.bitBoard.getType(rook) != BitBoard.ROOK || this.bitBoard.getColor(rook) != this.color
+            || (Attacks.between(king, rook) & this.bitBoard.getOccupancy()) != 0L) {
+            return false;
+        }
+        int step = target > king ? 1 : -1;
+        for (int square = king + step; square != target + step; square += step) {
+            if (this.bitBoard.isAttacked(square, this.color ^ 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if passed legal move gives check to the enemy king. It is answered from
+     * the analyzed position without playing the move: the moved piece lands on
+     * a direct check square, or it leaves the line between the enemy king and an own
+     * slider. Promotions, en passant and castling are checked on the occupancy after
+     * the move.
+     * @param move packed legal move of the color to move
+     * @return boolean value if the enemy king is attacked after the move
+     */
+    public boolean givesCheck(int move) {
+        int enemyKing = this.bitBoard.getKingSquare(this.color ^ 1);
+        if (enemyKing == Square.NONE) {
+            return false;
+        }
+        if (!this.checkInfoValid) {
+            this.updateCheckInfo(enemyKing);
+        }
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        long target = Square.bit(to);
+        if (!PackedMove.isPromotion(move) && (this.checkSquares[PackedMove.getPiece(move)] & target) != 0L) {
+            return true;
+        }
+        if ((this.discoverers & Square.bit(from)) != 0L && (Attacks.line(enemyKing, from) & target) == 0L) {
+            return true;
+        }
+        long occupied = (this.bitBoard.getOccupancy() ^ Square.bit(from)) | target;
+        long king = Square.bit(enemyKing);
+        MoveType type = PackedMove.getType(move);
+        if (PackedMove.isPromotion(move)) {
+            return (Attacks.piece(PackedMove.getPromotion(move), this.color, to, occupied) & king) != 0L;
+        } else if (type == MoveType.ENPASSANT) {
+            // the captured pawn can open a rank or diagonal
+            occupied ^= Square.bit(Attacks.pawnPush(this.color ^ 1, to));
+            long queens = this.bitBoard.getPieces(this.color, BitBoard.QUEEN);
+            return ((Attacks.rook(enemyKing, occupied) & (this.bitBoard.getPieces(this.color, BitBoard.ROOK) | queens))
+                | (Attacks.bishop(enemyKing, occupied) & (this.bitBoard.getPieces(this.color, BitBoard.BISHOP) | queens))) != 0L;
+        } else if (type == MoveType.KINGSIDE_CASTLING || type == MoveType.QUEENSIDE_CASTLING) {
+            int rookFrom = type == MoveType.KINGSIDE_CASTLING ? to + 1 : to - 2;
+            int rookTo = type == MoveType.KINGSIDE_CASTLING ? to - 1 : to + 1;
+            occupied = (occupied ^ Square.bit(rookFrom)) | Square.bit(rookTo);
+            return (Attacks.rook(rookTo, occupied) & king) != 0L;
+        }
+        return false;
+    }
+
+    /**
+     * Computes direct check squares and discovered check candidates against the enemy king
+     * @param enemyKing index of the square of the enemy king
+     */
+    private void updateCheckInfo(int enemyKing) {
+        long occupied = this.bitBoard.getOccupancy();
+        this.checkSquares[BitBoard.PAWN] = Attacks.pawn(this.color ^ 1, enemyKing);
+        this.checkSquares[BitBoard.KNIGHT] = Attacks.knight(enemyKing);
+        this.checkSquares[BitBoard.BISHOP] = Attacks.bishop(enemyKing, occupied);
+        this.checkSquares[BitBoard.ROOK] = Attacks.rook(enemyKing, occupied);
+        this.checkSquares[BitBoard.QUEEN] = this.checkSquares[BitBoard.BISHOP] | this.checkSquares[BitBoard.ROOK];
+        this.checkSquares[BitBoard.KING] = 0L;
+        this.discoverers = 0L;
+        long queens = this.bitBoard.getPieces(this.color, BitBoard.QUEEN);
+        long snipers = (Attacks.rook(enemyKing, 0L) & (this.bitBoard.getPieces(this.color, BitBoard.ROOK) | queens))
+            | (Attacks.bishop(enemyKing, 0L) & (this.bitBoard.getPieces(this.color, BitBoard.BISHOP) | queens));
+        for (; snipers != 0L; snipers &= snipers - 1) {
+            long blockers = Attacks.between(enemyKing, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & this.bitBoard.getOccupancy(this.color)) != 0L) {
+                this.discoverers |= blockers;
+            }
+        }
+        this.checkInfoValid = true;
+    }
+
+    /**
+     * Gets enemy pieces giving check in the analyzed position
+     * @return mask of checking pieces
+     */
+    public long getCheckers() {
+        return this.checkers;
+    }
+
+    /**
+     * Gets own pieces pinned to the king in the analyzed position
+     * @return mask of pinned pieces
+     */
+    public long getPinned() {
+        return this.pinned;
+    }
+
+    /**
+     * Checks if the color to move is in check
+     * @return boolean value if the king is attacked
+     */
+    public boolean isCheck() {
+        return this.checkers != 0L;
+    }
+
+    /**
+     * Gets index of the analyzed color to move
+     * @return index of the color
+     */
+    public int getColor() {
+        return this.color;
+    }
+
+    /**
+     * Gets en passant square of the analyzed position
+     * @return index of the square or Square.NONE
+     */
+    public int getEnPassant() {
+        return this.enPassant;
+    }
+}
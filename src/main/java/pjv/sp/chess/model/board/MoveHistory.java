@@ -0,0 +1,109 @@
+package pjv.sp.chess.model.board;
+
+import java.util.Arrays;
+
+/**
+ * MoveHistory collects statistics of quiet moves of a search that MovePicker
+ * uses to order quiet moves:
+ * <ul>
+ *  <li>butterfly history, a score for each color, from-square and to-square that
+ *      grows when the move causes cutoff and drops when another move does</li>
+ *  <li>countermoves, the quiet move that last refuted each move of the opponent
+ *      (indexed by color, piece and target square of the opponent's move)</li>
+ * </ul>
+ * Scores are updated with gravity: each update moves the score towards the bonus
+ * by a share of the distance, so scores stay within +-MAX_SCORE without aging and
+ * recent results weigh more than old ones.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see MovePicker
+ */
+public class MoveHistory {
+
+    /**
+     * Limit of absolute value of history scores
+     */
+    public static final int MAX_SCORE = 16384;
+
+    /**
+     * Butterfly scores indexed by [color][from][to] flattened into one array
+     */
+    private final int[] butterfly = new int[2 * Square.COUNT * Square.COUNT];
+
+    /**
+     * Countermoves indexed by [color][piece][to] of the refuted move flattened into one array
+     */
+    private final int[] counters = new int[2 * BitBoard.EMPTY * Square.COUNT];
+
+    /**
+     * Removes all statistics
+     */
+    public void clear() {
+        Arrays.fill(this.butterfly, 0);
+        Arrays.fill(this.counters, PackedMove.NONE);
+    }
+
+    /**
+     * Gets history score of a quiet move
+     * @param color index of the color playing the move
+     * @param move packed move
+     * @return score from -MAX_SCORE to MAX_SCORE, higher is tried earlier
+     */
+    public int getScore(int color, int move) {
+        return this.butterfly[MoveHistory.index(color, move)];
+    }
+
+    /**
+     * Changes history score of a quiet move
+     * @param color index of the color playing the move
+     * @param move packed move
+     * @param bonus positive bonus for a move that caused cutoff or negative for a move that did not
+     */
+    public void update(int color, int move, int bonus) {
+        int index = MoveHistory.index(color, move);
+        int clamped = Math.max(-MoveHistory.MAX_SCORE, Math.min(bonus, MoveHistory.MAX_SCORE));
+        this.butterfly[index] += clamped - this.butterfly[index] * Math.abs(clamped) / MoveHistory.MAX_SCORE;
+    }
+
+    /**
+     * Gets quiet move that refuted passed move last time
+     * @param color index of the color that played the previous move
+     * @param previous packed previous move or PackedMove.NONE
+     * @return packed countermove or PackedMove.NONE
+     */
+    public int getCounter(int color, int previous) {
+        return previous == PackedMove.NONE ? PackedMove.NONE : this.counters[MoveHistory.counterIndex(color, previous)];
+    }
+
+    /**
+     * Remembers quiet move that refuted passed move
+     * @param color index of the color that played the previous move
+     * @param previous packed previous move or PackedMove.NONE
+     * @param move packed countermove
+     */
+    public void setCounter(int color, int previous, int move) {
+        if (previous != PackedMove.NONE) {
+            this.counters[MoveHistory.counterIndex(color, previous)] = move;
+        }
+    }
+
+    /**
+     * Computes index of a move into butterfly scores
+     * @param color index of the color playing the move
+     * @param move packed move
+     * @return index into the butterfly array
+     */
+    private static int index(int color, int move) {
+        return (color * Square.COUNT + PackedMove.getFrom(move)) * Square.COUNT + PackedMove.getTo(move);
+    }
+
+    /**
+     * Computes index of a refuted move into countermoves
+     * @param color index of the color that played the move
+     * @param move packed move
+     * @return index into the counters array
+     */
+    private static int counterIndex(int color, int move) {
+        return (color * BitBoard.EMPTY + PackedMove.getPiece(move)) * Square.COUNT + PackedMove.getTo(move);
+    }
+}
@@ -0,0 +1,103 @@
+package pjv.sp.chess.model.board;
+
+/**
+ * MoveList class is a reusable buffer of packed moves. The array is allocated
+ * once with room for moves of any position, so filling the list allocates
+ * nothing. Searches keep one list per ply and clear it before each use.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see PackedMove
+ */
+public class MoveList {
+
+    /**
+     * Number of moves that fits into one list (no legal position has more than 218 moves)
+     */
+    public static final int CAPACITY = 256;
+
+    /**
+     * Packed moves of the list
+     */
+    private final int[] moves = new int[MoveList.CAPACITY];
+
+    /**
+     * Number of moves in the list
+     */
+    private int size;
+
+    /**
+     * Creates lists for passed number of plies
+     * @param plies number of lists
+     * @return array of empty lists
+     */
+    public static MoveList[] createStack(int plies) {
+        MoveList[] stack = new MoveList[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            stack[ply] = new MoveList();
+        }
+        return stack;
+    }
+
+    /**
+     * Removes all moves from the list
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Adds move to the end of the list
+     * @param move packed move
+     */
+    public void add(int move) {
+        this.moves[this.size++] = move;
+    }
+
+    /**
+     * Gets move on passed index
+     * @param index index of the move
+     * @return packed move
+     */
+    public int get(int index) {
+        return this.moves[index];
+    }
+
+    /**
+     * Replaces move on passed index
+     * @param index index of the move
+     * @param move packed move
+     */
+    public void set(int index, int move) {
+        this.moves[index] = move;
+    }
+
+    /**
+     * Gets number of moves in the list
+     * @return size of the list
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks if there are no moves in the list
+     * @return boolean value if the list is empty
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Checks if passed move is in the list
+     * @param move packed move
+     * @return boolean value if the list contains the move
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
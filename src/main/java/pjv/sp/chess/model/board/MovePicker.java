@@ -0,0 +1,383 @@
+package pjv.sp.chess.model.board;
+
+/**
+ * MovePicker class returns legal moves of a position one by one in the order
+ * a search wants to try them. Moves are produced in stages and each stage is
+ * generated only when the previous one is used up:
+ * <ol>
+ *  <li>hash move (best move of the position found earlier)</li>
+ *  <li>captures and promotions, the most valuable victim first and among
+ *      the same victims the least valuable attacker first (MVV/LVA)</li>
+ *  <li>killer moves (quiet moves that caused cutoff in sibling positions) and
+ *      the countermove (quiet move that refuted the previous move last time)</li>
+ *  <li>remaining quiet moves, the highest history score first</li>
+ * </ol>
+ * Each part of the ordering can be switched off by setOrdering (for benchmarks),
+ * then its moves come in the order of generation or with the other quiet moves.
+ * Hash move, killers and countermove come from outside, so they are checked to be legal
+ * and every move is returned only once. A search usually cuts off after the first
+ * few moves, then quiet moves are never generated.
+ * The picker has its own MoveGenerator, so pickers of different plies can be
+ * used at the same time on one BitBoard (create them by createStack).
+ * Quiescence search picks only the captures and promotions (see initCaptures).
+ * @author Jakub Rada
+ * @version 1.0
+ * @see MoveGenerator
+ */
+public class MovePicker {
+
+    /**
+     * Stage of the hash move
+     */
+    public static final int HASH = 0;
+
+    /**
+     * Stage of captures and promotions
+     */
+    public static final int CAPTURES = 1;
+
+    /**
+     * Stage of killer moves
+     */
+    public static final int KILLERS = 2;
+
+    /**
+     * Stage of quiet moves
+     */
+    public static final int QUIETS = 3;
+
+    /**
+     * All moves were returned
+     */
+    public static final int DONE = 4;
+
+    /**
+     * Ordering flag of trying the hash move first
+     */
+    public static final int ORDER_HASH = 1;
+
+    /**
+     * Ordering flag of MVV/LVA order of captures
+     */
+    public static final int ORDER_MVV_LVA = 2;
+
+    /**
+     * Ordering flag of trying killer moves before other quiet moves
+     */
+    public static final int ORDER_KILLERS = 4;
+
+    /**
+     * Ordering flag of ordering quiet moves by history scores
+     */
+    public static final int ORDER_HISTORY = 8;
+
+    /**
+     * Ordering flag of trying the countermove before other quiet moves
+     */
+    public static final int ORDER_COUNTERMOVES = 16;
+
+    /**
+     * All ordering flags
+     */
+    public static final int ORDER_ALL = 31;
+
+    /**
+     * Weight of the value of the victim in MVV/LVA scores, the smallest difference of two
+     * victims outweighs the value of any attacker
+     */
+    private static final int VICTIM_WEIGHT = 2048;
+
+    /**
+     * BitBoard whose moves are picked
+     */
+    private final BitBoard bitBoard;
+
+    /**
+     * Generator of the moves, it keeps the analyzed position of this picker
+     */
+    private final MoveGenerator generator;
+
+    /**
+     * Moves of the current stage
+     */
+    private final MoveList moves = new MoveList();
+
+    /**
+     * Scores of captures used to pick the best one
+     */
+    private final int[] scores = new int[MoveList.CAPACITY];
+
+    /**
+     * History of quiet moves of the search or null
+     */
+    private final MoveHistory history;
+
+    /**
+     * Killer moves of the position followed by the countermove
+     */
+    private final int[] killers = new int[3];
+
+    /**
+     * Used parts of the ordering (ORDER flags)
+     */
+    private int ordering = MovePicker.ORDER_ALL;
+
+    /**
+     * Current stage
+     */
+    private int stage;
+
+    /**
+     * If moves of the current stage were generated
+     */
+    private boolean generated;
+
+    /**
+     * Index of the next move (or killer) of the current stage
+     */
+    private int index;
+
+    /**
+     * Hash move of the position or PackedMove.NONE
+     */
+    private int hashMove;
+
+    /**
+     * If quiet moves of the current position are picked by history scores
+     */
+    private boolean sortQuiets;
+
+    /**
+     * If only captures and promotions are picked
+     */
+    private boolean capturesOnly;
+
+    /**
+     * Creates new MovePicker for passed BitBoard
+     * @param bitBoard BitBoard whose moves are picked
+     */
+    public MovePicker(BitBoard bitBoard) {
+        this(bitBoard, null);
+    }
+
+    /**
+     * Creates new MovePicker for passed BitBoard that orders quiet moves by history
+     * @param bitBoard BitBoard whose moves are picked
+     * @param history history of quiet moves or null to keep quiet moves in order of generation
+     */
+    public MovePicker(BitBoard bitBoard, MoveHistory history) {
+        this.bitBoard = bitBoard;
+        this.history = history;
+        this.generator = new MoveGenerator(bitBoard);
+        this.stage = MovePicker.DONE;
+    }
+
+    /**
+     * Creates pickers for passed number of plies of a search on one BitBoard
+     * @param bitBoard BitBoard whose moves are picked
+     * @param plies number of pickers
+     * @return array of pickers
+     */
+    public static MovePicker[] createStack(BitBoard bitBoard, int plies) {
+        return MovePicker.createStack(bitBoard, plies, null);
+    }
+
+    /**
+     * Creates pickers for passed number of plies of a search on one BitBoard sharing one history
+     * @param bitBoard BitBoard whose moves are picked
+     * @param plies number of pickers
+     * @param history history of quiet moves of the search or null
+     * @return array of pickers
+     */
+    public static MovePicker[] createStack(BitBoard bitBoard, int plies, MoveHistory history) {
+        MovePicker[] stack = new MovePicker[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            stack[ply] = new MovePicker(bitBoard, history);
+        }
+        return stack;
+    }
+
+    /**
+     * Analyzes current position of the BitBoard and starts picking its moves
+     * @param hashMove best move found earlier or PackedMove.NONE
+     * @param firstKiller first killer move or PackedMove.NONE
+     * @param secondKiller second killer move or PackedMove.NONE
+     */
+    public void init(int hashMove, int firstKiller, int secondKiller) {
+        this.init(hashMove, firstKiller, secondKiller, PackedMove.NONE);
+    }
+
+    /**
+     * Analyzes current position of the BitBoard and starts picking its moves
+     * @param hashMove best move found earlier or PackedMove.NONE
+     * @param firstKiller first killer move or PackedMove.NONE
+     * @param secondKiller second killer move or PackedMove.NONE
+     * @param counterMove countermove of the previous move or PackedMove.NONE
+     */
+    public void init(int hashMove, int firstKiller, int secondKiller, int counterMove) {
+        this.generator.update(this.bitBoard.getSideToMove(), this.bitBoard.getCastling(), this.bitBoard.getEnPassant());
+        this.hashMove = (this.ordering & MovePicker.ORDER_HASH) != 0 ? hashMove : PackedMove.NONE;
+        boolean useKillers = (this.ordering & MovePicker.ORDER_KILLERS) != 0;
+        this.killers[0] = useKillers ? firstKiller : PackedMove.NONE;
+        this.killers[1] = useKillers && secondKiller != firstKiller ? secondKiller : PackedMove.NONE;
+        this.killers[2] = (this.ordering & MovePicker.ORDER_COUNTERMOVES) != 0 && counterMove != this.killers[0]
+            && counterMove != this.killers[1] ? counterMove : PackedMove.NONE;
+        this.stage = MovePicker.HASH;
+        this.generated = false;
+        this.capturesOnly = false;
+    }
+
+    /**
+     * Analyzes current position of the BitBoard and starts picking only its captures
+     * and promotions in MVV/LVA order
+     */
+    public void initCaptures() {
+        this.init(PackedMove.NONE, PackedMove.NONE, PackedMove.NONE);
+        this.nextStage(MovePicker.CAPTURES);
+        this.capturesOnly = true;
+    }
+
+    /**
+     * Gets the next move of the position
+     * @return packed legal move or PackedMove.NONE when there are no more moves
+     */
+    public int next() {
+        while (true) {
+            switch (this.stage) {
+                case MovePicker.HASH:
+                    this.nextStage(MovePicker.CAPTURES);
+                    if (this.generator.isLegal(this.hashMove)) {
+                        return this.hashMove;
+                    }
+                    this.hashMove = PackedMove.NONE;
+                    break;
+                case MovePicker.CAPTURES:
+                    if (!this.generated) {
+                        this.generator.generateCaptures(this.moves);
+                        boolean mvvLva = (this.ordering & MovePicker.ORDER_MVV_LVA) != 0;
+                        for (int i = 0; i < this.moves.size(); i++) {
+                            this.scores[i] = mvvLva ? MovePicker.score(this.moves.get(i)) : 0;
+                        }
+                        this.generated = true;
+                    }
+                    if (this.index < this.moves.size()) {
+                        int move = this.pickBest();
+                        if (move != this.hashMove) {
+                            return move;
+                        }
+                    } else {
+                        this.nextStage(this.capturesOnly ? MovePicker.DONE : MovePicker.KILLERS);
+                    }
+                    break;
+                case MovePicker.KILLERS:
+                    if (this.index < this.killers.length) {
+                        int killer = this.killers[this.index++];
+                        if (killer != this.hashMove && !PackedMove.isCapture(killer) && !PackedMove.isPromotion(killer)
+                            && this.generator.isLegal(killer)) {
+                            return killer;
+                        }
+                    } else {
+                        this.nextStage(MovePicker.QUIETS);
+                    }
+                    break;
+                case MovePicker.QUIETS:
+                    if (!this.generated) {
+                        this.generator.generateQuiets(this.moves);
+                        this.generated = true;
+                        this.sortQuiets = this.history != null && (this.ordering & MovePicker.ORDER_HISTORY) != 0;
+                        if (this.sortQuiets) {
+                            int color = this.generator.getColor();
+                            for (int i = 0; i < this.moves.size(); i++) {
+                                this.scores[i] = this.history.getScore(color, this.moves.get(i));
+                            }
+                        }
+                    }
+                    if (this.index < this.moves.size()) {
+                        int move = this.sortQuiets ? this.pickBest() : this.moves.get(this.index++);
+                        if (move != this.hashMove && move != this.killers[0] && move != this.killers[1] && move != this.killers[2]) {
+                            return move;
+                        }
+                    } else {
+                        this.nextStage(MovePicker.DONE);
+                    }
+                    break;
+                default:
+                    return PackedMove.NONE;
+            }
+        }
+    }
+
+    /**
+     * Moves to passed stage, its moves are generated on the first request
+     * @param stage the next stage
+     */
+    private void nextStage(int stage) {
+        this.stage = stage;
+        this.generated = false;
+        this.index = 0;
+    }
+
+    /**
+     * Finds the move with the highest score among the remaining ones and moves
+     * it to the current index (selection sort is done only as far as it is needed)
+     * @return packed move with the highest score (the first generated one of equal scores)
+     */
+    private int pickBest() {
+        int best = this.index;
+        for (int i = this.index + 1; i < this.moves.size(); i++) {
+            if (this.scores[i] > this.scores[best]) {
+                best = i;
+            }
+        }
+        int move = this.moves.get(best);
+        int score = this.scores[best];
+        this.moves.set(best, this.moves.get(this.index));
+        this.scores[best] = this.scores[this.index];
+        this.moves.set(this.index, move);
+        this.scores[this.index] = score;
+        this.index++;
+        return move;
+    }
+
+    /**
+     * Computes MVV/LVA score of a capture or promotion, promoted piece counts as a victim
+     * @param move packed move
+     * @return score of the move, higher is tried earlier
+     */
+    private static int score(int move) {
+        int victim = BitBoard.getValue(PackedMove.getCaptured(move)) + BitBoard.getValue(PackedMove.getPromotion(move));
+        return victim * MovePicker.VICTIM_WEIGHT - BitBoard.getValue(PackedMove.getPiece(move));
+    }
+
+    /**
+     * Sets used parts of the ordering, it takes effect with the next init
+     * @param ordering combination of ORDER flags
+     */
+    public void setOrdering(int ordering) {
+        this.ordering = ordering;
+    }
+
+    /**
+     * Gets used parts of the ordering
+     * @return combination of ORDER flags
+     */
+    public int getOrdering() {
+        return this.ordering;
+    }
+
+    /**
+     * Gets current stage of the picker
+     * @return stage constant
+     */
+    public int getStage() {
+        return this.stage;
+    }
+
+    /**
+     * Gets generator with the analyzed position (for example for check tests of the moves)
+     * @return MoveGenerator of this picker
+     */
+    public MoveGenerator getGenerator() {
+        return this.generator;
+    }
+}
@@ -0,0 +1,181 @@
+package pjv.sp.chess.model.board;
+
+import pjv.sp.chess.model.pieces.MoveType;
+
+/**
+ * PackedMove class provides utilities to work with moves packed into one int,
+ * so generated moves need no objects. Bits of the int are used as follows:
+ * <pre>
+ *  0 -  5  source square
+ *  6 - 11  target square
+ * 12 - 14  MoveType (ordinal)
+ * 15 - 17  type of the moved piece
+ * 18 - 20  type of the captured piece (EMPTY if nothing is captured)
+ * 21 - 23  type of the promoted piece (EMPTY if the move is not promotion)
+ * </pre>
+ * Piece types are BitBoard indexes. Source and target of a valid move always
+ * differ, so 0 is never a valid move and is used as NONE.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see MoveList
+ * @see MoveType
+ */
+public final class PackedMove {
+
+    /**
+     * Value of a missing move
+     */
+    public static final int NONE = 0;
+
+    /**
+     * Mask of one square
+     */
+    private static final int SQUARE_MASK = 0x3F;
+
+    /**
+     * Mask of one piece type or move type
+     */
+    private static final int TYPE_MASK = 0x7;
+
+    /**
+     * Position of the target square
+     */
+    private static final int TO_SHIFT = 6;
+
+    /**
+     * Position of the move type
+     */
+    private static final int TYPE_SHIFT = 12;
+
+    /**
+     * Position of the moved piece
+     */
+    private static final int PIECE_SHIFT = 15;
+
+    /**
+     * Position of the captured piece
+     */
+    private static final int CAPTURED_SHIFT = 18;
+
+    /**
+     * Position of the promoted piece
+     */
+    private static final int PROMOTION_SHIFT = 21;
+
+    /**
+     * Move types indexed by their ordinal to avoid copying values() on each call
+     */
+    private static final MoveType[] MOVE_TYPES = MoveType.values();
+
+    /**
+     * Labels of piece types used in promotions (indexed by BitBoard type)
+     */
+    private static final char[] PROMOTION_LABELS = {'p', 'r', 'n', 'b', 'q', 'k', ' '};
+
+    /**
+     * PackedMove is only a holder of static utilities
+     */
+    private PackedMove() {
+    }
+
+    /**
+     * Packs move into an int
+     * @param from index of the source square
+     * @param to index of the target square
+     * @param type type of the move
+     * @param piece BitBoard type of the moved piece
+     * @param captured BitBoard type of the captured piece or EMPTY
+     * @param promotion BitBoard type of the promoted piece or EMPTY
+     * @return packed move
+     */
+    public static int of(int from, int to, MoveType type, int piece, int captured, int promotion) {
+        return from
+            | (to << PackedMove.TO_SHIFT)
+            | (type.ordinal() << PackedMove.TYPE_SHIFT)
+            | (piece << PackedMove.PIECE_SHIFT)
+            | (captured << PackedMove.CAPTURED_SHIFT)
+            | (promotion << PackedMove.PROMOTION_SHIFT);
+    }
+
+    /**
+     * Gets source square of the move
+     * @param move packed move
+     * @return index of the source square
+     */
+    public static int getFrom(int move) {
+        return move & PackedMove.SQUARE_MASK;
+    }
+
+    /**
+     * Gets target square of the move
+     * @param move packed move
+     * @return index of the target square
+     */
+    public static int getTo(int move) {
+        return (move >>> PackedMove.TO_SHIFT) & PackedMove.SQUARE_MASK;
+    }
+
+    /**
+     * Gets type of the move
+     * @param move packed move
+     * @return MoveType of the move
+     */
+    public static MoveType getType(int move) {
+        return PackedMove.MOVE_TYPES[(move >>> PackedMove.TYPE_SHIFT) & PackedMove.TYPE_MASK];
+    }
+
+    /**
+     * Gets type of the moved piece
+     * @param move packed move
+     * @return BitBoard type of the moved piece
+     */
+    public static int getPiece(int move) {
+        return (move >>> PackedMove.PIECE_SHIFT) & PackedMove.TYPE_MASK;
+    }
+
+    /**
+     * Gets type of the captured piece
+     * @param move packed move
+     * @return BitBoard type of the captured piece or EMPTY
+     */
+    public static int getCaptured(int move) {
+        return (move >>> PackedMove.CAPTURED_SHIFT) & PackedMove.TYPE_MASK;
+    }
+
+    /**
+     * Gets type of the promoted piece
+     * @param move packed move
+     * @return BitBoard type of the promoted piece or EMPTY
+     */
+    public static int getPromotion(int move) {
+        return (move >>> PackedMove.PROMOTION_SHIFT) & PackedMove.TYPE_MASK;
+    }
+
+    /**
+     * Checks if the move captures a piece (including en passant)
+     * @param move packed move
+     * @return boolean value if a piece is captured
+     */
+    public static boolean isCapture(int move) {
+        return PackedMove.getCaptured(move) != BitBoard.EMPTY;
+    }
+
+    /**
+     * Checks if the move promotes a pawn
+     * @param move packed move
+     * @return boolean value if the move is promotion
+     */
+    public static boolean isPromotion(int move) {
+        return PackedMove.getPromotion(move) != BitBoard.EMPTY;
+    }
+
+    /**
+     * Gets label of the move in coordinate notation (for example e2e4 or e7e8q)
+     * @param move packed move
+     * @return String label of the move
+     */
+    public static String getLabel(int move) {
+        String label = Square.getLabel(PackedMove.getFrom(move)) + Square.getLabel(PackedMove.getTo(move));
+        return PackedMove.isPromotion(move) ? label + PackedMove.PROMOTION_LABELS[PackedMove.getPromotion(move)] : label;
+    }
+}
@@ -0,0 +1,188 @@
+package pjv.sp.chess.model.board;
+
+/**
+ * PieceSquareTables holds scores of pieces on squares for the middlegame and
+ * the endgame. Score of a piece is its material value (BitBoard.getValue, the same
+ * in both phases) plus a bonus of its square, pieces are worth more in the center,
+ * pawns when they advance and the king is safe in the corner in the middlegame but
+ * belongs to the center in the endgame.
+ * Tables are written for white from the eighth rank (in the order of squares),
+ * black uses the vertically mirrored square and its scores are negative, so the
+ * sum over all pieces is the score from the point of view of white. Knights,
+ * bishops, rooks and queens use the same bonuses in both phases.
+ * BitBoard adds the scores of each put piece and subtracts them for each removed one.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see BitBoard
+ */
+public final class PieceSquareTables {
+
+    /**
+     * Bonuses of pawns in the middlegame
+     */
+    private static final int[] PAWN_MIDDLEGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0,
+    };
+
+    /**
+     * Bonuses of pawns in the endgame
+     */
+    private static final int[] PAWN_ENDGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         80,  80,  80,  80,  80,  80,  80,  80,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         30,  30,  30,  30,  30,  30,  30,  30,
+         20,  20,  20,  20,  20,  20,  20,  20,
+         10,  10,  10,  10,  10,  10,  10,  10,
+         10,  10,  10,  10,  10,  10,  10,  10,
+          0,   0,   0,   0,   0,   0,   0,   0,
+    };
+
+    /**
+     * Bonuses of rooks
+     */
+    private static final int[] ROOK = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0,
+    };
+
+    /**
+     * Bonuses of knights
+     */
+    private static final int[] KNIGHT = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+
+    /**
+     * Bonuses of bishops
+     */
+    private static final int[] BISHOP = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+
+    /**
+     * Bonuses of queens
+     */
+    private static final int[] QUEEN = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+    };
+
+    /**
+     * Bonuses of the king in the middlegame
+     */
+    private static final int[] KING_MIDDLEGAME = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20,
+    };
+
+    /**
+     * Bonuses of the king in the endgame
+     */
+    private static final int[] KING_ENDGAME = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+
+    /**
+     * Middlegame scores indexed by [color][piece type][square], negative for black
+     */
+    private static final int[][][] MIDDLEGAME = new int[2][BitBoard.KING + 1][Square.COUNT];
+
+    /**
+     * Endgame scores indexed by [color][piece type][square], negative for black
+     */
+    private static final int[][][] ENDGAME = new int[2][BitBoard.KING + 1][Square.COUNT];
+
+    static {
+        int[][] middlegame = {PieceSquareTables.PAWN_MIDDLEGAME, PieceSquareTables.ROOK, PieceSquareTables.KNIGHT,
+            PieceSquareTables.BISHOP, PieceSquareTables.QUEEN, PieceSquareTables.KING_MIDDLEGAME};
+        int[][] endgame = {PieceSquareTables.PAWN_ENDGAME, PieceSquareTables.ROOK, PieceSquareTables.KNIGHT,
+            PieceSquareTables.BISHOP, PieceSquareTables.QUEEN, PieceSquareTables.KING_ENDGAME};
+        for (int type = 0; type <= BitBoard.KING; type++) {
+            // both kings are always on the board, their value would only cancel out
+            int value = type == BitBoard.KING ? 0 : BitBoard.getValue(type);
+            for (int square = 0; square < Square.COUNT; square++) {
+                // the same square seen from the side of black
+                int mirrored = square ^ (File.COUNT * (Rank.COUNT - 1));
+                PieceSquareTables.MIDDLEGAME[BitBoard.WHITE][type][square] = value + middlegame[type][square];
+                PieceSquareTables.MIDDLEGAME[BitBoard.BLACK][type][square] = -value - middlegame[type][mirrored];
+                PieceSquareTables.ENDGAME[BitBoard.WHITE][type][square] = value + endgame[type][square];
+                PieceSquareTables.ENDGAME[BitBoard.BLACK][type][square] = -value - endgame[type][mirrored];
+            }
+        }
+    }
+
+    /**
+     * PieceSquareTables is only a holder of static tables
+     */
+    private PieceSquareTables() {
+    }
+
+    /**
+     * Gets middlegame score of a piece on a square
+     * @param color index of the color of the piece
+     * @param type index of the type of the piece
+     * @param square index of the square
+     * @return score from the point of view of white
+     */
+    public static int middlegame(int color, int type, int square) {
+        return PieceSquareTables.MIDDLEGAME[color][type][square];
+    }
+
+    /**
+     * Gets endgame score of a piece on a square
+     * @param color index of the color of the piece
+     * @param type index of the type of the piece
+     * @param square index of the square
+     * @return score from the point of view of white
+     */
+    public static int endgame(int color, int type, int square) {
+        return PieceSquareTables.ENDGAME[color][type][square];
+    }
+}
@@ -0,0 +1,335 @@
+package pjv.sp.chess.model.board;
+
+import pjv.sp.chess.model.pieces.MoveType;
+import pjv.sp.chess.model.pieces.MoveVector;
+
+/**
+ * ReferenceMoveGenerator generates legal moves the slow and simple way the
+ * original MoveControl did, so it can be compared with MoveGenerator:
+ * <ul>
+ *  <li>pieces walk along their MoveVectors square by square until they hit a piece
+ *      or the edge of the board</li>
+ *  <li>pawns step forward (two squares from their initial rank) and take along
+ *      their take vectors, en passant is possible next to the pawn that stepped
+ *      over the en passant square</li>
+ *  <li>castling needs the right, the rook in the corner and empty squares between,
+ *      the king and the two squares it walks over must not be attacked</li>
+ *  <li>every other move is played and taken back when the own king is attacked</li>
+ * </ul>
+ * Attacks are found by walking vectors of all enemy pieces too, no precomputed
+ * table of Attacks or Magic is used, so the generator shares only BitBoard
+ * and PackedMove with MoveGenerator. Moves are packed the same way, with
+ * all four promotions.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see MoveGenerator
+ * @see MoveVector
+ */
+public class ReferenceMoveGenerator {
+
+    /**
+     * Vectors of rook moves
+     */
+    private static final MoveVector[] STRAIGHT = {
+        MoveVector.NORTH, MoveVector.EAST, MoveVector.SOUTH, MoveVector.WEST
+    };
+
+    /**
+     * Vectors of bishop moves
+     */
+    private static final MoveVector[] DIAGONAL = {
+        MoveVector.NORTH_EAST, MoveVector.SOUTH_EAST, MoveVector.SOUTH_WEST, MoveVector.NORTH_WEST
+    };
+
+    /**
+     * Vectors of queen and king moves
+     */
+    private static final MoveVector[] ALL = {
+        MoveVector.NORTH, MoveVector.NORTH_EAST, MoveVector.EAST, MoveVector.SOUTH_EAST,
+        MoveVector.SOUTH, MoveVector.SOUTH_WEST, MoveVector.WEST, MoveVector.NORTH_WEST
+    };
+
+    /**
+     * Vectors of knight moves
+     */
+    private static final MoveVector[] KNIGHT = {
+        MoveVector.KNIGHT_NNW, MoveVector.KNIGHT_NNE, MoveVector.KNIGHT_NEE, MoveVector.KNIGHT_SEE,
+        MoveVector.KNIGHT_SSE, MoveVector.KNIGHT_SSW, MoveVector.KNIGHT_SWW, MoveVector.KNIGHT_NWW
+    };
+
+    /**
+     * Vectors of pawn captures
+     */
+    private static final MoveVector[] PAWN_TAKES = {MoveVector.NORTH_EAST, MoveVector.NORTH_WEST};
+
+    /**
+     * Pieces a pawn can promote to
+     */
+    private static final int[] PROMOTIONS = {BitBoard.QUEEN, BitBoard.ROOK, BitBoard.BISHOP, BitBoard.KNIGHT};
+
+    /**
+     * BitBoard whose moves are generated, its state gives side to move, castling and en passant
+     */
+    private final BitBoard bitBoard;
+
+    /**
+     * Buffer of moves before the check of own king
+     */
+    private final MoveList pseudo = new MoveList();
+
+    /**
+     * Creates new generator of moves of passed board
+     * @param bitBoard BitBoard whose moves are generated
+     */
+    public ReferenceMoveGenerator(BitBoard bitBoard) {
+        this.bitBoard = bitBoard;
+    }
+
+    /**
+     * Writes all legal moves of the side to move into passed list
+     * @param moves list that is cleared and filled with packed moves
+     */
+    public void generate(MoveList moves) {
+        moves.clear();
+        int color = this.bitBoard.getSideToMove();
+        this.pseudo.clear();
+        for (int square = 0; square < Square.COUNT; square++) {
+            if (this.bitBoard.getColor(square) == color) {
+                this.addPossibleMoves(square, color);
+            }
+        }
+        for (int i = 0; i < this.pseudo.size(); i++) {
+            int move = this.pseudo.get(i);
+            MoveType type = PackedMove.getType(move);
+            if (type == MoveType.KINGSIDE_CASTLING || type == MoveType.QUEENSIDE_CASTLING) {
+                // the king and both squares it walks over have to be safe
+                int step = type == MoveType.KINGSIDE_CASTLING ? 1 : -1;
+                boolean add = true;
+                for (int n = 0; n < 3; n++) {
+                    add &= !this.isAttacked(PackedMove.getFrom(move) + n * step, color ^ 1);
+                }
+                if (add) {
+                    moves.add(move);
+                }
+            } else {
+                this.bitBoard.makeMove(move);
+                if (!this.isAttacked(this.bitBoard.getKingSquare(color), color ^ 1)) {
+                    moves.add(move);
+                }
+                this.bitBoard.unmakeMove();
+            }
+        }
+    }
+
+    /**
+     * Checks if passed square is attacked by any piece of passed color
+     * @param square index of the square
+     * @param color index of the attacking color
+     * @return boolean value if any piece of the color can take on the square
+     */
+    public boolean isAttacked(int square, int color) {
+        for (int from = 0; from < Square.COUNT; from++) {
+            if (this.bitBoard.getColor(from) != color) {
+                continue;
+            }
+            int type = this.bitBoard.getType(from);
+            if (type == BitBoard.PAWN) {
+                for (MoveVector vector : ReferenceMoveGenerator.PAWN_TAKES) {
+                    if (this.target(from, color, vector, 1) == square) {
+                        return true;
+                    }
+                }
+            } else {
+                for (MoveVector vector : ReferenceMoveGenerator.getVectors(type)) {
+                    for (int n = 1; n <= ReferenceMoveGenerator.getRange(type); n++) {
+                        int target = this.target(from, color, vector, n);
+                        if (target == square) {
+                            return true;
+                        }
+                        if (target == Square.NONE || !this.bitBoard.isEmpty(target)) {
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds moves of the piece on passed square without the check of own king
+     * @param from index of the square of the piece
+     * @param color index of the color of the piece
+     */
+    private void addPossibleMoves(int from, int color) {
+        int type = this.bitBoard.getType(from);
+        if (type == BitBoard.PAWN) {
+            this.addPawnMoves(from, color);
+            return;
+        }
+        for (MoveVector vector : ReferenceMoveGenerator.getVectors(type)) {
+            for (int n = 1; n <= ReferenceMoveGenerator.getRange(type); n++) {
+                int target = this.target(from, color, vector, n);
+                if (target == Square.NONE || this.bitBoard.getColor(target) == color) {
+                    break;
+                }
+                this.add(from, target, type, BitBoard.EMPTY);
+                if (!this.bitBoard.isEmpty(target)) {
+                    break;
+                }
+            }
+        }
+        if (type == BitBoard.KING) {
+            this.addCastlings(from, color);
+        }
+    }
+
+    /**
+     * Adds steps, captures, promotions and en passant of a pawn
+     * @param from index of the square of the pawn
+     * @param color index of the color of the pawn
+     */
+    private void addPawnMoves(int from, int color) {
+        int initialRank = color == BitBoard.WHITE ? Rank.TWO.getValue() : Rank.SEVEN.getValue();
+        int range = Square.rankValue(from) == initialRank ? 2 : 1;
+        for (int n = 1; n <= range; n++) {
+            int target = this.target(from, color, MoveVector.NORTH, n);
+            if (target == Square.NONE || !this.bitBoard.isEmpty(target)) {
+                break;
+            }
+            this.addPawnMove(from, target);
+        }
+        for (MoveVector vector : ReferenceMoveGenerator.PAWN_TAKES) {
+            int target = this.target(from, color, vector, 1);
+            if (target == Square.NONE) {
+                continue;
+            }
+            if (this.bitBoard.getColor(target) == (color ^ 1)) {
+                this.addPawnMove(from, target);
+            } else if (target == this.bitBoard.getEnPassant()) {
+                // the enemy pawn that stepped over the square stands next to this pawn
+                int nextTo = Square.of(Square.fileValue(target), Square.rankValue(from));
+                if (this.bitBoard.getColor(nextTo) == (color ^ 1) && this.bitBoard.getType(nextTo) == BitBoard.PAWN) {
+                    this.pseudo.add(PackedMove.of(from, target, MoveType.ENPASSANT, BitBoard.PAWN, BitBoard.PAWN, BitBoard.EMPTY));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds step or capture of a pawn, on the last rank all promotions are added
+     * @param from index of the square of the pawn
+     * @param to index of the target square
+     */
+    private void addPawnMove(int from, int to) {
+        int rank = Square.rankValue(to);
+        if (rank == Rank.EIGHT.getValue() || rank == Rank.ONE.getValue()) {
+            for (int promotion : ReferenceMoveGenerator.PROMOTIONS) {
+                this.add(from, to, BitBoard.PAWN, promotion);
+            }
+        } else {
+            this.add(from, to, BitBoard.PAWN, BitBoard.EMPTY);
+        }
+    }
+
+    /**
+     * Adds castlings allowed by castling rights when the rook is in the corner
+     * and all squares between the king and the rook are empty
+     * @param from index of the square of the king
+     * @param color index of the color of the king
+     */
+    private void addCastlings(int from, int color) {
+        int castling = this.bitBoard.getCastling();
+        int kingside = color == BitBoard.WHITE ? BitBoard.WHITE_KINGSIDE : BitBoard.BLACK_KINGSIDE;
+        int queenside = color == BitBoard.WHITE ? BitBoard.WHITE_QUEENSIDE : BitBoard.BLACK_QUEENSIDE;
+        int rank = Square.rankValue(from);
+        if (Square.fileValue(from) != File.E.getValue()) {
+            return;
+        }
+        if ((castling & kingside) != 0 && this.isCastlingRook(Square.of(File.H.getValue(), rank), color)) {
+            this.pseudo.add(PackedMove.of(from, from + 2, MoveType.KINGSIDE_CASTLING, BitBoard.KING, BitBoard.EMPTY, BitBoard.EMPTY));
+        }
+        if ((castling & queenside) != 0 && this.isCastlingRook(Square.of(File.A.getValue(), rank), color)) {
+            this.pseudo.add(PackedMove.of(from, from - 2, MoveType.QUEENSIDE_CASTLING, BitBoard.KING, BitBoard.EMPTY, BitBoard.EMPTY));
+        }
+    }
+
+    /**
+     * Checks if there is own rook on passed square and all squares between it and the king are empty
+     * @param rook index of the corner square
+     * @param color index of the color of the king
+     * @return boolean value if castling with the rook is possible
+     */
+    private boolean isCastlingRook(int rook, int color) {
+        if (this.bitBoard.getColor(rook) != color || this.bitBoard.getType(rook) != BitBoard.ROOK) {
+            return false;
+        }
+        int king = Square.of(File.E.getValue(), Square.rankValue(rook));
+        int step = rook > king ? 1 : -1;
+        for (int square = king + step; square != rook; square += step) {
+            if (!this.bitBoard.isEmpty(square)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds packed move to the buffer, type and captured piece are taken from the board
+     * @param from index of the source square
+     * @param to index of the target square
+     * @param piece type of the moved piece
+     * @param promotion type of the promoted piece or EMPTY
+     */
+    private void add(int from, int to, int piece, int promotion) {
+        int captured = this.bitBoard.getType(to);
+        MoveType type = captured == BitBoard.EMPTY ? MoveType.NORMAL : MoveType.CAPTURE;
+        this.pseudo.add(PackedMove.of(from, to, type, piece, captured, promotion));
+    }
+
+    /**
+     * Gets square reached by walking n steps along the vector, vectors point
+     * forward from the point of view of passed color
+     * @param from index of the starting square
+     * @param color index of the color of the moving piece
+     * @param vector direction of the walk
+     * @param n number of steps
+     * @return index of the reached square or Square.NONE if it is off the board
+     */
+    private int target(int from, int color, MoveVector vector, int n) {
+        int direction = color == BitBoard.WHITE ? -1 : 1;
+        int file = Square.fileValue(from) + vector.getX() * n;
+        int rank = Square.rankValue(from) + direction * vector.getY() * n;
+        if (file < 0 || file >= File.COUNT || rank < 0 || rank >= Rank.COUNT) {
+            return Square.NONE;
+        }
+        return Square.of(file, rank);
+    }
+
+    /**
+     * Gets move vectors of a piece other than pawn
+     * @param type BitBoard type of the piece
+     * @return array of vectors
+     */
+    private static MoveVector[] getVectors(int type) {
+        switch (type) {
+            case BitBoard.ROOK:
+                return ReferenceMoveGenerator.STRAIGHT;
+            case BitBoard.BISHOP:
+                return ReferenceMoveGenerator.DIAGONAL;
+            case BitBoard.KNIGHT:
+                return ReferenceMoveGenerator.KNIGHT;
+            default:
+                return ReferenceMoveGenerator.ALL;
+        }
+    }
+
+    /**
+     * Gets maximal number of steps along one vector
+     * @param type BitBoard type of the piece
+     * @return 1 for knight and king, length of the board for sliding pieces
+     */
+    private static int getRange(int type) {
+        return type == BitBoard.KNIGHT || type == BitBoard.KING ? 1 : Rank.COUNT - 1;
+    }
+}
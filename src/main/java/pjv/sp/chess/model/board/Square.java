@@ -0,0 +1,175 @@
+package pjv.sp.chess.model.board;
+
+import pjv.sp.chess.model.pieces.Position;
+
+/**
+ * Square class provides utilities to convert between positions on the board
+ * and square indexes used by bitboards. Squares are indexed in the same order
+ * as the rows of the board, starting with a8 (0) and ending with h1 (63):
+ * index = rank value * 8 + file value
+ * @author Jakub Rada
+ * @version 1.0
+ * @see File
+ * @see Rank
+ */
+public final class Square {
+
+    /**
+     * Number of squares on the board
+     */
+    public static final int COUNT = File.COUNT * Rank.COUNT;
+
+    /**
+     * Value of a missing square (for example no en passant square)
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Files indexed by their value to avoid linear search
+     */
+    private static final File[] FILES = new File[File.COUNT];
+
+    /**
+     * Ranks indexed by their value to avoid linear search
+     */
+    private static final Rank[] RANKS = new Rank[Rank.COUNT];
+
+    static {
+        for (File file : File.VALUES) {
+            Square.FILES[file.getValue()] = file;
+        }
+        for (Rank rank : Rank.VALUES) {
+            Square.RANKS[rank.getValue()] = rank;
+        }
+    }
+
+    /**
+     * Square is only a holder of static utilities
+     */
+    private Square() {
+    }
+
+    /**
+     * Gets index of the square on passed coordinates
+     * @param file File position of the square
+     * @param rank Rank position of the square
+     * @return index of the square (0-63)
+     */
+    public static int of(File file, Rank rank) {
+        return rank.getValue() * File.COUNT + file.getValue();
+    }
+
+    /**
+     * Gets index of the square on passed position
+     * @param position Position on the board
+     * @return index of the square (0-63)
+     */
+    public static int of(Position position) {
+        return Square.of(position.getFile(), position.getRank());
+    }
+
+    /**
+     * Gets index of the square on passed coordinates values
+     * @param fileValue value of the file (0-7)
+     * @param rankValue value of the rank (0-7)
+     * @return index of the square (0-63)
+     */
+    public static int of(int fileValue, int rankValue) {
+        return rankValue * File.COUNT + fileValue;
+    }
+
+    /**
+     * Gets value of the file of the square
+     * @param square index of the square
+     * @return value of the File (0-7)
+     */
+    public static int fileValue(int square) {
+        return square & 7;
+    }
+
+    /**
+     * Gets value of the rank of the square
+     * @param square index of the square
+     * @return value of the Rank (0-7)
+     */
+    public static int rankValue(int square) {
+        return square >>> 3;
+    }
+
+    /**
+     * Gets File of the square
+     * @param square index of the square
+     * @return File of the square
+     */
+    public static File getFile(int square) {
+        return Square.FILES[Square.fileValue(square)];
+    }
+
+    /**
+     * Gets Rank of the square
+     * @param square index of the square
+     * @return Rank of the square
+     */
+    public static Rank getRank(int square) {
+        return Square.RANKS[Square.rankValue(square)];
+    }
+
+    /**
+     * Gets File with passed value without searching the enum
+     * @param value value of the file (0-7)
+     * @return File of passed value
+     */
+    public static File fileOfValue(int value) {
+        return Square.FILES[value];
+    }
+
+    /**
+     * Gets Rank with passed value without searching the enum
+     * @param value value of the rank (0-7)
+     * @return Rank of passed value
+     */
+    public static Rank rankOfValue(int value) {
+        return Square.RANKS[value];
+    }
+
+    /**
+     * Creates new Position object of the square
+     * @param square index of the square
+     * @return new Position on the square
+     */
+    public static Position toPosition(int square) {
+        return new Position(Square.getFile(square), Square.getRank(square));
+    }
+
+    /**
+     * Gets bitboard with only passed square set
+     * @param square index of the square
+     * @return 64-bit mask of the square
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Gets label of the square in algebraic notation (for example e4)
+     * @param square index of the square
+     * @return String label of the square
+     */
+    public static String getLabel(int square) {
+        return Square.getFile(square).getLabel() + Square.getRank(square).getLabel();
+    }
+
+    /**
+     * Gets index of the square with passed label in algebraic notation
+     * @param label String label of the square (for example e4)
+     * @return index of the square or NONE if the label is not a square
+     */
+    public static int ofLabel(String label) {
+        if (label.length() != 2) {
+            return Square.NONE;
+        }
+        File file = File.getFileOfLabel(label.substring(0, 1));
+        Rank rank = Rank.getRankOfLabel(label.substring(1, 2));
+        return (file == null || rank == null) ? Square.NONE : Square.of(file, rank);
+    }
+}
@@ -0,0 +1,104 @@
+package pjv.sp.chess.model.board;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist class holds random keys used to hash positions. Key of a position is
+ * XOR of keys of all pieces on their squares, of the castling rights, of the
+ * en passant file (only when the en passant capture is possible) and of the
+ * side to move when black is to move. Because XOR is its own inverse, BitBoard
+ * updates the key with each change instead of computing it again.
+ * Keys are generated from a fixed seed, so the same position has the same key
+ * on every run (keys can be stored in files).
+ * @author Jakub Rada
+ * @version 1.0
+ * @see BitBoard
+ */
+public final class Zobrist {
+
+    /**
+     * Seed of the random generator
+     */
+    private static final long SEED = 0x5EED0F2A11C0FFEEL;
+
+    /**
+     * Keys of pieces indexed by [color][piece type][square]
+     */
+    private static final long[][][] PIECES = new long[2][BitBoard.KING + 1][Square.COUNT];
+
+    /**
+     * Keys of all combinations of castling rights (no rights has key 0)
+     */
+    private static final long[] CASTLING = new long[BitBoard.ALL_CASTLING + 1];
+
+    /**
+     * Keys of en passant files
+     */
+    private static final long[] EN_PASSANT = new long[File.COUNT];
+
+    /**
+     * Key added when black is to move
+     */
+    private static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(Zobrist.SEED);
+        for (int color = 0; color < 2; color++) {
+            for (int type = 0; type <= BitBoard.KING; type++) {
+                for (int square = 0; square < Square.COUNT; square++) {
+                    Zobrist.PIECES[color][type][square] = random.nextLong();
+                }
+            }
+        }
+        for (int castling = 1; castling <= BitBoard.ALL_CASTLING; castling++) {
+            Zobrist.CASTLING[castling] = random.nextLong();
+        }
+        for (int file = 0; file < File.COUNT; file++) {
+            Zobrist.EN_PASSANT[file] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+    }
+
+    /**
+     * Zobrist is only a holder of static tables
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Gets key of a piece on a square
+     * @param color index of the color of the piece
+     * @param type index of the type of the piece
+     * @param square index of the square
+     * @return 64-bit key
+     */
+    public static long piece(int color, int type, int square) {
+        return Zobrist.PIECES[color][type][square];
+    }
+
+    /**
+     * Gets key of castling rights
+     * @param castling castling bits
+     * @return 64-bit key
+     */
+    public static long castling(int castling) {
+        return Zobrist.CASTLING[castling];
+    }
+
+    /**
+     * Gets key of the en passant square
+     * @param square index of the en passant square
+     * @return 64-bit key of its file
+     */
+    public static long enPassant(int square) {
+        return Zobrist.EN_PASSANT[Square.fileValue(square)];
+    }
+
+    /**
+     * Gets key of black to move
+     * @return 64-bit key
+     */
+    public static long side() {
+        return Zobrist.SIDE;
+    }
+}
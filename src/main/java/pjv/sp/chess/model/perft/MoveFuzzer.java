@@ -0,0 +1,280 @@
+package pjv.sp.chess.model.perft;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Board;
+import pjv.sp.chess.model.board.Fen;
+import pjv.sp.chess.model.board.File;
+import pjv.sp.chess.model.board.MoveGenerator;
+import pjv.sp.chess.model.board.MoveList;
+import pjv.sp.chess.model.board.PackedMove;
+import pjv.sp.chess.model.board.Rank;
+import pjv.sp.chess.model.board.ReferenceMoveGenerator;
+import pjv.sp.chess.model.board.Square;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * MoveFuzzer compares MoveGenerator with ReferenceMoveGenerator in positions
+ * of random games. Games start from passed FEN and each move is chosen randomly
+ * among legal moves, in every position of the game both generators have to
+ * return the same moves. When they differ, the position is minimized (pieces,
+ * castling rights and en passant square are removed as long as the generators
+ * still differ) and its FEN is kept as a counterexample.
+ * Games are given by the seed, so a run with the same seed plays the same games.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see MoveGenerator
+ * @see ReferenceMoveGenerator
+ */
+public class MoveFuzzer {
+
+    /**
+     * Default maximal number of plies of one game
+     */
+    public static final int DEFAULT_PLIES = 300;
+
+    /**
+     * Source of random moves
+     */
+    private final Random random;
+
+    /**
+     * Maximal number of plies of one game
+     */
+    private final int maxPlies;
+
+    /**
+     * Minimized counterexamples in FEN in order they were found (without duplicates)
+     */
+    private final Set<String> counterexamples = new LinkedHashSet<>();
+
+    /**
+     * Number of compared positions
+     */
+    private long positions;
+
+    /**
+     * Creates new fuzzer
+     * @param seed seed of the random games
+     * @param maxPlies maximal number of plies of one game
+     */
+    public MoveFuzzer(long seed, int maxPlies) {
+        this.random = new Random(seed);
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Plays random games from passed position and compares moves of the generators
+     * in each position. A game ends with checkmate, stalemate, fifty-move rule,
+     * insufficient material, after the maximal number of plies or at the first difference.
+     * @param fen starting position in FEN
+     * @param games number of games
+     * @return number of new counterexamples
+     */
+    public int run(String fen, int games) {
+        int found = this.counterexamples.size();
+        BitBoard bitBoard = Fen.parse(fen);
+        MoveList moves = new MoveList();
+        MoveList expected = new MoveList();
+        MoveGenerator generator = new MoveGenerator(bitBoard);
+        ReferenceMoveGenerator reference = new ReferenceMoveGenerator(bitBoard);
+        for (int game = 0; game < games; game++) {
+            for (int ply = 0; ply < this.maxPlies; ply++) {
+                this.positions++;
+                generator.update(bitBoard.getSideToMove(), bitBoard.getCastling(), bitBoard.getEnPassant());
+                generator.generate(moves);
+                reference.generate(expected);
+                if (!MoveFuzzer.sameMoves(moves, expected)) {
+                    this.counterexamples.add(MoveFuzzer.minimize(Fen.format(bitBoard)));
+                    break;
+                }
+                if (moves.isEmpty() || bitBoard.getHalfmoveClock() >= Board.FIFTY_MOVES || bitBoard.getMaterial().isInsufficient()) {
+                    break;
+                }
+                bitBoard.makeMove(moves.get(this.random.nextInt(moves.size())));
+            }
+            while (bitBoard.getHistorySize() > 0) {
+                bitBoard.unmakeMove();
+            }
+        }
+        return this.counterexamples.size() - found;
+    }
+
+    /**
+     * Checks if both generators return the same moves in passed position
+     * @param fen position in FEN
+     * @return boolean value if the moves are the same
+     */
+    public static boolean matches(String fen) {
+        return MoveFuzzer.describe(fen).isEmpty();
+    }
+
+    /**
+     * Describes differences of the generators in passed position
+     * @param fen position in FEN
+     * @return labels of missing moves (-) and extra moves (+) of MoveGenerator, empty when there is no difference
+     */
+    public static String describe(String fen) {
+        BitBoard bitBoard = Fen.parse(fen);
+        MoveList moves = new MoveList();
+        MoveList expected = new MoveList();
+        MoveGenerator generator = new MoveGenerator(bitBoard);
+        generator.update(bitBoard.getSideToMove(), bitBoard.getCastling(), bitBoard.getEnPassant());
+        generator.generate(moves);
+        new ReferenceMoveGenerator(bitBoard).generate(expected);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < expected.size(); i++) {
+            if (!moves.contains(expected.get(i))) {
+                builder.append(" -").append(PackedMove.getLabel(expected.get(i)));
+            }
+        }
+        for (int i = 0; i < moves.size(); i++) {
+            if (!expected.contains(moves.get(i))) {
+                builder.append(" +").append(PackedMove.getLabel(moves.get(i)));
+            }
+        }
+        return builder.toString().trim();
+    }
+
+    /**
+     * Removes pieces, castling rights and en passant square from passed position
+     * as long as the generators still return different moves. Positions where
+     * the side that does not move is in check are not used.
+     * @param fen position in FEN where the generators differ
+     * @return the smallest found position in FEN
+     */
+    public static String minimize(String fen) {
+        BitBoard bitBoard = Fen.parse(fen);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            List<BitBoard> candidates = new ArrayList<>();
+            for (int square = 0; square < Square.COUNT; square++) {
+                if (!bitBoard.isEmpty(square) && bitBoard.getType(square) != BitBoard.KING) {
+                    BitBoard candidate = Fen.parse(Fen.format(bitBoard));
+                    candidate.remove(square);
+                    candidates.add(candidate);
+                }
+            }
+            for (int right = BitBoard.WHITE_KINGSIDE; right <= BitBoard.BLACK_QUEENSIDE; right <<= 1) {
+                if ((bitBoard.getCastling() & right) != 0) {
+                    BitBoard candidate = Fen.parse(Fen.format(bitBoard));
+                    candidate.setCastling(bitBoard.getCastling() & ~right);
+                    candidates.add(candidate);
+                }
+            }
+            if (bitBoard.getEnPassant() != Square.NONE) {
+                BitBoard candidate = Fen.parse(Fen.format(bitBoard));
+                candidate.setEnPassant(Square.NONE);
+                candidates.add(candidate);
+            }
+            for (BitBoard candidate : candidates) {
+                MoveFuzzer.sanitize(candidate);
+                String candidateFen = Fen.format(candidate);
+                if (MoveFuzzer.isValid(candidate) && !MoveFuzzer.matches(candidateFen)) {
+                    bitBoard = candidate;
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        // clocks do not change moves, same positions found at different moves get the same FEN
+        bitBoard.setHalfmoveClock(0);
+        bitBoard.setFullmoveNumber(1);
+        return Fen.format(bitBoard);
+    }
+
+    /**
+     * Removes castling rights without the king and the rook on their initial squares
+     * and en passant square without the pawn that could step over it
+     * @param bitBoard BitBoard that is changed
+     */
+    private static void sanitize(BitBoard bitBoard) {
+        int[][] rights = {
+            {BitBoard.WHITE_KINGSIDE, BitBoard.WHITE, Square.of(File.H, Rank.ONE), Square.of(File.E, Rank.ONE)},
+            {BitBoard.WHITE_QUEENSIDE, BitBoard.WHITE, Square.of(File.A, Rank.ONE), Square.of(File.E, Rank.ONE)},
+            {BitBoard.BLACK_KINGSIDE, BitBoard.BLACK, Square.of(File.H, Rank.EIGHT), Square.of(File.E, Rank.EIGHT)},
+            {BitBoard.BLACK_QUEENSIDE, BitBoard.BLACK, Square.of(File.A, Rank.EIGHT), Square.of(File.E, Rank.EIGHT)}
+        };
+        int castling = bitBoard.getCastling();
+        for (int[] right : rights) {
+            if (!MoveFuzzer.isPiece(bitBoard, right[2], right[1], BitBoard.ROOK) || !MoveFuzzer.isPiece(bitBoard, right[3], right[1], BitBoard.KING)) {
+                castling &= ~right[0];
+            }
+        }
+        bitBoard.setCastling(castling);
+        int enPassant = bitBoard.getEnPassant();
+        if (enPassant != Square.NONE) {
+            int color = bitBoard.getSideToMove() ^ 1;
+            int step = color == BitBoard.WHITE ? -File.COUNT : File.COUNT;
+            if (!MoveFuzzer.isPiece(bitBoard, enPassant + step, color, BitBoard.PAWN)
+                || !bitBoard.isEmpty(enPassant) || !bitBoard.isEmpty(enPassant - step)) {
+                bitBoard.setEnPassant(Square.NONE);
+            }
+        }
+    }
+
+    /**
+     * Checks if there is piece of passed color and type on passed square
+     * @param bitBoard BitBoard with the position
+     * @param square index of the square
+     * @param color index of the color
+     * @param type BitBoard type of the piece
+     * @return boolean value if the piece is there
+     */
+    private static boolean isPiece(BitBoard bitBoard, int square, int color, int type) {
+        return bitBoard.getColor(square) == color && bitBoard.getType(square) == type;
+    }
+
+    /**
+     * Checks that the king of the side that does not move is not in check
+     * @param bitBoard BitBoard with the position
+     * @return boolean value if the position can be reached by a legal move
+     */
+    private static boolean isValid(BitBoard bitBoard) {
+        int color = bitBoard.getSideToMove();
+        return !new ReferenceMoveGenerator(bitBoard).isAttacked(bitBoard.getKingSquare(color ^ 1), color);
+    }
+
+    /**
+     * Compares moves of two lists regardless of their order
+     * @param a first list
+     * @param b second list
+     * @return boolean value if the lists contain the same moves
+     */
+    private static boolean sameMoves(MoveList a, MoveList b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        int[] first = new int[a.size()];
+        int[] second = new int[b.size()];
+        for (int i = 0; i < a.size(); i++) {
+            first[i] = a.get(i);
+            second[i] = b.get(i);
+        }
+        Arrays.sort(first);
+        Arrays.sort(second);
+        return Arrays.equals(first, second);
+    }
+
+    /**
+     * Gets minimized counterexamples found so far
+     * @return List of positions in FEN
+     */
+    public List<String> getCounterexamples() {
+        return new ArrayList<>(this.counterexamples);
+    }
+
+    /**
+     * Gets number of compared positions
+     * @return value of the positions property
+     */
+    public long getPositions() {
+        return this.positions;
+    }
+}
@@ -0,0 +1,217 @@
+package pjv.sp.chess.model.perft;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Fen;
+import pjv.sp.chess.model.board.MoveGenerator;
+import pjv.sp.chess.model.board.MoveList;
+import pjv.sp.chess.model.board.PackedMove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ParallelPerft counts leaf nodes of the tree of legal moves on more threads.
+ * Moves of the first two plies are split into tasks of a ForkJoinPool, each task
+ * plays its move on its own copy of the board and counts the subtree with
+ * a PerftCounter. All counters may share one PerftTable, so a subtree reached
+ * in different tasks by transposition is counted only once.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see PerftCounter
+ * @see PerftTable
+ */
+public class ParallelPerft {
+
+    /**
+     * Number of plies whose moves are split into separate tasks
+     */
+    private static final int SPLIT_PLIES = 2;
+
+    /**
+     * Subtrees of smaller depth are counted in the task of their parent
+     */
+    private static final int MIN_SPLIT_DEPTH = 3;
+
+    /**
+     * Number of threads of the pool
+     */
+    private final int threads;
+
+    /**
+     * Table of counted subtrees shared by all tasks or null
+     */
+    private final PerftTable table;
+
+    /**
+     * Creates new parallel counter
+     * @param threads number of threads (at least 1)
+     * @param table table of counted subtrees or null
+     * @throws IllegalArgumentException when number of threads is not positive
+     */
+    public ParallelPerft(int threads, PerftTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads has to be positive: " + threads);
+        }
+        this.threads = threads;
+        this.table = table;
+    }
+
+    /**
+     * Counts leaf nodes of the tree of legal moves
+     * @param bitBoard BitBoard with the root position, it is not changed
+     * @param depth number of plies to be played
+     * @return number of positions at the depth
+     * @throws IllegalArgumentException when depth is out of range
+     */
+    public long count(BitBoard bitBoard, int depth) {
+        if (depth < 0 || depth > PerftCounter.MAX_DEPTH) {
+            throw new IllegalArgumentException("Perft depth out of range: " + depth);
+        }
+        return this.invoke(new CountTask(Fen.format(bitBoard), PackedMove.NONE, 0, depth));
+    }
+
+    /**
+     * Counts leaf nodes of the tree of legal moves separately for each root move
+     * @param bitBoard BitBoard with the root position, it is not changed
+     * @param depth number of plies to be played (at least 1)
+     * @return map of labels of root moves (as e2e4) to their node counts
+     * @throws IllegalArgumentException when depth is out of range
+     */
+    public Map<String, Long> divide(BitBoard bitBoard, int depth) {
+        if (depth < 1 || depth > PerftCounter.MAX_DEPTH) {
+            throw new IllegalArgumentException("Perft depth out of range: " + depth);
+        }
+        String fen = Fen.format(bitBoard);
+        List<CountTask> tasks = new ArrayList<>();
+        MoveList list = ParallelPerft.generate(bitBoard);
+        for (int i = 0; i < list.size(); i++) {
+            tasks.add(new CountTask(fen, list.get(i), 1, depth - 1));
+        }
+        ForkJoinPool pool = new ForkJoinPool(this.threads);
+        try {
+            Map<String, Long> result = new TreeMap<>();
+            for (CountTask task : tasks) {
+                pool.execute(task);
+            }
+            for (CountTask task : tasks) {
+                result.put(PackedMove.getLabel(task.move), task.join());
+            }
+            return result;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs the task in a new pool and stops the pool after it is done
+     * @param task root task
+     * @return node count of the task
+     */
+    private long invoke(CountTask task) {
+        ForkJoinPool pool = new ForkJoinPool(this.threads);
+        try {
+            return pool.invoke(task);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Generates legal moves of the current position of the board
+     * @param bitBoard BitBoard with the position
+     * @return new list of the moves
+     */
+    private static MoveList generate(BitBoard bitBoard) {
+        MoveList list = new MoveList();
+        MoveGenerator generator = new MoveGenerator(bitBoard);
+        generator.update(bitBoard.getSideToMove(), bitBoard.getCastling(), bitBoard.getEnPassant());
+        generator.generate(list);
+        return list;
+    }
+
+    /**
+     * Gets number of threads of the counter
+     * @return value of the threads property
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * CountTask counts nodes of a subtree on its own copy of the board.
+     * Tasks of the first plies fork a task for each move, deeper tasks count
+     * their subtree with a PerftCounter.
+     */
+    private final class CountTask extends RecursiveTask<Long> {
+
+        /**
+         * Version of the serialized form (tasks are never serialized)
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Position of the parent in FEN (copy of the board of the parent)
+         */
+        private final String fen;
+
+        /**
+         * Move played from the parent position or PackedMove.NONE for the root
+         */
+        private final int move;
+
+        /**
+         * Distance of the counted position from the root
+         */
+        private final int ply;
+
+        /**
+         * Remaining number of plies
+         */
+        private final int depth;
+
+        /**
+         * Creates new task
+         * @param fen position of the parent in FEN
+         * @param move move played from the parent position or PackedMove.NONE
+         * @param ply distance of the counted position from the root
+         * @param depth remaining number of plies
+         */
+        private CountTask(String fen, int move, int ply, int depth) {
+            this.fen = fen;
+            this.move = move;
+            this.ply = ply;
+            this.depth = depth;
+        }
+
+        /**
+         * Counts nodes of the subtree
+         * @return number of positions at the depth
+         */
+        @Override
+        protected Long compute() {
+            BitBoard bitBoard = Fen.parse(this.fen);
+            if (this.move != PackedMove.NONE) {
+                bitBoard.makeMove(this.move);
+            }
+            if (this.ply >= ParallelPerft.SPLIT_PLIES || this.depth < ParallelPerft.MIN_SPLIT_DEPTH) {
+                return new PerftCounter(bitBoard, ParallelPerft.this.table).count(this.depth);
+            }
+            String position = Fen.format(bitBoard);
+            MoveList list = ParallelPerft.generate(bitBoard);
+            List<CountTask> tasks = new ArrayList<>(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                tasks.add(new CountTask(position, list.get(i), this.ply + 1, this.depth - 1));
+            }
+            long nodes = 0;
+            for (CountTask task : ForkJoinTask.invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package pjv.sp.chess.model.perft;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.MoveGenerator;
+import pjv.sp.chess.model.board.MoveList;
+import pjv.sp.chess.model.board.PackedMove;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * PerftCounter counts leaf nodes of the tree of legal moves up to given depth.
+ * Counts are compared with known values to verify move generation, make and unmake
+ * of moves. Moves at the last ply are only counted (bulk counting), not played.
+ * With a PerftTable counts of subtrees are stored and transposed subtrees are
+ * not counted again.
+ * @author Jakub Rada
+ * @version 1.0
+ */
+public class PerftCounter {
+
+    /**
+     * Maximal depth that can be counted
+     */
+    public static final int MAX_DEPTH = 32;
+
+    /**
+     * BitBoard where the moves are played
+     */
+    private final BitBoard bitBoard;
+
+    /**
+     * MoveGenerator of legal moves of the bitBoard
+     */
+    private final MoveGenerator generator;
+
+    /**
+     * Lists of moves, one for each ply
+     */
+    private final MoveList[] moves;
+
+    /**
+     * Table of counted subtrees or null
+     */
+    private final PerftTable table;
+
+    /**
+     * Creates new counter of moves of passed board
+     * @param bitBoard BitBoard with the root position, it is restored after each count
+     */
+    public PerftCounter(BitBoard bitBoard) {
+        this(bitBoard, null);
+    }
+
+    /**
+     * Creates new counter of moves of passed board that stores counts of subtrees
+     * @param bitBoard BitBoard with the root position, it is restored after each count
+     * @param table table of counted subtrees (may be shared with other counters) or null
+     */
+    public PerftCounter(BitBoard bitBoard, PerftTable table) {
+        this.bitBoard = bitBoard;
+        this.table = table;
+        this.generator = new MoveGenerator(bitBoard);
+        this.moves = MoveList.createStack(PerftCounter.MAX_DEPTH);
+    }
+
+    /**
+     * Counts leaf nodes of the tree of legal moves
+     * @param depth number of plies to be played
+     * @return number of positions at the depth
+     * @throws IllegalArgumentException when depth is out of range
+     */
+    public long count(int depth) {
+        if (depth < 0 || depth > PerftCounter.MAX_DEPTH) {
+            throw new IllegalArgumentException("Perft depth out of range: " + depth);
+        }
+        return this.count(0, depth);
+    }
+
+    /**
+     * Counts leaf nodes of the tree of legal moves separately for each root move
+     * @param depth number of plies to be played (at least 1)
+     * @return map of labels of root moves (as e2e4) to their node counts
+     * @throws IllegalArgumentException when depth is out of range
+     */
+    public Map<String, Long> divide(int depth) {
+        if (depth < 1 || depth > PerftCounter.MAX_DEPTH) {
+            throw new IllegalArgumentException("Perft depth out of range: " + depth);
+        }
+        Map<String, Long> result = new TreeMap<>();
+        MoveList list = this.generate(0);
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.get(i);
+            this.bitBoard.makeMove(move);
+            result.put(PackedMove.getLabel(move), this.count(1, depth - 1));
+            this.bitBoard.unmakeMove();
+        }
+        return result;
+    }
+
+    /**
+     * Counts leaf nodes below the current position
+     * @param ply distance from the root position
+     * @param depth remaining number of plies
+     * @return number of positions at the depth
+     */
+    private long count(int ply, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        // counts of depth 1 are cheaper to generate than to look up
+        long key = 0L;
+        if (this.table != null && depth > 1) {
+            key = this.bitBoard.getKey();
+            long stored = this.table.probe(key, depth);
+            if (stored >= 0) {
+                return stored;
+            }
+        }
+        MoveList list = this.generate(ply);
+        if (depth == 1) {
+            return list.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < list.size(); i++) {
+            this.bitBoard.makeMove(list.get(i));
+            nodes += this.count(ply + 1, depth - 1);
+            this.bitBoard.unmakeMove();
+        }
+        if (this.table != null) {
+            this.table.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Generates legal moves of the current position into list of the ply
+     * @param ply distance from the root position
+     * @return filled MoveList
+     */
+    private MoveList generate(int ply) {
+        MoveList list = this.moves[ply];
+        this.generator.update(this.bitBoard.getSideToMove(), this.bitBoard.getCastling(), this.bitBoard.getEnPassant());
+        this.generator.generate(list);
+        return list;
+    }
+}
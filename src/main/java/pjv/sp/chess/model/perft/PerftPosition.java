@@ -0,0 +1,75 @@
+package pjv.sp.chess.model.perft;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * PerftPosition is one position of the perft suite with its known node counts
+ * @author Jakub Rada
+ * @version 1.0
+ */
+public class PerftPosition {
+
+    /**
+     * Short name of the position
+     */
+    private final String name;
+
+    /**
+     * Position in FEN
+     */
+    private final String fen;
+
+    /**
+     * Known node counts indexed by depth
+     */
+    private final SortedMap<Integer, Long> counts = new TreeMap<>();
+
+    /**
+     * Creates new position without node counts
+     * @param name short name of the position
+     * @param fen position in FEN
+     */
+    public PerftPosition(String name, String fen) {
+        this.name = name;
+        this.fen = fen;
+    }
+
+    /**
+     * Gets name of the position
+     * @return value of the name property
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the position in FEN
+     * @return value of the fen property
+     */
+    public String getFen() {
+        return this.fen;
+    }
+
+    /**
+     * Adds known node count
+     * @param depth depth of the count
+     * @param nodes number of nodes at the depth
+     */
+    public void addCount(int depth, long nodes) {
+        this.counts.put(depth, nodes);
+    }
+
+    /**
+     * Gets known node counts
+     * @return map of depths to node counts sorted by depth
+     */
+    public SortedMap<Integer, Long> getCounts() {
+        return this.counts;
+    }
+
+    @Override
+    public String toString() {
+        return this.name + " (" + this.fen + ")";
+    }
+}
@@ -0,0 +1,90 @@
+package pjv.sp.chess.model.perft;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PerftSuite loads positions with known node counts. Each line of the suite
+ * has form {@code name ;fen ;D1 20 ;D2 400}, empty lines and lines starting
+ * with # are skipped.
+ * @author Jakub Rada
+ * @version 1.0
+ */
+public final class PerftSuite {
+
+    /**
+     * Name of the bundled resource with standard positions
+     */
+    public static final String RESOURCE = "suite.epd";
+
+    /**
+     * PerftSuite is only a holder of static utilities
+     */
+    private PerftSuite() {
+    }
+
+    /**
+     * Loads bundled suite of standard positions
+     * @return List of positions
+     * @throws IOException when the resource cannot be read
+     */
+    public static List<PerftPosition> load() throws IOException {
+        try (InputStream stream = PerftSuite.class.getResourceAsStream(PerftSuite.RESOURCE)) {
+            if (stream == null) {
+                throw new IOException("Missing perft suite resource " + PerftSuite.RESOURCE);
+            }
+            return PerftSuite.load(stream);
+        }
+    }
+
+    /**
+     * Loads suite from passed stream
+     * @param stream InputStream with the suite
+     * @return List of positions
+     * @throws IOException when the stream cannot be read
+     * @throws IllegalArgumentException when a line has wrong format
+     */
+    public static List<PerftPosition> load(InputStream stream) throws IOException {
+        List<PerftPosition> positions = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                positions.add(PerftSuite.parse(line));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Parses one line of the suite
+     * @param line String in form name ;fen ;D1 20 ...
+     * @return PerftPosition with node counts
+     * @throws IllegalArgumentException when the line has wrong format
+     */
+    private static PerftPosition parse(String line) {
+        String[] fields = line.split(";");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("Wrong perft suite line: " + line);
+        }
+        PerftPosition position = new PerftPosition(fields[0].trim(), fields[1].trim());
+        for (int i = 2; i < fields.length; i++) {
+            String[] count = fields[i].trim().split("\\s+");
+            if (count.length != 2 || !count[0].startsWith("D")) {
+                throw new IllegalArgumentException("Wrong perft suite line: " + line);
+            }
+            try {
+                position.addCount(Integer.parseInt(count[0].substring(1)), Long.parseLong(count[1]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Wrong perft suite line: " + line);
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,107 @@
+package pjv.sp.chess.model.perft;
+
+/**
+ * PerftTable stores node counts of already counted subtrees, so a position
+ * reached by different move orders (transposition) is counted only once.
+ * Entries are addressed by Zobrist key of the position and remaining depth.
+ * The table is shared by all threads of a parallel count without any locks.
+ * Each entry is a pair of longs, the first one is the key xored with the
+ * second one (count and depth). When two threads write the same entry at once
+ * and the pair is mixed, the xor does not give the key back and the entry is
+ * treated as empty, so a wrong count is never returned.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see ParallelPerft
+ */
+public class PerftTable {
+
+    /**
+     * Size of one entry in bytes
+     */
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+
+    /**
+     * Number of bits of the data used by the depth
+     */
+    private static final int DEPTH_BITS = 8;
+
+    /**
+     * Mask of the depth in the data
+     */
+    private static final long DEPTH_MASK = (1L << PerftTable.DEPTH_BITS) - 1;
+
+    /**
+     * Odd constant that spreads entries of one position at different depths over the table
+     */
+    private static final long DEPTH_SPREAD = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Entries, the checked key at even index and the data at the following odd index
+     */
+    private final long[] entries;
+
+    /**
+     * Mask of the index of an entry (number of entries is power of two)
+     */
+    private final long mask;
+
+    /**
+     * Creates new empty table that takes at most passed number of megabytes
+     * @param megabytes size of the table (at least 1)
+     * @throws IllegalArgumentException when the size is out of range
+     */
+    public PerftTable(int megabytes) {
+        if (megabytes < 1 || megabytes > 16384) {
+            throw new IllegalArgumentException("Perft table size out of range: " + megabytes);
+        }
+        long count = Long.highestOneBit(megabytes * 1024L * 1024L / PerftTable.ENTRY_BYTES);
+        this.entries = new long[(int) Math.min(count * 2, Integer.highestOneBit(Integer.MAX_VALUE))];
+        this.mask = this.entries.length / 2 - 1;
+    }
+
+    /**
+     * Finds node count of the position at passed depth
+     * @param key Zobrist key of the position
+     * @param depth remaining number of plies
+     * @return number of nodes or -1 when the count is not stored
+     */
+    public long probe(long key, int depth) {
+        int index = this.index(key, depth);
+        long data = this.entries[index + 1];
+        if ((this.entries[index] ^ data) != key || (data & PerftTable.DEPTH_MASK) != depth) {
+            return -1;
+        }
+        return data >>> PerftTable.DEPTH_BITS;
+    }
+
+    /**
+     * Stores node count of the position at passed depth, the older entry is replaced
+     * @param key Zobrist key of the position
+     * @param depth remaining number of plies
+     * @param nodes number of nodes
+     */
+    public void store(long key, int depth, long nodes) {
+        int index = this.index(key, depth);
+        long data = (nodes << PerftTable.DEPTH_BITS) | depth;
+        this.entries[index] = key ^ data;
+        this.entries[index + 1] = data;
+    }
+
+    /**
+     * Computes index of the first long of the entry
+     * @param key Zobrist key of the position
+     * @param depth remaining number of plies
+     * @return even index into the entries
+     */
+    private int index(long key, int depth) {
+        return (int) ((key ^ depth * PerftTable.DEPTH_SPREAD) & this.mask) * 2;
+    }
+
+    /**
+     * Gets number of entries of the table
+     * @return capacity in entries
+     */
+    public int getCapacity() {
+        return this.entries.length / 2;
+    }
+}
@@ -1,6 +1,7 @@
 package pjv.sp.chess.model.pgn;
 
 import pjv.sp.chess.model.board.Board;
+import pjv.sp.chess.model.board.Fen;
 import pjv.sp.chess.model.board.MoveControl;
 import pjv.sp.chess.model.board.Rank;
 import pjv.sp.chess.model.pieces.Bishop;
@@ -8,7 +9,6 @@ import pjv.sp.chess.model.pieces.Color;
 import pjv.sp.chess.model.pieces.Empty;
 import pjv.sp.chess.model.pieces.King;
 import pjv.sp.chess.model.pieces.Knight;
-import pjv.sp.chess.model.pieces.Move;
 import pjv.sp.chess.model.pieces.Pawn;
 import pjv.sp.chess.model.pieces.Piece;
 import pjv.sp.chess.model.pieces.Position;
@@ -106,7 +106,7 @@ public class PGNBrowser {
         // special case for castling
         if (PGNTag.isKingsideCastling(this.moves.get(this.currentMove)) || PGNTag.isQueensideCastling(this.moves.get(this.currentMove))) {
             Rank rank = Color.WHITE.equals(this.currentColor) ? Rank.ONE : Rank.EIGHT;
-            Position king = new Position(File.E, rank);;
+            Position king = new Position(File.E, rank);
             Position rook;
             Position newKing;
             Position newRook;
@@ -119,14 +119,14 @@ public class PGNBrowser {
                 newKing = new Position(File.C, rank);
                 newRook = new Position(File.D, rank);
             }
-            this.board.movePiece(king, newKing, this.currentMove + 1);
+            // the rook is moved by the board together with the king
+            this.board.movePiece(king, newKing);
             this.view.getBoard().movePiece(
                 this.board.getPiece(newKing).getIcon(),
                 newKing,
                 this.board.getPiece(king).getIcon(),
                 king
             );
-            this.board.movePiece(rook, newRook, this.currentMove + 1);
             this.view.getBoard().movePiece(
                 this.board.getPiece(newRook).getIcon(),
                 newRook,
@@ -197,14 +197,11 @@ public class PGNBrowser {
             } else {
                 target = new Position(tgtFile, tgtRank);
             }
-            List<Piece> selectedType = this.board.getPiecesOfType(piece, this.board.getPieces(this.currentColor));
             List<Piece> possibleMoved = new ArrayList<>();
-            for (Piece possible : selectedType) {
-                for (Move realMove : this.moveControl.getFilteredMoves(possible, this.currentMove + 1)) {
-                    if (this.moveControl.areEqualPositions(realMove.getPosition(), target)) {
-                        possibleMoved.add(possible);
-                        break;
-                    }
+            for (long squares = this.board.getSquares(this.currentColor, piece.getType()); squares != 0L; squares &= squares - 1) {
+                Piece possible = this.board.getPiece(Long.numberOfTrailingZeros(squares));
+                if (this.moveControl.canMoveTo(possible, target, this.currentMove + 1)) {
+                    possibleMoved.add(possible);
                 }
             }
             Position source = new Position(File.A, Rank.ONE);
@@ -249,7 +246,6 @@ public class PGNBrowser {
                 Empty.class.equals(this.board.getPiece(target).getClass())
             ) {
                 Position enPassant = new Position(target.getFile(), Color.WHITE.equals(piece.getColor()) ? target.getRank().getPrevious() : target.getRank().getNext());
-                this.board.putPiece(new Empty(enPassant), enPassant.getFile(), enPassant.getRank());
                 this.view.getBoard().removePiece(enPassant.getFile(), enPassant.getRank());
                 sb.append(" - en passant");
             }
@@ -259,7 +255,7 @@ public class PGNBrowser {
             // apply decoded move
             Position tempSrc = new Position(source.getFile(), source.getRank());
             Position tempTgt = new Position(target.getFile(), target.getRank());
-            this.board.movePiece(new Position(source.getFile(), source.getRank()), new Position(target.getFile(), target.getRank()), this.currentMove + 1);
+            this.board.movePiece(new Position(source.getFile(), source.getRank()), new Position(target.getFile(), target.getRank()));
             this.view.getBoard().movePiece(
                 this.board.getPiece(tempSrc).getIcon(),
                 tempSrc,
@@ -384,29 +380,17 @@ public class PGNBrowser {
     }
 
     /**
-     * Creats board from fen notation
+     * Creats board from fen notation, castling rights, en passant square and
+     * move counters are taken from the fen as well
      * @param fen String in fen notation
      */
     private void fillBoard(String fen) {
-        File file = File.A;
-        Rank rank = Rank.EIGHT;
-        for (char c : fen.toCharArray()) {
-            if (c == '/') {
-                file = File.A;
-                rank = rank.getPrevious();
-                continue;
-            }
-            if (c >= '1' && c <= '8') {
-                for (int i = 0; i < c - '0'; i++) {
-                    this.board.putPieceInitial(new Empty(new Position(file, rank)));
-                    this.view.getBoard().putPieceIcon(this.board.getPiece(file, rank).getIcon(), file, rank);
-                    file = file.getNext();
-                }
-                continue;
+        this.board.setPosition(fen);
+        this.currentColor = this.board.getSideToMove();
+        for (Rank rank : Rank.VALUES) {
+            for (File file : File.VALUES) {
+                this.view.getBoard().putPieceIcon(this.board.getPiece(file, rank).getIcon(), file, rank);
             }
-            this.board.putPieceInitial(this.decodePiece(c, file, rank));
-            this.view.getBoard().putPieceIcon(this.board.getPiece(file, rank).getIcon(), file, rank);
-            file = file.getNext();
         }
         this.view.setStatus("Start of game");
     }
@@ -423,12 +407,9 @@ public class PGNBrowser {
             }
             // create board
             if (this.custom && this.fen != null) {
-                String[] temp = this.fen.split(" ");
-                this.fillBoard(temp[0]);
-                this.currentColor = "b".equals(temp[1]) ? Color.BLACK : Color.WHITE;
+                this.fillBoard(this.fen);
             } else if (!this.custom) {
-                this.fillBoard("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR");
-                this.currentColor = Color.WHITE;
+                this.fillBoard(Fen.STANDARD);
             } else {
                 throw new IllegalArgumentException("No FEN present");
             }
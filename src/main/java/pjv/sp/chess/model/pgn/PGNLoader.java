@@ -3,6 +3,7 @@ package pjv.sp.chess.model.pgn;
 import pjv.sp.chess.model.Game;
 import pjv.sp.chess.model.Result;
 import pjv.sp.chess.model.board.Board;
+import pjv.sp.chess.model.board.Fen;
 import pjv.sp.chess.model.board.MoveControl;
 import pjv.sp.chess.model.board.Rank;
 import pjv.sp.chess.model.pieces.Bishop;
@@ -10,7 +11,6 @@ import pjv.sp.chess.model.pieces.Color;
 import pjv.sp.chess.model.pieces.Empty;
 import pjv.sp.chess.model.pieces.King;
 import pjv.sp.chess.model.pieces.Knight;
-import pjv.sp.chess.model.pieces.Move;
 import pjv.sp.chess.model.pieces.Pawn;
 import pjv.sp.chess.model.pieces.Piece;
 import pjv.sp.chess.model.pieces.Position;
@@ -112,11 +112,6 @@ public class PGNLoader {
      */
     private String result;
 
-    /**
-     * Array that holds movements of rooks and kings
-     */
-    private boolean[][] moved = new boolean[3][2];
-
     /**
      * Creates new PGNLoader object
      * @param file file from data are loaded
@@ -129,27 +124,11 @@ public class PGNLoader {
         this.fen = null;
         this.processFile();
         this.currentMove = 0;
-        for (int i = 0; i < 3; i++) {
-            for (int n = 0; n < 2; n++) {
-                this.moved[i][n] = false;
-            }
-        }
         while (this.hasNextMove()) {
             this.nextMove();
         }
     }
 
-    /**
-     * Gets array in format
-     * [whiteRookA][whiteRookH]
-     * [blackRookA][blackRookH]
-     * [whiteKing][blackKing]
-     * @return Arra that holds information about kings and 
-     */
-    public boolean[][] getMovedForCastling() {
-        return this.moved;
-    }
-
     /**
      * Gets result of the game
      * @return Result object
@@ -238,21 +217,10 @@ public class PGNLoader {
         int index = 0;
         if (PGNTag.isKingsideCastling(this.moves.get(this.currentMove)) || PGNTag.isQueensideCastling(this.moves.get(this.currentMove))) {
             Rank rank = Color.WHITE.equals(this.currentColor) ? Rank.ONE : Rank.EIGHT;
-            Position king = new Position(File.E, rank);;
-            Position rook;
-            Position newKing;
-            Position newRook;
-            if (PGNTag.isKingsideCastling(this.moves.get(this.currentMove))) {
-                rook = new Position(File.H, rank);
-                newKing = new Position(File.G, rank);
-                newRook = new Position(File.F, rank);
-            } else {
-                rook = new Position(File.A, rank);
-                newKing = new Position(File.C, rank);
-                newRook = new Position(File.D, rank);
-            }
-            this.board.movePiece(king, newKing, this.currentMove + 1);
-            this.board.movePiece(rook, newRook, this.currentMove + 1);
+            Position king = new Position(File.E, rank);
+            Position newKing = new Position(PGNTag.isKingsideCastling(this.moves.get(this.currentMove)) ? File.G : File.C, rank);
+            // the rook is moved by the board together with the king
+            this.board.movePiece(king, newKing);
         } else {
             char[] move = this.moves.get(this.currentMove).toCharArray();
             int size = move.length;
@@ -307,14 +275,11 @@ public class PGNLoader {
             } else {
                 target = new Position(tgtFile, tgtRank);
             }
-            List<Piece> selectedType = this.board.getPiecesOfType(piece, this.board.getPieces(this.currentColor));
             List<Piece> possibleMoved = new ArrayList<>();
-            for (Piece possible : selectedType) {
-                for (Move realMove : this.moveControl.getFilteredMoves(possible, this.currentMove + 1)) {
-                    if (this.moveControl.areEqualPositions(realMove.getPosition(), target)) {
-                        possibleMoved.add(possible);
-                        break;
-                    }
+            for (long squares = this.board.getSquares(this.currentColor, piece.getType()); squares != 0L; squares &= squares - 1) {
+                Piece possible = this.board.getPiece(Long.numberOfTrailingZeros(squares));
+                if (this.moveControl.canMoveTo(possible, target, this.currentMove + 1)) {
+                    possibleMoved.add(possible);
                 }
             }
             Position source = new Position(File.A, Rank.ONE);
@@ -339,24 +304,8 @@ public class PGNLoader {
                     source = possibleMoved.get(0).getPosition();
                 }
             }
-            if (Rook.class.equals(piece.getClass())) {
-                if (File.A.equals(source.getFile())) {
-                    this.moved[piece.getColor().getIndex()][0] = true;
-                } else if (File.H.equals(source.getFile())) {
-                    this.moved[piece.getColor().getIndex()][1] = true;
-                }
-            } else if (King.class.equals(piece.getClass())) {
-                this.moved[2][piece.getColor().getIndex()] = true;
-            }
-            if (
-                Pawn.class.equals(piece.getClass()) &&
-                !source.getFile().equals(target.getFile()) &&
-                Empty.class.equals(this.board.getPiece(target).getClass())
-            ) {
-                Position enPassant = new Position(target.getFile(), Color.WHITE.equals(piece.getColor()) ? target.getRank().getPrevious() : target.getRank().getNext());
-                this.board.putPiece(new Empty(enPassant), enPassant.getFile(), enPassant.getRank());
-            }
-            this.board.movePiece(new Position(source.getFile(), source.getRank()), new Position(target.getFile(), target.getRank()), this.currentMove + 1);
+            // castling rights, en passant and clocks are updated by the board
+            this.board.movePiece(new Position(source.getFile(), source.getRank()), new Position(target.getFile(), target.getRank()));
             if (promotion) {
                 Piece promoPiece = this.decodePiece(Color.BLACK.equals(this.currentColor) ? Character.toLowerCase(promoted) : Character.toUpperCase(promoted), target.getFile(), target.getRank());
                 this.board.putPiece(promoPiece, target.getFile(), target.getRank());
@@ -454,28 +403,13 @@ public class PGNLoader {
     }
 
     /**
-     * Creats board from fen notation
+     * Creats board from fen notation, castling rights, en passant square and
+     * move counters are taken from the fen as well
      * @param fen String in fen notation
      */
     private void fillBoard(String fen) {
-        File file = File.A;
-        Rank rank = Rank.EIGHT;
-        for (char c : fen.toCharArray()) {
-            if (c == '/') {
-                file = File.A;
-                rank = rank.getPrevious();
-                continue;
-            }
-            if (c >= '1' && c <= '8') {
-                for (int i = 0; i < c - '0'; i++) {
-                    this.board.putPieceInitial(new Empty(new Position(file, rank)));
-                    file = file.getNext();
-                }
-                continue;
-            }
-            this.board.putPieceInitial(this.decodePiece(c, file, rank));
-            file = file.getNext();
-        }
+        this.board.setPosition(fen);
+        this.currentColor = this.board.getSideToMove();
     }
 
     /**
@@ -488,12 +422,9 @@ public class PGNLoader {
                 this.decodeTag(line);
             }
             if (this.custom && this.fen != null) {
-                String[] temp = this.fen.split(" ");
-                this.fillBoard(temp[0]);
-                this.currentColor = "b".equals(temp[1]) ? Color.BLACK : Color.WHITE;
+                this.fillBoard(this.fen);
             } else if (!this.custom) {
-                this.fillBoard("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR");
-                this.currentColor = Color.WHITE;
+                this.fillBoard(Fen.STANDARD);
             } else {
                 throw new IllegalArgumentException("No FEN present");
             }
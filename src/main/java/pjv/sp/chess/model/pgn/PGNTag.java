@@ -7,7 +7,6 @@ import pjv.sp.chess.model.board.File;
 import pjv.sp.chess.model.board.Rank;
 import pjv.sp.chess.model.pieces.Bishop;
 import pjv.sp.chess.model.pieces.Color;
-import pjv.sp.chess.model.pieces.Empty;
 import pjv.sp.chess.model.pieces.King;
 import pjv.sp.chess.model.pieces.Knight;
 import pjv.sp.chess.model.pieces.MoveType;
@@ -19,7 +18,6 @@ import pjv.sp.chess.model.pieces.Rook;
 import pjv.sp.chess.model.player.Player;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -228,43 +226,13 @@ public class PGNTag {
     }
 
     /**
-     * Creates fen value string
+     * Creates fen value string including state of the position (side to move,
+     * castling rights, en passant square and move counters)
      * @param board Board to create fen from
      * @return fen tag value in proper formating
      */
     public static String formatFEN(Board board) {
-        StringBuilder sb = new StringBuilder();
-        int blank;
-        char pieceChar;
-        int ranks = 0;
-        for (List<Piece> row : board.getBoard()) {
-            ranks++;
-            blank = 0;
-            for (Piece piece : row) {
-                if (Empty.class.equals(piece.getClass())) {
-                    blank++;
-                } else {
-                    if (blank > 0) {
-                        sb.append(blank);
-                        blank = 0;
-                    }
-                    pieceChar = PGNTag.SAN_PIECES.get(piece.getClass());
-                    if (Color.BLACK.equals(piece.getColor())) {
-                        pieceChar = Character.toLowerCase(pieceChar);
-                    }
-                    sb.append(pieceChar);
-                }
-            }
-            if (blank > 0) {
-                sb.append(blank);
-            }
-            blank = 0;
-            if (ranks < board.getBoard().size()) {
-                sb.append("/");
-            }
-        }
-        sb.append(" w - - 0 1");
-        return sb.toString();
+        return board.getFen();
     }
 
     /**
@@ -42,4 +42,13 @@ public class Bishop extends Piece {
         this.moves.add(MoveVector.SOUTH_EAST);
         this.moves.add(MoveVector.SOUTH_WEST);
     }
+
+    /**
+     * Gets type of this piece
+     * @return PieceType.BISHOP
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.BISHOP;
+    }
 }
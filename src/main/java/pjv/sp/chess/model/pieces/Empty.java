@@ -37,4 +37,13 @@ public class Empty extends Piece {
     public void generateMoves() {
         this.moves.add(MoveVector.EMPTY);
     }
+
+    /**
+     * Gets type of this piece
+     * @return PieceType.EMPTY
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.EMPTY;
+    }
 }
@@ -46,4 +46,13 @@ public class King extends Piece {
         this.moves.add(MoveVector.EAST);
         this.moves.add(MoveVector.WEST);
     }
+
+    /**
+     * Gets type of this piece
+     * @return PieceType.KING
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.KING;
+    }
 }
@@ -46,4 +46,13 @@ public class Knight extends Piece {
         this.moves.add(MoveVector.KNIGHT_SWW);
         this.moves.add(MoveVector.KNIGHT_NWW);
     }
+
+    /**
+     * Gets type of this piece
+     * @return PieceType.KNIGHT
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.KNIGHT;
+    }
 }
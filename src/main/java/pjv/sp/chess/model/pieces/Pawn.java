@@ -48,4 +48,13 @@ public class Pawn extends Piece {
     protected void generateMoves() {
         this.moves.add(MoveVector.NORTH);
     }
+
+    /**
+     * Gets type of this piece
+     * @return PieceType.PAWN
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.PAWN;
+    }
 }
@@ -69,16 +69,6 @@ public abstract class Piece {
      */
     protected Image icon;
 
-    /**
-     * Boolean value whether the piece was moved or is on it's initial position
-     */
-    protected boolean wasMoved;
-
-    /**
-     * Field that saves round of the game when the piece performed double step (for Pawn)
-     */
-    protected int doubleStep;
-
     /**
      * Creates new Piece object
      * @param color Color of the new piece
@@ -93,10 +83,7 @@ public abstract class Piece {
         this.position = position;
         this.isMoveScalable = isMoveScalable;
         this.hasDifferentTake = hasDifferentTake;
-        this.wasMoved = false;
-        this.doubleStep = 0;
         this.generateMoves();
-        this.loadIcon();
     }
 
     /**
@@ -109,6 +96,13 @@ public abstract class Piece {
      */
     protected abstract void loadIcon();
 
+    /**
+     * Gets type of the piece used to index bitboards
+     * @return PieceType of this piece
+     * @see PieceType
+     */
+    public abstract PieceType getType();
+
     /**
      * Gets list of MoveVectors used to take other pieces
      * @return List of MoveVector objects to take pieces
@@ -119,10 +113,14 @@ public abstract class Piece {
     }
 
     /**
-     * Gets icon of the piece
+     * Gets icon of the piece. The icon is loaded on first request, so pieces
+     * can be created and moved around the board without the graphics toolkit.
      * @return Image object that contains the icon
      */
     public Image getIcon() {
+        if (this.icon == null) {
+            this.loadIcon();
+        }
         return this.icon;
     }
 
@@ -168,42 +166,4 @@ public abstract class Piece {
     public Position getPosition() {
         return this.position;
     }
-
-    /**
-     * Gives information if piece moved from its original position
-     * @return true if it was moved at least once, false if it was not moved
-     */
-    public boolean hasMoved() {
-        return this.wasMoved;
-    }
-
-    /**
-     * Saves information that piece was moved at least once
-     */
-    public void setMoved() {
-        this.wasMoved = true;
-    }
-
-    /**
-     * Save information that piece was not moved once
-     */
-    public void setNotMoved() {
-        this.wasMoved = false;
-    }
-
-    /**
-     * Gets number of move of the game when double step was conducted (used for Pawn only)
-     * @return value of the doubleStep property
-     */
-    public int getDoubleStep() {
-        return this.doubleStep;
-    }
-
-    /**
-     * Saves move number of the game when double step occurred
-     * @param round number of the move of the game
-     */
-    public void setDoubleStep(int round) {
-        this.doubleStep = round;
-    }
 }
@@ -0,0 +1,101 @@
+package pjv.sp.chess.model.pieces;
+
+/**
+ * PieceType enum lists types of pieces that can be placed on the board. Indexes
+ * mirror the order of Piece.pieceClasses and are used to index bitboards and
+ * other arrays of piece types.
+ * @author Jakub Rada
+ * @version 1.0
+ */
+public enum PieceType {
+
+    /**
+     * Pawn piece type
+     */
+    PAWN(0, 'P'),
+
+    /**
+     * Rook piece type
+     */
+    ROOK(1, 'R'),
+
+    /**
+     * Knight piece type
+     */
+    KNIGHT(2, 'N'),
+
+    /**
+     * Bishop piece type
+     */
+    BISHOP(3, 'B'),
+
+    /**
+     * Queen piece type
+     */
+    QUEEN(4, 'Q'),
+
+    /**
+     * King piece type
+     */
+    KING(5, 'K'),
+
+    /**
+     * Type of empty squares
+     */
+    EMPTY(6, ' ');
+
+    /**
+     * Number of real piece types (Empty does not count)
+     */
+    public static final int COUNT = 6;
+
+    /**
+     * Static array that holds all PieceType items to avoid copying on each use
+     */
+    public static final PieceType[] VALUES = PieceType.values();
+
+    /**
+     * Index of the type used for indexing arrays of pieces
+     */
+    private final int index;
+
+    /**
+     * Character of the type in SAN notation (upper case)
+     */
+    private final char label;
+
+    /**
+     * Creates new item for the enum
+     * @param index index with which pieces of this type will be indexed in arrays
+     * @param label SAN character of the piece type
+     */
+    private PieceType(int index, char label) {
+        this.index = index;
+        this.label = label;
+    }
+
+    /**
+     * Gets index of the type to index arrays of pieces
+     * @return unique number of the type (0-6)
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Gets SAN character of the type
+     * @return upper case character of the type
+     */
+    public char getLabel() {
+        return this.label;
+    }
+
+    /**
+     * Gets item from the enum that has passed index
+     * @param index index of the type (0-6)
+     * @return PieceType with passed index
+     */
+    public static PieceType getTypeOfIndex(int index) {
+        return PieceType.VALUES[index];
+    }
+}
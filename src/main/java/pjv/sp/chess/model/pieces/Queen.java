@@ -46,4 +46,13 @@ public class Queen extends Piece {
         this.moves.add(MoveVector.EAST);
         this.moves.add(MoveVector.WEST);
     }
+
+    /**
+     * Gets type of this piece
+     * @return PieceType.QUEEN
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.QUEEN;
+    }
 }
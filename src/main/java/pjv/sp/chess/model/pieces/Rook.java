@@ -41,4 +41,13 @@ public class Rook extends Piece {
         this.moves.add(MoveVector.SOUTH);
         this.moves.add(MoveVector.WEST);
     }
+
+    /**
+     * Gets type of this piece
+     * @return PieceType.ROOK
+     */
+    @Override
+    public PieceType getType() {
+        return PieceType.ROOK;
+    }
 }
@@ -1,26 +1,52 @@
 package pjv.sp.chess.model.player;
 
 import pjv.sp.chess.model.Game;
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Fen;
+import pjv.sp.chess.model.board.MoveControl;
+import pjv.sp.chess.model.board.MoveList;
+import pjv.sp.chess.model.board.PackedMove;
 import pjv.sp.chess.model.pieces.Color;
-import pjv.sp.chess.model.pieces.Move;
-import pjv.sp.chess.model.pieces.Piece;
+import pjv.sp.chess.model.search.ParallelSearch;
+import pjv.sp.chess.model.search.SearchLimits;
+import pjv.sp.chess.model.search.SearchResult;
+import pjv.sp.chess.model.search.TranspositionTable;
+import pjv.sp.chess.model.settings.Settings;
 
-import java.util.List;
-import java.util.Random;
+import java.util.function.IntSupplier;
+import java.util.logging.Logger;
 
 /**
  * ComputerPlayer is extension of player that from passed game returns next move
- * to make with pieces of his color. This one makes random valid moves.
+ * to make with pieces of his color. The move is found by ParallelSearch on a copy of
+ * the position, so the Board of the game is not changed while the computer thinks.
+ * Number of threads comes from Settings, the transposition table is kept between
+ * moves of the game. The state of the game is copied by prepareSearch on the thread
+ * that owns the game, so the search itself can run on another thread.
+ * Unless limits are passed, time of one move is planned from the time remaining on the clock.
  * @author Jakub Rada
  * @version 1.0
  * @see Player
+ * @see ParallelSearch
  */
 public class ComputerPlayer extends Player {
 
+    private static final Logger LOG = Logger.getLogger(ComputerPlayer.class.getName());
+
+    /**
+     * Size of the transposition table in megabytes
+     */
+    private static final int TABLE_SIZE = 32;
+
+    /**
+     * Limits of each search or null to use time of the selected game length
+     */
+    private final SearchLimits limits;
+
     /**
-     * Randomizer to chooes random values
+     * Table of searched positions, created with the first search
      */
-    private final Random random = new Random();
+    private TranspositionTable table;
 
     /**
      * Create new CompuerPlayer object
@@ -30,28 +56,81 @@ public class ComputerPlayer extends Player {
      * @see Color
      */
     public ComputerPlayer(String name, String surname, Color color) {
+        this(name, surname, color, null);
+    }
+
+    /**
+     * Create new CompuerPlayer object with fixed limits of the search
+     * @param name Name of the player
+     * @param surname Surname of the player
+     * @param color Color of the player
+     * @param limits limits of each search or null to use time of the selected game length
+     * @see Color
+     * @see SearchLimits
+     */
+    public ComputerPlayer(String name, String surname, Color color, SearchLimits limits) {
         super(name, surname, color, true);
+        this.limits = limits;
     }
 
     /**
-     * Gets CompleteMove object that contains piece and move to be performed on the board
+     * Gets CompleteMove object that contains piece and move to be performed on the board,
+     * the search runs on the calling thread and plans with the full time of the selected game length
      * @param game Game to select move from
      */
     @Override
     public CompleteMove getCompleteMove(Game game) {
-        List<Piece> pieces = game.getPiecesOfColor(this.color);
-        int randomIndex;
-        Piece piece;
-        int moveCount = 0;
-        List<Move> moves;
-        do {
-            randomIndex = this.random.nextInt(pieces.size());
-            piece = pieces.get(randomIndex);
-            moves = game.getMoves(piece);
-            moveCount = moves.size();
-        } while (moveCount == 0);
-        randomIndex = this.random.nextInt(moves.size());
-        return new CompleteMove(piece, moves.get(randomIndex));
+        return this.toCompleteMove(game, this.prepareSearch(game, Settings.getInstance().getLengthSettings() * 1000L).getAsInt());
+    }
+
+    /**
+     * Takes copies of everything the search needs from the game (position, keys of the previous
+     * positions and a legal move to play when the search finds none), it has to be called on the
+     * thread that owns the game. The returned search touches only the copies, so it can run on
+     * another thread while the game goes on.
+     * @param game Game to select move from
+     * @param remaining time remaining on the clock of the player in milliseconds
+     * @return search that returns packed move to play or PackedMove.NONE when there is no legal move
+     */
+    public IntSupplier prepareSearch(Game game, long remaining) {
+        BitBoard bitBoard = Fen.parse(game.getChessBoard().getFen());
+        long[] history = game.getKeyHistory();
+        MoveList legalMoves = game.getLegalMoves();
+        int fallback = legalMoves.isEmpty() ? PackedMove.NONE : legalMoves.get(0);
+        // game lengths have no increment
+        SearchLimits searchLimits = this.limits != null ? this.limits : SearchLimits.ofClock(remaining, 0);
+        int threads = Settings.getInstance().getSearchThreads();
+        return () -> this.search(bitBoard, history, fallback, searchLimits, threads);
+    }
+
+    /**
+     * Creates CompleteMove of a packed move from the pieces of the game
+     * @param game Game the move was searched in
+     * @param move packed move returned by the search
+     * @return CompleteMove with the moved piece
+     */
+    public CompleteMove toCompleteMove(Game game, int move) {
+        return new CompleteMove(game.getChessBoard().getPiece(PackedMove.getFrom(move)), MoveControl.toMove(move));
+    }
+
+    /**
+     * Searches copy of the position of the game
+     * @param bitBoard copy of the position
+     * @param history copy of keys of the positions since the last irreversible move
+     * @param fallback legal move played when the search finds none
+     * @param searchLimits limits of the search
+     * @param threads number of threads of the search
+     * @return packed move to play
+     */
+    private int search(BitBoard bitBoard, long[] history, int fallback, SearchLimits searchLimits, int threads) {
+        if (this.table == null) {
+            this.table = new TranspositionTable(ComputerPlayer.TABLE_SIZE);
+        }
+        SearchResult result = new ParallelSearch(bitBoard, history, this.table, threads).search(searchLimits);
+        ComputerPlayer.LOG.info(String.format("%s computer plays %s, table hits %.1f %%, filled %.1f %%", this.color.getLabel(), result,
+            100 * this.table.getHitRate(), 100 * this.table.getFillRate()));
+        // the game should have ended already when there is no move, the fallback is played then
+        return result.getMove() == PackedMove.NONE ? fallback : result.getMove();
     }
 
-}
\ No newline at end of file
+}
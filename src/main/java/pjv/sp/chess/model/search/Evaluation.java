@@ -0,0 +1,93 @@
+package pjv.sp.chess.model.search;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Material;
+import pjv.sp.chess.model.board.PieceSquareTables;
+
+/**
+ * Evaluation scores positions at the leaves of the search. The score is material
+ * and piece-square bonuses of both colors from the point of view of the side to
+ * move, tapered between the middlegame and the endgame score by the phase of the
+ * game (the more pieces are left, the more the middlegame score counts).
+ * BitBoard keeps both scores and the phase up to date with every move, so the
+ * evaluation itself costs a few operations. In debug mode (switched on by setDebug
+ * or by system property chess.evaluation.debug) every evaluation is checked
+ * against scores computed from scratch.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see Search
+ * @see PieceSquareTables
+ */
+public final class Evaluation {
+
+    /**
+     * If incremental scores are checked against scores computed from scratch
+     */
+    private static volatile boolean debug = Boolean.getBoolean("chess.evaluation.debug");
+
+    /**
+     * Evaluation is only a holder of static utilities
+     */
+    private Evaluation() {
+    }
+
+    /**
+     * Evaluates the position of passed board from its incrementally updated scores
+     * @param bitBoard BitBoard with the position
+     * @return score in centipawns, positive when the side to move is better
+     * @throws IllegalStateException in debug mode when the incremental score is wrong
+     */
+    public static int evaluate(BitBoard bitBoard) {
+        int score = Evaluation.taper(bitBoard.getMiddlegame(), bitBoard.getEndgame(), bitBoard.getMaterial().getPhase());
+        if (Evaluation.debug) {
+            int full = Evaluation.evaluateFull(bitBoard);
+            int expected = bitBoard.getSideToMove() == BitBoard.WHITE ? full : -full;
+            if (score != expected) {
+                throw new IllegalStateException(String.format("Incremental score %d differs from full score %d", score, expected));
+            }
+        }
+        return bitBoard.getSideToMove() == BitBoard.WHITE ? score : -score;
+    }
+
+    /**
+     * Evaluates the position of passed board from scratch, pieces and phase are counted again
+     * @param bitBoard BitBoard with the position
+     * @return score in centipawns, positive when the side to move is better
+     */
+    public static int evaluateFull(BitBoard bitBoard) {
+        int phase = 0;
+        for (int color = 0; color < 2; color++) {
+            phase += Long.bitCount(bitBoard.getPieces(color, BitBoard.KNIGHT)) + Long.bitCount(bitBoard.getPieces(color, BitBoard.BISHOP))
+                + 2 * Long.bitCount(bitBoard.getPieces(color, BitBoard.ROOK)) + 4 * Long.bitCount(bitBoard.getPieces(color, BitBoard.QUEEN));
+        }
+        int score = Evaluation.taper(bitBoard.computeMiddlegame(), bitBoard.computeEndgame(), Math.min(phase, Material.MAX_PHASE));
+        return bitBoard.getSideToMove() == BitBoard.WHITE ? score : -score;
+    }
+
+    /**
+     * Blends middlegame and endgame score by the phase
+     * @param middlegame middlegame score
+     * @param endgame endgame score
+     * @param phase phase from 0 (endgame) to Material.MAX_PHASE (middlegame)
+     * @return tapered score
+     */
+    private static int taper(int middlegame, int endgame, int phase) {
+        return (middlegame * phase + endgame * (Material.MAX_PHASE - phase)) / Material.MAX_PHASE;
+    }
+
+    /**
+     * Switches checks of incremental scores against scores computed from scratch
+     * @param debug boolean value if each evaluation is checked
+     */
+    public static void setDebug(boolean debug) {
+        Evaluation.debug = debug;
+    }
+
+    /**
+     * Gets if incremental scores are checked
+     * @return value of the debug property
+     */
+    public static boolean isDebug() {
+        return Evaluation.debug;
+    }
+}
@@ -0,0 +1,124 @@
+package pjv.sp.chess.model.search;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Fen;
+import pjv.sp.chess.model.board.PackedMove;
+
+/**
+ * ParallelSearch searches one position on more threads by Lazy SMP. Every thread
+ * runs its own Search of the same root on its own copy of the board, all of them
+ * share one TranspositionTable. Helper threads skip some iterations, so they
+ * search other depths than the main thread and their killers and best moves differ,
+ * results stored by any thread cut off and order the searches of the others.
+ * The main thread runs on the calling thread and decides when the search ends,
+ * the helpers are stopped after it. The move of the thread that completed
+ * the deepest iteration is played, the main thread wins ties.
+ * Limits of time and depth hold for the whole search, limit of nodes for each thread.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see Search
+ * @see TranspositionTable
+ */
+public class ParallelSearch {
+
+    /**
+     * Searches of all threads, the main search first
+     */
+    private final Search[] searches;
+
+    /**
+     * Table of searched positions shared by all threads
+     */
+    private final TranspositionTable table;
+
+    /**
+     * Creates new parallel search of the position of passed board
+     * @param bitBoard copy of the position of the game, it is used by the main thread
+     * @param history keys of positions of the game since the last irreversible move
+     *                ending with the current position (may be empty)
+     * @param table table of searched positions shared by all threads
+     * @param threads number of threads (at least 1)
+     * @throws IllegalArgumentException when number of threads is not positive
+     */
+    public ParallelSearch(BitBoard bitBoard, long[] history, TranspositionTable table, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads has to be positive: " + threads);
+        }
+        this.table = table;
+        this.searches = new Search[threads];
+        String fen = Fen.format(bitBoard);
+        for (int i = 0; i < threads; i++) {
+            this.searches[i] = new Search(i == 0 ? bitBoard : Fen.parse(fen), history, table, i);
+        }
+    }
+
+    /**
+     * Searches the position on all threads until a limit is reached
+     * @param limits limits of depth, time and nodes
+     * @return best move with its score, the deepest completed iteration and nodes of all threads
+     */
+    public SearchResult search(SearchLimits limits) {
+        long start = System.nanoTime();
+        this.table.newSearch();
+        for (Search search : this.searches) {
+            search.restart();
+        }
+        SearchResult[] results = new SearchResult[this.searches.length];
+        Thread[] helpers = new Thread[this.searches.length - 1];
+        for (int i = 1; i < this.searches.length; i++) {
+            int id = i;
+            helpers[i - 1] = new Thread(() -> results[id] = this.searches[id].iterate(limits, start), "search-helper-" + id);
+            helpers[i - 1].setDaemon(true);
+            helpers[i - 1].start();
+        }
+        results[0] = this.searches[0].iterate(limits, start);
+        for (int i = 1; i < this.searches.length; i++) {
+            this.searches[i].stop();
+        }
+        try {
+            for (Thread helper : helpers) {
+                helper.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        SearchResult best = results[0];
+        long nodes = 0;
+        for (SearchResult result : results) {
+            if (result == null) {
+                continue;
+            }
+            nodes += result.getNodes();
+            if (result.getDepth() > best.getDepth() && result.getMove() != PackedMove.NONE) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.getMove(), best.getScore(), best.getDepth(), nodes, (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    /**
+     * Stops all threads of running search, it returns the best move found so far
+     * (can be called from other threads)
+     */
+    public void stop() {
+        for (Search search : this.searches) {
+            search.stop();
+        }
+    }
+
+    /**
+     * Gets number of threads of the search
+     * @return number of searches running at once
+     */
+    public int getThreads() {
+        return this.searches.length;
+    }
+
+    /**
+     * Gets table of searched positions
+     * @return value of the table property
+     */
+    public TranspositionTable getTable() {
+        return this.table;
+    }
+}
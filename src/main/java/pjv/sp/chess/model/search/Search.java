@@ -0,0 +1,593 @@
+package pjv.sp.chess.model.search;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Board;
+import pjv.sp.chess.model.board.MoveHistory;
+import pjv.sp.chess.model.board.MoveList;
+import pjv.sp.chess.model.board.MovePicker;
+import pjv.sp.chess.model.board.PackedMove;
+
+import java.util.Arrays;
+
+/**
+ * Search finds the best move of a position by negamax alpha-beta search with
+ * iterative deepening. Depth 1 is searched first, then 2 and so on until
+ * a limit of depth, time or nodes is reached, the best move of the previous
+ * iteration is tried first in the next one. When a limit is reached during
+ * an iteration, the best move found so far is returned.
+ * The search plays moves on its own BitBoard, which has to be a copy of the
+ * position of the game, moves come from MovePickers. Repetition of a position
+ * of the game or of the searched line and the fifty-move rule score as a draw.
+ * Quiet moves that cause cutoff become killers of their ply, countermoves of the
+ * previous move and gain history score, so the pickers try them early.
+ * Results of searched positions are kept in a TranspositionTable, their best
+ * moves are tried first and their scores end the search of the position when
+ * they were searched deep enough. At the end of each line captures and promotions
+ * are searched until the position is quiet (quiescence search), so the evaluation
+ * does not stop in the middle of an exchange. More searches can share one table and run
+ * on more threads, see ParallelSearch.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see MovePicker
+ * @see Evaluation
+ * @see TranspositionTable
+ * @see ParallelSearch
+ */
+public class Search {
+
+    /**
+     * Maximal depth of an iteration
+     */
+    public static final int MAX_DEPTH = 64;
+
+    /**
+     * Score of checkmate in the root position, mates further away score less
+     */
+    public static final int MATE = 32000;
+
+    /**
+     * Scores above this bound are mates
+     */
+    public static final int MATE_BOUND = Search.MATE - 2 * Search.MAX_DEPTH;
+
+    /**
+     * Size of the transposition table in megabytes when no table is passed
+     */
+    public static final int DEFAULT_TABLE_SIZE = 16;
+
+    /**
+     * Maximal distance from the root (iterations plus check extensions)
+     */
+    private static final int MAX_PLY = 2 * Search.MAX_DEPTH;
+
+    /**
+     * Limits are checked after each this number of nodes (mask of the node counter)
+     */
+    private static final long CHECK_INTERVAL = 1023;
+
+    /**
+     * Captures that cannot raise the score to alpha even with this margin are not searched
+     * in quiescence (delta pruning)
+     */
+    private static final int DELTA_MARGIN = 200;
+
+    /**
+     * Helper threads skip iterations in cycles of this length (indexed by number of the helper)
+     */
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+
+    /**
+     * Shift of the cycle of skipped iterations of each helper
+     */
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    /**
+     * BitBoard where the moves are played
+     */
+    private final BitBoard bitBoard;
+
+    /**
+     * Move pickers of each ply
+     */
+    private final MovePicker[] pickers;
+
+    /**
+     * Table of searched positions
+     */
+    private final TranspositionTable table;
+
+    /**
+     * Number of the thread in parallel search, 0 for the main search
+     */
+    private final int id;
+
+    /**
+     * Two killer moves of each ply (quiet moves that caused cutoff)
+     */
+    private final int[][] killers = new int[Search.MAX_PLY][2];
+
+    /**
+     * History scores and countermoves of quiet moves
+     */
+    private final MoveHistory history = new MoveHistory();
+
+    /**
+     * Moves of the searched line at each ply
+     */
+    private final int[] line = new int[Search.MAX_PLY + 1];
+
+    /**
+     * Quiet moves searched at each ply of the line that did not cause cutoff
+     */
+    private final int[][] quiets = new int[Search.MAX_PLY][MoveList.CAPACITY];
+
+    /**
+     * Keys of positions of the game since the last irreversible move followed by
+     * keys of the searched line, the current position is the last one
+     */
+    private long[] keys;
+
+    /**
+     * Number of keys of the game before the root position
+     */
+    private final int rootKeys;
+
+    /**
+     * Number of keys in use
+     */
+    private int keysSize;
+
+    /**
+     * Number of searched nodes
+     */
+    private long nodes;
+
+    /**
+     * Limit of nodes of the current search or Long.MAX_VALUE
+     */
+    private long nodeLimit;
+
+    /**
+     * Time when the current search has to stop (System.nanoTime) or Long.MAX_VALUE
+     */
+    private long deadline;
+
+    /**
+     * If the current search was stopped by a limit or by stop()
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Depth of the running iteration, limits are not checked before the first one is done
+     */
+    private int rootDepth;
+
+    /**
+     * If quiescence search answers checks by all evasions instead of captures only
+     */
+    private boolean checkEvasions = true;
+
+    /**
+     * Creates new search of the position of passed board
+     * @param bitBoard copy of the position of the game, it is changed during the search and restored after it
+     * @param history keys of positions of the game since the last irreversible move
+     *                ending with the current position (may be empty)
+     */
+    public Search(BitBoard bitBoard, long[] history) {
+        this(bitBoard, history, new TranspositionTable(Search.DEFAULT_TABLE_SIZE));
+    }
+
+    /**
+     * Creates new search of the position of passed board that uses passed table
+     * @param bitBoard copy of the position of the game, it is changed during the search and restored after it
+     * @param history keys of positions of the game since the last irreversible move
+     *                ending with the current position (may be empty)
+     * @param table table of searched positions, it may be kept from earlier searches
+     */
+    public Search(BitBoard bitBoard, long[] history, TranspositionTable table) {
+        this(bitBoard, history, table, 0);
+    }
+
+    /**
+     * Creates new search that is one of the threads of parallel search
+     * @param bitBoard copy of the position of the game, it is changed during the search and restored after it
+     * @param history keys of positions of the game since the last irreversible move
+     *                ending with the current position (may be empty)
+     * @param table table of searched positions shared by all threads
+     * @param id number of the thread, helpers (not 0) skip some iterations
+     */
+    Search(BitBoard bitBoard, long[] history, TranspositionTable table, int id) {
+        this.bitBoard = bitBoard;
+        this.table = table;
+        this.id = id;
+        this.pickers = MovePicker.createStack(bitBoard, Search.MAX_PLY + 1, this.history);
+        this.keys = Arrays.copyOf(history, history.length + Search.MAX_PLY + 1);
+        this.rootKeys = history.length > 0 && history[history.length - 1] == bitBoard.getKey() ? history.length - 1 : history.length;
+    }
+
+    /**
+     * Searches the position until a limit is reached
+     * @param limits limits of depth, time and nodes
+     * @return best move with its score and statistics
+     */
+    public SearchResult search(SearchLimits limits) {
+        this.stopped = false;
+        this.table.newSearch();
+        return this.iterate(limits, System.nanoTime());
+    }
+
+    /**
+     * Deepens the search of the position until a limit is reached or the search is stopped,
+     * the table has to be prepared for the new search already
+     * @param limits limits of depth, time and nodes
+     * @param start System.nanoTime() when the search started, the time limit is counted from it
+     * @return best move with its score and statistics
+     */
+    SearchResult iterate(SearchLimits limits, long start) {
+        this.nodes = 0;
+        this.nodeLimit = limits.getNodes() > 0 ? limits.getNodes() : Long.MAX_VALUE;
+        this.deadline = limits.getMillis() > 0 ? start + limits.getMillis() * 1_000_000L : Long.MAX_VALUE;
+        for (int[] plyKillers : this.killers) {
+            Arrays.fill(plyKillers, PackedMove.NONE);
+        }
+        int bestMove = TranspositionTable.getMove(this.table.probe(this.bitBoard.getKey()));
+        int bestScore = 0;
+        int completed = 0;
+        for (int depth = 1; depth <= limits.getDepth(); depth++) {
+            if (this.isSkipped(depth)) {
+                continue;
+            }
+            this.rootDepth = depth;
+            int[] result = this.searchRoot(depth, bestMove);
+            if (result[0] != PackedMove.NONE || depth == 1) {
+                bestMove = result[0];
+                bestScore = result[1];
+            }
+            if (this.stopped) {
+                break;
+            }
+            completed = depth;
+            if (bestMove == PackedMove.NONE || Math.abs(bestScore) >= Search.MATE_BOUND) {
+                // no legal move or forced mate found, deeper search does not change the result
+                break;
+            }
+        }
+        return new SearchResult(bestMove, bestScore, completed, this.nodes, (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    /**
+     * Stops running search, it returns the best move found so far (can be called from other threads)
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Allows stopped search to run again
+     */
+    void restart() {
+        this.stopped = false;
+    }
+
+    /**
+     * Checks if the iteration is left out by this thread, so threads of parallel search
+     * work on different depths at once and fill the shared table with different positions
+     * @param depth depth of the iteration
+     * @return boolean value if the thread goes to the next depth right away
+     */
+    private boolean isSkipped(int depth) {
+        if (this.id == 0 || depth == 1) {
+            return false;
+        }
+        int index = (this.id - 1) % Search.SKIP_SIZE.length;
+        return ((depth + Search.SKIP_PHASE[index]) / Search.SKIP_SIZE[index]) % 2 != 0;
+    }
+
+    /**
+     * Searches moves of the root position, the best move of the previous iteration first
+     * @param depth depth of the iteration
+     * @param previous best move of the previous iteration or PackedMove.NONE
+     * @return array with the best move (PackedMove.NONE when no move was fully searched) and its score
+     */
+    private int[] searchRoot(int depth, int previous) {
+        MovePicker picker = this.pickers[0];
+        picker.init(previous, this.killers[0][0], this.killers[0][1]);
+        this.keysSize = this.rootKeys;
+        this.pushKey();
+        int alpha = -Search.MATE;
+        int bestMove = PackedMove.NONE;
+        int firstMove = PackedMove.NONE;
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            // moves leave the engine as Moves of pieces and the board promotes them to queens
+            if (PackedMove.isPromotion(move) && PackedMove.getPromotion(move) != BitBoard.QUEEN) {
+                continue;
+            }
+            if (firstMove == PackedMove.NONE) {
+                firstMove = move;
+            }
+            this.line[0] = move;
+            this.bitBoard.makeMove(move);
+            this.pushKey();
+            int score = -this.negamax(depth - 1, -Search.MATE, -alpha, 1);
+            this.keysSize--;
+            this.bitBoard.unmakeMove();
+            // score of a move whose search was stopped is not known
+            if (this.stopped) {
+                break;
+            }
+            if (score > alpha || bestMove == PackedMove.NONE) {
+                alpha = score;
+                bestMove = move;
+            }
+        }
+        if (bestMove == PackedMove.NONE && firstMove != PackedMove.NONE && depth == 1) {
+            // the first iteration was stopped from outside before any move was searched, the move
+            // ordered first is still better than no move
+            return new int[] {firstMove, 0};
+        }
+        if (bestMove == PackedMove.NONE) {
+            alpha = firstMove == PackedMove.NONE && picker.getGenerator().isCheck() ? -Search.MATE : 0;
+        } else if (!this.stopped) {
+            this.table.store(this.bitBoard.getKey(), bestMove, TranspositionTable.toTable(alpha, 0), depth, TranspositionTable.EXACT);
+        }
+        return new int[] {bestMove, alpha};
+    }
+
+    /**
+     * Searches the current position
+     * @param depth remaining depth
+     * @param alpha lower bound of the score
+     * @param beta upper bound of the score
+     * @param ply distance from the root
+     * @return score of the position from the point of view of the side to move
+     */
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        if ((++this.nodes & Search.CHECK_INTERVAL) == 0) {
+            this.checkLimits();
+        }
+        if (this.stopped) {
+            return 0;
+        }
+        if (this.isDraw()) {
+            return 0;
+        }
+        if (ply >= Search.MAX_PLY) {
+            return Evaluation.evaluate(this.bitBoard);
+        }
+        long key = this.bitBoard.getKey();
+        int hashMove = PackedMove.NONE;
+        if (depth > 0) {
+            long entry = this.table.probe(key);
+            if (entry != 0L) {
+                hashMove = TranspositionTable.getMove(entry);
+                if (TranspositionTable.getDepth(entry) >= depth) {
+                    int score = TranspositionTable.fromTable(TranspositionTable.getScore(entry), ply);
+                    int bound = TranspositionTable.getBound(entry);
+                    if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+        // the check is known before the position is analyzed, horizon nodes are analyzed once by quiesce
+        boolean check = this.bitBoard.isCheck();
+        if (check) {
+            // positions in check are searched one ply deeper, so mates are not hidden behind the horizon
+            depth++;
+        }
+        if (depth <= 0) {
+            return this.quiesce(alpha, beta, ply);
+        }
+        MovePicker picker = this.pickers[ply];
+        int counterMove = this.history.getCounter(this.bitBoard.getSideToMove() ^ 1, this.line[ply - 1]);
+        picker.init(hashMove, this.killers[ply][0], this.killers[ply][1], counterMove);
+        int best = -Search.MATE + ply;
+        int bestMove = PackedMove.NONE;
+        int originalAlpha = alpha;
+        boolean legal = false;
+        int quietCount = 0;
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            legal = true;
+            this.line[ply] = move;
+            this.bitBoard.makeMove(move);
+            this.pushKey();
+            int score = -this.negamax(depth - 1, -beta, -alpha, ply + 1);
+            this.keysSize--;
+            this.bitBoard.unmakeMove();
+            if (this.stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    if (score >= beta) {
+                        this.storeCutoff(move, ply, depth, quietCount);
+                        break;
+                    }
+                }
+            }
+            if (!PackedMove.isCapture(move) && !PackedMove.isPromotion(move)) {
+                this.quiets[ply][quietCount++] = move;
+            }
+        }
+        if (!legal) {
+            return check ? -Search.MATE + ply : 0;
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        this.table.store(key, bestMove, TranspositionTable.toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Searches captures and promotions of the current position until it is quiet. The side
+     * to move may keep the static evaluation (stand pat) instead of capturing, except when
+     * it is in check and evasions are searched. Captures losing material by static exchange
+     * evaluation and captures that cannot reach alpha are left out.
+     * @param alpha lower bound of the score
+     * @param beta upper bound of the score
+     * @param ply distance from the root
+     * @return score of the position from the point of view of the side to move
+     */
+    private int quiesce(int alpha, int beta, int ply) {
+        if ((++this.nodes & Search.CHECK_INTERVAL) == 0) {
+            this.checkLimits();
+        }
+        if (this.stopped || this.isDraw()) {
+            return 0;
+        }
+        if (ply >= Search.MAX_PLY) {
+            return Evaluation.evaluate(this.bitBoard);
+        }
+        MovePicker picker = this.pickers[ply];
+        boolean evasions = this.checkEvasions && this.bitBoard.isCheck();
+        int standPat = -Search.MATE;
+        int best = -Search.MATE + ply;
+        if (evasions) {
+            picker.init(PackedMove.NONE, PackedMove.NONE, PackedMove.NONE);
+        } else {
+            standPat = Evaluation.evaluate(this.bitBoard);
+            if (standPat >= beta) {
+                return standPat;
+            }
+            if (standPat + BitBoard.getValue(BitBoard.QUEEN) + Search.DELTA_MARGIN <= alpha) {
+                // no capture can help
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            best = standPat;
+            // the position is analyzed only when its captures are searched
+            picker.initCaptures();
+        }
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            if (!evasions) {
+                if (PackedMove.isPromotion(move) && PackedMove.getPromotion(move) != BitBoard.QUEEN) {
+                    continue;
+                }
+                int gain = BitBoard.getValue(PackedMove.getCaptured(move))
+                    + (PackedMove.isPromotion(move) ? BitBoard.getValue(BitBoard.QUEEN) - BitBoard.getValue(BitBoard.PAWN) : 0);
+                if (standPat + gain + Search.DELTA_MARGIN <= alpha || this.bitBoard.see(move) < 0) {
+                    continue;
+                }
+            }
+            this.bitBoard.makeMove(move);
+            this.pushKey();
+            int score = -this.quiesce(-beta, -alpha, ply + 1);
+            this.keysSize--;
+            this.bitBoard.unmakeMove();
+            if (this.stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks if the current position is a draw by the fifty-move rule, by repetition
+     * (one earlier occurrence is enough) or by insufficient material
+     * @return boolean value if the position scores as a draw
+     */
+    private boolean isDraw() {
+        if (this.bitBoard.getHalfmoveClock() >= Board.FIFTY_MOVES || this.bitBoard.getMaterial().isInsufficient()) {
+            return true;
+        }
+        long key = this.keys[this.keysSize - 1];
+        int first = Math.max(0, this.keysSize - 1 - this.bitBoard.getHalfmoveClock());
+        for (int i = this.keysSize - 3; i >= first; i -= 2) {
+            if (this.keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds key of the current position to the searched line
+     */
+    private void pushKey() {
+        this.keys[this.keysSize++] = this.bitBoard.getKey();
+    }
+
+    /**
+     * Remembers quiet move that caused cutoff as the first killer of the ply and as
+     * the countermove of the previous move, raises its history score and lowers scores
+     * of quiet moves searched before it
+     * @param move packed move
+     * @param ply distance from the root
+     * @param depth remaining depth, deeper cutoffs get larger bonus
+     * @param quietCount number of quiet moves searched before the move
+     */
+    private void storeCutoff(int move, int ply, int depth, int quietCount) {
+        if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+            return;
+        }
+        if (this.killers[ply][0] != move) {
+            this.killers[ply][1] = this.killers[ply][0];
+            this.killers[ply][0] = move;
+        }
+        int color = this.bitBoard.getSideToMove();
+        this.history.setCounter(color ^ 1, this.line[ply - 1], move);
+        int bonus = depth * depth;
+        this.history.update(color, move, bonus);
+        for (int i = 0; i < quietCount; i++) {
+            this.history.update(color, this.quiets[ply][i], -bonus);
+        }
+    }
+
+    /**
+     * Stops the search when the time or the nodes ran out, the first iteration always
+     * runs to its end, so every root move has a searched score
+     */
+    private void checkLimits() {
+        if (this.rootDepth > 1 && (this.nodes >= this.nodeLimit || System.nanoTime() >= this.deadline)) {
+            this.stopped = true;
+        }
+    }
+
+    /**
+     * Sets used parts of move ordering of all plies (for benchmarks of the ordering)
+     * @param ordering combination of MovePicker ORDER flags
+     */
+    public void setOrdering(int ordering) {
+        for (MovePicker picker : this.pickers) {
+            picker.setOrdering(ordering);
+        }
+    }
+
+    /**
+     * Sets if quiescence search answers checks by all evasions (slower, but sees
+     * mates and lost pieces after checking captures)
+     * @param checkEvasions boolean value if evasions are searched
+     */
+    public void setCheckEvasions(boolean checkEvasions) {
+        this.checkEvasions = checkEvasions;
+    }
+
+    /**
+     * Gets table of searched positions
+     * @return value of the table property
+     */
+    public TranspositionTable getTable() {
+        return this.table;
+    }
+
+    /**
+     * Gets number of nodes searched by the last search
+     * @return value of the nodes property
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+}
@@ -0,0 +1,109 @@
+package pjv.sp.chess.model.search;
+
+/**
+ * SearchLimits holds limits of one search. The search stops when any of them is
+ * reached and returns the best move found so far. Zero means no limit of time
+ * or nodes, depth is always limited.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see Search
+ */
+public class SearchLimits {
+
+    /**
+     * Number of moves the remaining time of a clock is planned for
+     */
+    public static final int MOVES_TO_GO = 40;
+
+    /**
+     * Time kept on the clock in milliseconds for the delay between the search and the move
+     */
+    public static final long SAFETY_MILLIS = 200;
+
+    /**
+     * Shortest time of a search driven by a clock in milliseconds
+     */
+    public static final long MIN_MILLIS = 10;
+
+    /**
+     * Maximal depth of the iterative deepening
+     */
+    private final int depth;
+
+    /**
+     * Time limit in milliseconds or 0
+     */
+    private final long millis;
+
+    /**
+     * Limit of searched nodes or 0
+     */
+    private final long nodes;
+
+    /**
+     * Creates new limits
+     * @param depth maximal depth in plies (at least 1, at most Search.MAX_DEPTH)
+     * @param millis time limit in milliseconds or 0 for no limit
+     * @param nodes limit of searched nodes or 0 for no limit
+     * @throws IllegalArgumentException when a limit is out of range
+     */
+    public SearchLimits(int depth, long millis, long nodes) {
+        if (depth < 1 || depth > Search.MAX_DEPTH || millis < 0 || nodes < 0) {
+            throw new IllegalArgumentException(String.format("Wrong search limits: depth %d, %d ms, %d nodes", depth, millis, nodes));
+        }
+        this.depth = depth;
+        this.millis = millis;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Creates limits of time only
+     * @param millis time limit in milliseconds
+     * @return limits with maximal depth and no limit of nodes
+     */
+    public static SearchLimits ofMillis(long millis) {
+        return new SearchLimits(Search.MAX_DEPTH, millis, 0);
+    }
+
+    /**
+     * Creates limits of time from the clock of the player, the remaining time is split to
+     * MOVES_TO_GO moves and most of the increment is added, so the budget shrinks with the
+     * clock. SAFETY_MILLIS are always left on the clock if possible.
+     * @param remaining remaining time of the player in milliseconds
+     * @param increment time added to the clock after each move in milliseconds or 0
+     * @return limits with maximal depth and no limit of nodes
+     * @throws IllegalArgumentException when a time is negative
+     */
+    public static SearchLimits ofClock(long remaining, long increment) {
+        if (remaining < 0 || increment < 0) {
+            throw new IllegalArgumentException(String.format("Wrong clock: %d ms remaining, %d ms increment", remaining, increment));
+        }
+        long budget = remaining / SearchLimits.MOVES_TO_GO + increment * 3 / 4;
+        budget = Math.min(budget, remaining - SearchLimits.SAFETY_MILLIS);
+        return SearchLimits.ofMillis(Math.max(budget, SearchLimits.MIN_MILLIS));
+    }
+
+    /**
+     * Gets maximal depth
+     * @return value of the depth property
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Gets time limit
+     * @return value of the millis property
+     */
+    public long getMillis() {
+        return this.millis;
+    }
+
+    /**
+     * Gets limit of nodes
+     * @return value of the nodes property
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+}
@@ -0,0 +1,104 @@
+package pjv.sp.chess.model.search;
+
+import pjv.sp.chess.model.board.PackedMove;
+
+/**
+ * SearchResult holds the best move found by a search with its score and
+ * statistics of the search.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see Search
+ */
+public class SearchResult {
+
+    /**
+     * Best move found or PackedMove.NONE when there is no legal move
+     */
+    private final int move;
+
+    /**
+     * Score of the move from the point of view of the side to move in centipawns
+     */
+    private final int score;
+
+    /**
+     * Depth of the last completed iteration
+     */
+    private final int depth;
+
+    /**
+     * Number of searched nodes
+     */
+    private final long nodes;
+
+    /**
+     * Time of the search in milliseconds
+     */
+    private final long millis;
+
+    /**
+     * Creates new result
+     * @param move best move or PackedMove.NONE
+     * @param score score of the move
+     * @param depth depth of the last completed iteration
+     * @param nodes number of searched nodes
+     * @param millis time of the search in milliseconds
+     */
+    public SearchResult(int move, int score, int depth, long nodes, long millis) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    /**
+     * Gets best move
+     * @return packed move or PackedMove.NONE
+     */
+    public int getMove() {
+        return this.move;
+    }
+
+    /**
+     * Gets score of the best move
+     * @return score in centipawns, mate scores are near Search.MATE
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Gets depth of the last completed iteration
+     * @return value of the depth property
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Gets number of searched nodes
+     * @return value of the nodes property
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Gets time of the search
+     * @return value of the millis property
+     */
+    public long getMillis() {
+        return this.millis;
+    }
+
+    /**
+     * Formats the result for logs
+     * @return String with move, score, depth, nodes and time
+     */
+    @Override
+    public String toString() {
+        return String.format("%s score %d depth %d nodes %d time %d ms",
+            this.move == PackedMove.NONE ? "none" : PackedMove.getLabel(this.move), this.score, this.depth, this.nodes, this.millis);
+    }
+}
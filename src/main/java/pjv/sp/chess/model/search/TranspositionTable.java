@@ -0,0 +1,350 @@
+package pjv.sp.chess.model.search;
+
+import pjv.sp.chess.model.board.PackedMove;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TranspositionTable remembers results of searched positions, so a position
+ * reached again by another move order is not searched twice and its best move
+ * is tried first. The table has fixed size and lives in one long array, each
+ * entry is a pair of longs:
+ * <pre>
+ * first   Zobrist key of the position xored with the second long
+ * second   0 - 23  best move (packed move)
+ *         24 - 39  score
+ *         40 - 47  depth
+ *         48 - 49  bound (UPPER, LOWER or EXACT)
+ *         50 - 55  age (number of the search that stored the entry)
+ * </pre>
+ * Entries are grouped to buckets of four (64 bytes, size of a cache line). The table
+ * can be shared by searches on more threads without locks: when two threads write
+ * the same entry at once and the longs get mixed, the xor does not give the key
+ * back and the entry is treated as empty. A new entry replaces the entry of the
+ * same position, otherwise the least valuable entry of the bucket, entries of
+ * older searches are worth less than entries of the current one.
+ * @author Jakub Rada
+ * @version 1.0
+ * @see Search
+ */
+public class TranspositionTable {
+
+    /**
+     * Bound of a score that is at most the real score (all moves failed low)
+     */
+    public static final int UPPER = 1;
+
+    /**
+     * Bound of a score that is at least the real score (cutoff)
+     */
+    public static final int LOWER = 2;
+
+    /**
+     * Bound of an exact score
+     */
+    public static final int EXACT = 3;
+
+    /**
+     * Number of entries in one bucket
+     */
+    private static final int BUCKET = 4;
+
+    /**
+     * Size of one entry in bytes
+     */
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+
+    /**
+     * Mask of the move in the data
+     */
+    private static final long MOVE_MASK = 0xFFFFFFL;
+
+    /**
+     * Position of the score in the data
+     */
+    private static final int SCORE_SHIFT = 24;
+
+    /**
+     * Position of the depth in the data
+     */
+    private static final int DEPTH_SHIFT = 40;
+
+    /**
+     * Position of the bound in the data
+     */
+    private static final int BOUND_SHIFT = 48;
+
+    /**
+     * Position of the age in the data
+     */
+    private static final int AGE_SHIFT = 50;
+
+    /**
+     * Mask of the age (after the shift)
+     */
+    private static final int AGE_MASK = 63;
+
+    /**
+     * Number of entries checked to estimate how full the table is
+     */
+    private static final int FILL_SAMPLE = 1000;
+
+    /**
+     * Entries, the checked key at even index and the data at the following odd index
+     */
+    private final long[] entries;
+
+    /**
+     * Mask of the index of a bucket (number of buckets is power of two)
+     */
+    private final long mask;
+
+    /**
+     * Age of the current search
+     */
+    private volatile int age;
+
+    /**
+     * Number of probes
+     */
+    private final LongAdder probes = new LongAdder();
+
+    /**
+     * Number of probes that found the position
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of stored entries
+     */
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * Creates new empty table that takes at most passed number of megabytes
+     * @param megabytes size of the table (at least 1)
+     * @throws IllegalArgumentException when the size is out of range
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > 16384) {
+            throw new IllegalArgumentException("Transposition table size out of range: " + megabytes);
+        }
+        long count = Long.highestOneBit(megabytes * 1024L * 1024L / TranspositionTable.ENTRY_BYTES);
+        this.entries = new long[(int) Math.min(count * 2, Integer.highestOneBit(Integer.MAX_VALUE))];
+        this.mask = this.entries.length / (2 * TranspositionTable.BUCKET) - 1;
+    }
+
+    /**
+     * Starts new search, entries of earlier searches become older
+     */
+    public void newSearch() {
+        this.age = (this.age + 1) & TranspositionTable.AGE_MASK;
+    }
+
+    /**
+     * Removes all entries and resets counters
+     */
+    public void clear() {
+        Arrays.fill(this.entries, 0L);
+        this.age = 0;
+        this.probes.reset();
+        this.hits.reset();
+        this.stores.reset();
+    }
+
+    /**
+     * Finds entry of the position
+     * @param key Zobrist key of the position
+     * @return data of the entry (use the static getters) or 0 when the position is not stored
+     */
+    public long probe(long key) {
+        this.probes.increment();
+        int bucket = this.bucket(key);
+        for (int i = bucket; i < bucket + 2 * TranspositionTable.BUCKET; i += 2) {
+            long data = this.entries[i + 1];
+            if ((this.entries[i] ^ data) == key && data != 0L) {
+                this.hits.increment();
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores result of a search of the position
+     * @param key Zobrist key of the position
+     * @param move best move or PackedMove.NONE
+     * @param score score of the position (mate scores relative to the position, see toTable)
+     * @param depth searched depth
+     * @param bound UPPER, LOWER or EXACT
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int bucket = this.bucket(key);
+        int replaced = bucket;
+        int worst = Integer.MAX_VALUE;
+        for (int i = bucket; i < bucket + 2 * TranspositionTable.BUCKET; i += 2) {
+            long data = this.entries[i + 1];
+            if ((this.entries[i] ^ data) == key) {
+                // keep the known best move when the new search did not find any
+                if (move == PackedMove.NONE) {
+                    move = TranspositionTable.getMove(data);
+                }
+                replaced = i;
+                break;
+            }
+            // empty entries are worth least, then entries of old searches and shallow entries
+            int value = data == 0L ? Integer.MIN_VALUE
+                : TranspositionTable.getDepth(data) - 8 * ((this.age - TranspositionTable.getAge(data)) & TranspositionTable.AGE_MASK);
+            if (value < worst) {
+                worst = value;
+                replaced = i;
+            }
+        }
+        long data = (move & TranspositionTable.MOVE_MASK)
+            | ((long) (score & 0xFFFF) << TranspositionTable.SCORE_SHIFT)
+            | ((long) Math.max(0, Math.min(depth, 255)) << TranspositionTable.DEPTH_SHIFT)
+            | ((long) bound << TranspositionTable.BOUND_SHIFT)
+            | ((long) this.age << TranspositionTable.AGE_SHIFT);
+        this.entries[replaced] = key ^ data;
+        this.entries[replaced + 1] = data;
+        this.stores.increment();
+    }
+
+    /**
+     * Computes index of the first long of the bucket of the key
+     * @param key Zobrist key of the position
+     * @return index into the entries
+     */
+    private int bucket(long key) {
+        return (int) (key & this.mask) * 2 * TranspositionTable.BUCKET;
+    }
+
+    /**
+     * Converts score of a mate from distance to the root to distance to the position,
+     * so it stays valid when the position is reached at another ply
+     * @param score score from the point of view of the search
+     * @param ply distance of the position from the root
+     * @return score to be stored
+     */
+    public static int toTable(int score, int ply) {
+        if (score >= Search.MATE_BOUND) {
+            return score + ply;
+        }
+        return score <= -Search.MATE_BOUND ? score - ply : score;
+    }
+
+    /**
+     * Converts stored score of a mate back to distance to the root
+     * @param score stored score
+     * @param ply distance of the position from the root
+     * @return score for the search
+     */
+    public static int fromTable(int score, int ply) {
+        if (score >= Search.MATE_BOUND) {
+            return score - ply;
+        }
+        return score <= -Search.MATE_BOUND ? score + ply : score;
+    }
+
+    /**
+     * Gets best move of the entry
+     * @param data data returned by probe
+     * @return packed move or PackedMove.NONE
+     */
+    public static int getMove(long data) {
+        return (int) (data & TranspositionTable.MOVE_MASK);
+    }
+
+    /**
+     * Gets stored score of the entry
+     * @param data data returned by probe
+     * @return score (convert mates by fromTable)
+     */
+    public static int getScore(long data) {
+        return (short) (data >>> TranspositionTable.SCORE_SHIFT);
+    }
+
+    /**
+     * Gets depth of the entry
+     * @param data data returned by probe
+     * @return searched depth
+     */
+    public static int getDepth(long data) {
+        return (int) ((data >>> TranspositionTable.DEPTH_SHIFT) & 0xFF);
+    }
+
+    /**
+     * Gets bound of the score of the entry
+     * @param data data returned by probe
+     * @return UPPER, LOWER or EXACT
+     */
+    public static int getBound(long data) {
+        return (int) ((data >>> TranspositionTable.BOUND_SHIFT) & 3);
+    }
+
+    /**
+     * Gets age of the entry
+     * @param data data returned by probe
+     * @return number of the search that stored the entry (modulo 64)
+     */
+    private static int getAge(long data) {
+        return (int) ((data >>> TranspositionTable.AGE_SHIFT) & TranspositionTable.AGE_MASK);
+    }
+
+    /**
+     * Gets share of probes that found the position
+     * @return hit rate from 0 to 1
+     */
+    public double getHitRate() {
+        long count = this.probes.sum();
+        return count == 0 ? 0 : (double) this.hits.sum() / count;
+    }
+
+    /**
+     * Estimates share of entries used by the current search from the first entries of the table
+     * @return fill rate from 0 to 1
+     */
+    public double getFillRate() {
+        int sample = Math.min(TranspositionTable.FILL_SAMPLE, this.getCapacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = this.entries[2 * i + 1];
+            if (data != 0L && TranspositionTable.getAge(data) == this.age) {
+                used++;
+            }
+        }
+        return (double) used / sample;
+    }
+
+    /**
+     * Gets number of probes
+     * @return number of probes since the table was created or cleared
+     */
+    public long getProbes() {
+        return this.probes.sum();
+    }
+
+    /**
+     * Gets number of probes that found the position
+     * @return number of hits since the table was created or cleared
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Gets number of stored entries
+     * @return number of stores since the table was created or cleared
+     */
+    public long getStores() {
+        return this.stores.sum();
+    }
+
+    /**
+     * Gets number of entries of the table
+     * @return capacity in entries
+     */
+    public int getCapacity() {
+        return this.entries.length / 2;
+    }
+}
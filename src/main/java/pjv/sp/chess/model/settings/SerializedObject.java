@@ -12,12 +12,19 @@ public class SerializedObject {
      */
     private final int gameTypeIndex;
 
+    /**
+     * number of threads of search of computer player, 0 when not set
+     */
+    private final int searchThreads;
+
     /**
      * Create new SerializedObject
      * @param gameTypeIndex index in the GameType list in Settings
+     * @param searchThreads number of threads of search of computer player
      */
-    public SerializedObject(int gameTypeIndex) {
+    public SerializedObject(int gameTypeIndex, int searchThreads) {
         this.gameTypeIndex = gameTypeIndex;
+        this.searchThreads = searchThreads;
     }
 
     /**
@@ -28,4 +35,12 @@ public class SerializedObject {
         return this.gameTypeIndex;
     }
 
+    /**
+     * Gets number of threads of search of computer player
+     * @return value of the searchThreads property (0 in files saved by older versions)
+     */
+    public int getSearchThreads() {
+        return this.searchThreads;
+    }
+
 }
\ No newline at end of file
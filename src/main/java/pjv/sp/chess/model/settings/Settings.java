@@ -44,6 +44,11 @@ public class Settings {
      */
     private List<GameTypes> gameTypes = new ArrayList<>();
 
+    /**
+     * Number of threads of search of computer player
+     */
+    private int searchThreads = Runtime.getRuntime().availableProcessors();
+
     /**
      * Name of the file where settings are stored
      */
@@ -98,6 +103,27 @@ public class Settings {
         return this.gameTypes.get(this.selectedIndex).getSeconds();
     }
 
+    /**
+     * Gets number of threads the computer player searches with
+     * @return number of threads (at least 1)
+     */
+    public int getSearchThreads() {
+        return this.searchThreads;
+    }
+
+    /**
+     * Sets number of threads the computer player searches with
+     * @param threads number of threads (at least 1)
+     * @throws IllegalArgumentException when number of threads is not positive
+     */
+    public void setSearchThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads has to be positive: " + threads);
+        }
+        Settings.LOG.info("Search threads changed to " + threads);
+        this.searchThreads = threads;
+    }
+
     /**
      * Gets index of currently selected GameType
      * @return index in the List of GameTypes
@@ -114,6 +140,9 @@ public class Settings {
         try (FileReader reader = new FileReader(Chess.settingsPath + this.FILENAME, StandardCharsets.UTF_8)) {
             SerializedObject deserialized = this.PARSER.fromJson(reader, SerializedObject.class);
             this.selectedIndex = deserialized.getGameTypeIndex();
+            if (deserialized.getSearchThreads() > 0) {
+                this.searchThreads = deserialized.getSearchThreads();
+            }
             Settings.LOG.info(String.format("Settings read from JSON on path %s", Chess.settingsPath));
         } catch (FileNotFoundException e) {
             Settings.LOG.severe(String.format("File '%s' does not exist", Chess.settingsPath));
@@ -141,7 +170,7 @@ public class Settings {
     public void save() {
         System.out.println(this.selectedIndex);
         try (FileWriter writer = new FileWriter(this.checkFile(Chess.settingsPath), StandardCharsets.UTF_8)) {
-            SerializedObject obj = new SerializedObject(this.selectedIndex);
+            SerializedObject obj = new SerializedObject(this.selectedIndex, this.searchThreads);
             writer.write(this.PARSER.toJson(obj));
             Settings.LOG.info(String.format("Settings saved to JSON on path %s", Chess.settingsPath));
         } catch (IOException e) {
@@ -76,6 +76,14 @@ public class RoundTimer extends Thread {
         this.pause = false;
     }
 
+    /**
+     * Gets time that remains to the player (can be called from other threads)
+     * @return remaining time in milliseconds
+     */
+    public synchronized long getRemainingMillis() {
+        return this.time * 100;
+    }
+
     /**
      * Start thread and perform countdown if active and not paused
      */
@@ -1,7 +1,15 @@
 package pjv.sp.chess.model;
 
+import pjv.sp.chess.model.board.BitBoard;
 import pjv.sp.chess.model.board.Board;
+import pjv.sp.chess.model.board.File;
+import pjv.sp.chess.model.board.MoveList;
+import pjv.sp.chess.model.board.PackedMove;
+import pjv.sp.chess.model.board.Rank;
+import pjv.sp.chess.model.board.Square;
+import pjv.sp.chess.model.pgn.Disambiguation;
 import pjv.sp.chess.model.pieces.Color;
+import pjv.sp.chess.model.pieces.Position;
 import pjv.sp.chess.model.player.ComputerPlayer;
 import pjv.sp.chess.model.player.HumanPlayer;
 
@@ -30,4 +38,63 @@ public class GameTest {
         assertEquals(game.getRound(), round + 1);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testLegalMovesSnapshot() {
+        MoveList moves = this.game.getLegalMoves();
+        assertEquals(moves.size(), 20);
+        assertSame(this.game.getLegalMoves(), moves);
+        assertTrue(this.game.hasLegalMove());
+        assertEquals(this.game.getMoves(this.game.getChessBoard().getPiece(File.G, Rank.ONE)).size(), 2);
+        Board board = new Board(true);
+        board.setPosition("4k3/8/8/8/8/8/R7/R4RK1 w - - 0 1");
+        Game custom = new Game("test", "test", new HumanPlayer("", "white", Color.WHITE), new HumanPlayer("", "black", Color.BLACK), board);
+        assertEquals(custom.getDisambiguation(new Position(File.A, Rank.ONE), new Position(File.D, Rank.ONE)), Disambiguation.ORIGINATING_FILE);
+        assertEquals(custom.getDisambiguation(new Position(File.A, Rank.TWO), new Position(File.A, Rank.THREE)), Disambiguation.OK);
+        assertEquals(custom.getDisambiguation(new Position(File.F, Rank.ONE), new Position(File.E, Rank.ONE)), Disambiguation.ORIGINATING_FILE);
+        board.setPosition("4k3/8/8/8/8/8/8/R4RK1 w - - 0 1");
+        assertEquals(custom.getDisambiguation(new Position(File.F, Rank.ONE), new Position(File.D, Rank.ONE)), Disambiguation.ORIGINATING_FILE);
+    }
+
+    @Test
+    public void testRepetition() {
+        Board board = new Board(false);
+        Game game = new Game("test", "test", new HumanPlayer("", "white", Color.WHITE), new HumanPlayer("", "black", Color.BLACK), board);
+        Position[][] moves = {
+            {new Position(File.G, Rank.ONE), new Position(File.F, Rank.THREE)},
+            {new Position(File.G, Rank.EIGHT), new Position(File.F, Rank.SIX)},
+            {new Position(File.F, Rank.THREE), new Position(File.G, Rank.ONE)},
+            {new Position(File.F, Rank.SIX), new Position(File.G, Rank.EIGHT)}
+        };
+        for (int i = 0; i < 16; i++) {
+            board.movePiece(moves[i % 4][0], moves[i % 4][1]);
+            game.nextRound();
+            if (i == 3) {
+                assertEquals(game.getRepetitions(), 2);
+                assertFalse(game.isThreefoldRepetition());
+            }
+        }
+        assertEquals(game.getRepetitions(), 5);
+        assertTrue(game.isFivefoldRepetition());
+        board.movePiece(new Position(File.E, Rank.TWO), new Position(File.E, Rank.FOUR));
+        game.nextRound();
+        assertEquals(game.getRepetitions(), 1);
+    }
+
+    @Test
+    public void testRepetitionOfMove() {
+        Board board = new Board(false);
+        Game game = new Game("test", "test", new HumanPlayer("", "white", Color.WHITE), new HumanPlayer("", "black", Color.BLACK), board);
+        board.movePiece(new Position(File.G, Rank.ONE), new Position(File.F, Rank.THREE));
+        game.nextRound();
+        board.movePiece(new Position(File.G, Rank.EIGHT), new Position(File.F, Rank.SIX));
+        game.nextRound();
+        board.movePiece(new Position(File.F, Rank.THREE), new Position(File.G, Rank.ONE));
+        game.nextRound();
+        MoveList moves = game.getLegalMoves();
+        for (int i = 0; i < moves.size(); i++) {
+            boolean back = PackedMove.getTo(moves.get(i)) == Square.of(File.G, Rank.EIGHT) && PackedMove.getPiece(moves.get(i)) == BitBoard.KNIGHT;
+            assertEquals(game.getRepetitions(moves.get(i)), back ? 1 : 0);
+        }
+    }
+
+}
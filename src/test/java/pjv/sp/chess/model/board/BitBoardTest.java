@@ -0,0 +1,273 @@
+package pjv.sp.chess.model.board;
+
+import pjv.sp.chess.model.pieces.Color;
+import pjv.sp.chess.model.pieces.Knight;
+import pjv.sp.chess.model.pieces.MoveType;
+import pjv.sp.chess.model.pieces.Piece;
+import pjv.sp.chess.model.pieces.PieceType;
+import pjv.sp.chess.model.pieces.Position;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BitBoardTest {
+
+    @Test
+    public void testPutAndRemove() {
+        BitBoard bitBoard = new BitBoard();
+        int square = Square.of(File.E, Rank.FOUR);
+        bitBoard.put(square, BitBoard.WHITE, BitBoard.KNIGHT);
+        assertEquals(bitBoard.getType(square), BitBoard.KNIGHT);
+        assertEquals(bitBoard.getColor(square), BitBoard.WHITE);
+        assertEquals(bitBoard.getPieces(BitBoard.WHITE, BitBoard.KNIGHT), 1L << square);
+        bitBoard.put(square, BitBoard.BLACK, BitBoard.QUEEN);
+        assertEquals(bitBoard.getPieces(BitBoard.WHITE, BitBoard.KNIGHT), 0L);
+        assertEquals(bitBoard.getOccupancy(BitBoard.BLACK), 1L << square);
+        bitBoard.remove(square);
+        assertTrue(bitBoard.isEmpty(square));
+        assertEquals(bitBoard.getOccupancy(), 0L);
+    }
+
+    @Test
+    public void testStandardBoardMirrored() {
+        Board board = new Board(false);
+        BitBoard bitBoard = board.getBitBoard();
+        assertEquals(bitBoard.getPieces(BitBoard.WHITE, BitBoard.PAWN), 0x00FF000000000000L);
+        assertEquals(bitBoard.getPieces(BitBoard.BLACK, BitBoard.PAWN), 0x000000000000FF00L);
+        assertEquals(Long.bitCount(bitBoard.getOccupancy()), 32);
+        assertEquals(bitBoard.getKingSquare(BitBoard.WHITE), Square.of(File.E, Rank.ONE));
+        for (int square = 0; square < Square.COUNT; square++) {
+            Piece piece = board.getPiece(square);
+            assertEquals(bitBoard.getType(square), piece.getType().getIndex());
+            assertEquals(bitBoard.getColor(square), piece.getColor().getIndex());
+        }
+    }
+
+    @Test
+    public void testMoveMirrored() {
+        Board board = new Board(false);
+        Position src = new Position(File.B, Rank.ONE);
+        Position tgt = new Position(File.C, Rank.THREE);
+        board.movePiece(src, tgt);
+        assertEquals(board.getPiece(tgt).getClass(), Knight.class);
+        assertTrue(board.getBitBoard().isEmpty(Square.of(src)));
+        assertEquals(board.getBitBoard().getType(Square.of(tgt)), BitBoard.KNIGHT);
+        assertEquals(board.getPieces(Color.WHITE).size(), 16);
+    }
+
+    @Test
+    public void testAttackersTo() {
+        BitBoard bitBoard = new BitBoard();
+        int target = Square.of(File.E, Rank.FOUR);
+        bitBoard.put(Square.of(File.D, Rank.THREE), BitBoard.WHITE, BitBoard.PAWN);
+        bitBoard.put(Square.of(File.F, Rank.FIVE), BitBoard.WHITE, BitBoard.PAWN);
+        bitBoard.put(Square.of(File.E, Rank.EIGHT), BitBoard.WHITE, BitBoard.ROOK);
+        bitBoard.put(Square.of(File.C, Rank.THREE), BitBoard.WHITE, BitBoard.KNIGHT);
+        bitBoard.put(Square.of(File.H, Rank.ONE), BitBoard.BLACK, BitBoard.BISHOP);
+        long attackers = bitBoard.attackersTo(target, BitBoard.WHITE);
+        assertEquals(attackers, (1L << Square.of(File.D, Rank.THREE)) | (1L << Square.of(File.E, Rank.EIGHT)) | (1L << Square.of(File.C, Rank.THREE)));
+        assertTrue(bitBoard.isAttacked(target, BitBoard.BLACK));
+        bitBoard.put(Square.of(File.E, Rank.SIX), BitBoard.BLACK, BitBoard.KNIGHT);
+        bitBoard.put(Square.of(File.G, Rank.TWO), BitBoard.BLACK, BitBoard.PAWN);
+        assertEquals(bitBoard.attackersTo(target, BitBoard.WHITE) & (1L << Square.of(File.E, Rank.EIGHT)), 0L);
+        assertFalse(bitBoard.isAttacked(target, BitBoard.BLACK));
+    }
+
+    @Test
+    public void testCheck() {
+        assertTrue(Fen.parse("4k3/8/8/8/8/8/8/4R1K1 b - - 0 1").isCheck());
+        assertFalse(Fen.parse("4k3/8/8/8/8/8/8/4R1K1 w - - 0 1").isCheck());
+        assertTrue(Fen.parse("4k3/8/8/8/5b2/8/8/2K5 w - - 0 1").isCheck());
+        // the bishop is blocked by the pawn
+        assertFalse(Fen.parse("4k3/8/8/8/5b2/8/3P4/2K5 w - - 0 1").isCheck());
+        assertTrue(Fen.parse("4k3/8/8/8/8/1n6/8/2K5 w - - 0 1").isCheck());
+        // the same answer as the full analysis of the position
+        BitBoard bitBoard = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        MoveGenerator generator = new MoveGenerator(bitBoard);
+        generator.update(bitBoard.getSideToMove(), bitBoard.getCastling(), bitBoard.getEnPassant());
+        assertEquals(bitBoard.isCheck(), generator.isCheck());
+    }
+
+    @Test
+    public void testMakeUnmakeRestores() {
+        Board board = new Board(false);
+        BitBoard bitBoard = board.getBitBoard();
+        long occupancy = bitBoard.getOccupancy();
+        Piece knight = board.getPiece(Square.of(File.G, Rank.ONE));
+        assertEquals(this.walk(board, new MoveGenerator(bitBoard), MoveList.createStack(3), 0, 3), 8902);
+        assertEquals(bitBoard.getOccupancy(), occupancy);
+        assertEquals(bitBoard.getCastling(), BitBoard.ALL_CASTLING);
+        assertEquals(bitBoard.getSideToMove(), BitBoard.WHITE);
+        assertEquals(bitBoard.getFullmoveNumber(), 1);
+        assertEquals(board.getHistorySize(), 0);
+        assertSame(board.getPiece(Square.of(File.G, Rank.ONE)), knight);
+    }
+
+    @Test
+    public void testHomeCastling() {
+        Board board = new Board(true);
+        // layout built piece by piece has no rights until it is finished
+        board.setPosition("r3k1r1/8/8/8/8/8/8/R3K2R w - - 0 1");
+        board.setHomeCastling();
+        assertEquals(board.getCastling(), BitBoard.WHITE_KINGSIDE | BitBoard.WHITE_QUEENSIDE | BitBoard.BLACK_QUEENSIDE);
+        board.setPosition("r3k2r/8/8/8/8/8/8/R2K3R w - - 0 1");
+        board.setHomeCastling();
+        assertEquals(board.getCastling(), BitBoard.BLACK_KINGSIDE | BitBoard.BLACK_QUEENSIDE);
+    }
+
+    @Test
+    public void testPieceSquares() {
+        Board board = new Board(true);
+        board.setPosition("1r2k3/P7/8/8/8/8/8/4K2N w - - 0 1");
+        int a7 = Square.of(File.A, Rank.SEVEN);
+        int b8 = Square.of(File.B, Rank.EIGHT);
+        assertEquals(board.getSquares(Color.WHITE, PieceType.PAWN), Square.bit(a7));
+        board.makeMove(PackedMove.of(a7, b8, MoveType.NORMAL, BitBoard.PAWN, BitBoard.ROOK, BitBoard.QUEEN));
+        assertEquals(board.getSquares(Color.WHITE, PieceType.PAWN), 0L);
+        assertEquals(board.getSquares(Color.WHITE, PieceType.QUEEN), Square.bit(b8));
+        assertEquals(board.getCount(Color.BLACK, PieceType.ROOK), 0);
+        assertEquals(board.getPiece(b8).getType(), PieceType.QUEEN);
+        assertEquals(Long.bitCount(board.getSquares(Color.WHITE)), 3);
+        board.unmakeMove();
+        assertEquals(board.getSquares(Color.BLACK, PieceType.ROOK), Square.bit(b8));
+        assertEquals(board.getPiece(a7).getType(), PieceType.PAWN);
+    }
+
+    @Test
+    public void testMakeMoveState() {
+        Board board = new Board(false);
+        BitBoard bitBoard = board.getBitBoard();
+        int e2 = Square.of(File.E, Rank.TWO);
+        int e4 = Square.of(File.E, Rank.FOUR);
+        board.makeMove(PackedMove.of(e2, e4, MoveType.NORMAL, BitBoard.PAWN, BitBoard.EMPTY, BitBoard.EMPTY));
+        assertEquals(bitBoard.getEnPassant(), Square.of(File.E, Rank.THREE));
+        assertEquals(bitBoard.getSideToMove(), BitBoard.BLACK);
+        int e1 = Square.of(File.E, Rank.ONE);
+        board.makeMove(PackedMove.of(Square.of(File.G, Rank.EIGHT), Square.of(File.F, Rank.SIX), MoveType.NORMAL, BitBoard.KNIGHT, BitBoard.EMPTY, BitBoard.EMPTY));
+        board.makeMove(PackedMove.of(e1, e2, MoveType.NORMAL, BitBoard.KING, BitBoard.EMPTY, BitBoard.EMPTY));
+        assertEquals(bitBoard.getCastling(), BitBoard.BLACK_KINGSIDE | BitBoard.BLACK_QUEENSIDE);
+        assertEquals(bitBoard.getHalfmoveClock(), 2);
+        assertEquals(bitBoard.getFullmoveNumber(), 2);
+        board.unmakeMove();
+        board.unmakeMove();
+        board.unmakeMove();
+        assertEquals(bitBoard.getEnPassant(), Square.NONE);
+        assertEquals(bitBoard.getCastling(), BitBoard.ALL_CASTLING);
+    }
+
+    @Test
+    public void testPositionState() {
+        Board board = new Board(true);
+        String fen = "r3k2r/1b4bq/8/2pP4/8/8/7B/R3K2R w KQkq c6 0 23";
+        board.setPosition(fen);
+        assertEquals(board.getFen(), fen);
+        assertEquals(board.getEnPassant(), Square.of(File.C, Rank.SIX));
+        assertEquals(board.getKey(), board.getBitBoard().computeKey());
+        // en passant takes the pawn and resets the halfmove clock
+        board.movePiece(new Position(File.D, Rank.FIVE), new Position(File.C, Rank.SIX));
+        assertEquals(board.getFen(), "r3k2r/1b4bq/2P5/8/8/8/7B/R3K2R b KQkq - 0 23");
+        // castling moves the rook and removes rights of the color
+        board.movePiece(new Position(File.E, Rank.EIGHT), new Position(File.C, Rank.EIGHT));
+        assertEquals(board.getFen(), "2kr3r/1b4bq/2P5/8/8/8/7B/R3K2R w KQ - 1 24");
+        // capture of a rook on its initial square removes its castling right
+        board.movePiece(new Position(File.H, Rank.TWO), new Position(File.D, Rank.SIX));
+        board.movePiece(new Position(File.H, Rank.SEVEN), new Position(File.H, Rank.ONE));
+        assertEquals(board.getFen(), "2kr3r/1b4b1/2PB4/8/8/8/8/R3K2q w Q - 0 25");
+        assertEquals(board.getKey(), board.getBitBoard().computeKey());
+        board.setPosition("8/8/3k4/8/8/3K4/8/7R b - - 99 80");
+        assertFalse(board.isFiftyMoveRule());
+        board.movePiece(new Position(File.D, Rank.SIX), new Position(File.E, Rank.SIX));
+        assertTrue(board.isFiftyMoveRule());
+        assertEquals(board.getFullmoveNumber(), 81);
+        assertEquals(board.getSideToMove(), Color.WHITE);
+    }
+
+    @Test
+    public void testKeyTransposition() {
+        Board board = new Board(false);
+        long start = board.getKey();
+        assertEquals(start, board.getBitBoard().computeKey());
+        int g1 = Square.of(File.G, Rank.ONE);
+        int f3 = Square.of(File.F, Rank.THREE);
+        int g8 = Square.of(File.G, Rank.EIGHT);
+        int f6 = Square.of(File.F, Rank.SIX);
+        board.makeMove(PackedMove.of(g1, f3, MoveType.NORMAL, BitBoard.KNIGHT, BitBoard.EMPTY, BitBoard.EMPTY));
+        long afterMove = board.getKey();
+        assertNotEquals(afterMove, start);
+        board.makeMove(PackedMove.of(g8, f6, MoveType.NORMAL, BitBoard.KNIGHT, BitBoard.EMPTY, BitBoard.EMPTY));
+        board.makeMove(PackedMove.of(f3, g1, MoveType.NORMAL, BitBoard.KNIGHT, BitBoard.EMPTY, BitBoard.EMPTY));
+        board.makeMove(PackedMove.of(f6, g8, MoveType.NORMAL, BitBoard.KNIGHT, BitBoard.EMPTY, BitBoard.EMPTY));
+        assertEquals(board.getKey(), start);
+        // the same position reached by putting pieces has the same key
+        board.putPiece(board.getPiece(g1), File.F, Rank.THREE);
+        board.removePiece(new Position(File.G, Rank.ONE));
+        board.getBitBoard().setSideToMove(BitBoard.BLACK);
+        assertEquals(board.getKey(), afterMove);
+    }
+
+    @Test
+    public void testSee() {
+        // pawn defended by pawn
+        BitBoard bitBoard = Fen.parse("4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1");
+        assertEquals(bitBoard.see(this.find(bitBoard, "d1d5")), 100 - 900);
+        // knight takes pawn defended by pawn, the rook recapture does not make up for the knight
+        bitBoard = Fen.parse("4k3/2p5/3p4/8/2N5/8/8/3RK3 w - - 0 1");
+        assertEquals(bitBoard.see(this.find(bitBoard, "c4d6")), 100 - 320 + 100);
+        bitBoard = Fen.parse("4k3/8/3r4/8/8/8/3R4/3QK3 w - - 0 1");
+        assertEquals(bitBoard.see(this.find(bitBoard, "d2d6")), 500);
+        // the queen behind the rook joins the exchange
+        bitBoard = Fen.parse("3rk3/8/3r4/8/8/8/3R4/3QK3 w - - 0 1");
+        assertEquals(bitBoard.see(this.find(bitBoard, "d2d6")), 500);
+        bitBoard = Fen.parse("3qk3/3r4/3r4/8/8/8/3R4/3QK3 w - - 0 1");
+        assertEquals(bitBoard.see(this.find(bitBoard, "d2d6")), 0);
+        // king cannot recapture a defended piece
+        bitBoard = Fen.parse("8/8/8/8/8/3k4/3p4/3RKR2 w - - 0 1");
+        assertEquals(bitBoard.see(this.find(bitBoard, "d1d2")), 100);
+        // quiet move to an attacked square and en passant
+        bitBoard = Fen.parse("4k3/8/2p5/8/8/8/8/3QK3 w - - 0 1");
+        assertEquals(bitBoard.see(this.find(bitBoard, "d1d5")), -900);
+        assertEquals(bitBoard.see(this.find(bitBoard, "d1d4")), 0);
+        bitBoard = Fen.parse("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        assertEquals(bitBoard.see(this.find(bitBoard, "e5d6")), 100);
+    }
+
+    /**
+     * Finds legal move of the position by its label
+     */
+    private int find(BitBoard bitBoard, String label) {
+        MoveGenerator generator = new MoveGenerator(bitBoard);
+        generator.update(bitBoard.getSideToMove(), bitBoard.getCastling(), bitBoard.getEnPassant());
+        MoveList moves = new MoveList();
+        generator.generate(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.getLabel(moves.get(i)).equals(label)) {
+                return moves.get(i);
+            }
+        }
+        fail("Move " + label + " not found");
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Plays all moves to passed depth with make and unmake and counts leaves
+     */
+    private long walk(Board board, MoveGenerator generator, MoveList[] stack, int ply, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        BitBoard bitBoard = board.getBitBoard();
+        MoveList moves = stack[ply];
+        generator.update(bitBoard.getSideToMove(), bitBoard.getCastling(), bitBoard.getEnPassant());
+        generator.generate(moves);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            assertEquals(bitBoard.getKey(), bitBoard.computeKey());
+            nodes += this.walk(board, generator, stack, ply + 1, depth - 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+}
@@ -36,7 +36,7 @@ public class BoardTest extends ApplicationTest {
     public void testMove() {
         Position src = new Position(File.B, Rank.ONE);
         Position tgt = new Position(File.A, Rank.THREE);
-        this.board.movePiece(src, tgt, 1);
+        this.board.movePiece(src, tgt);
         assertEquals(this.board.getPiece(src).getClass(), Empty.class);
         assertEquals(this.board.getPiece(tgt).getClass(), Knight.class);
         assertEquals(this.board.getPiece(tgt).getColor(), Color.WHITE);
@@ -0,0 +1,27 @@
+package pjv.sp.chess.model.board;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MagicTest {
+
+    @Test
+    public void testRookTablesMatchRayWalk() {
+        assertTrue(Magic.ROOK.verify());
+    }
+
+    @Test
+    public void testBishopTablesMatchRayWalk() {
+        assertTrue(Magic.BISHOP.verify());
+    }
+
+    @Test
+    public void testQueenOnEmptyBoard() {
+        int square = Square.of(File.D, Rank.FOUR);
+        assertEquals(Long.bitCount(Attacks.queen(square, 0L)), 27);
+        long blockers = 1L << Square.of(File.D, Rank.SIX);
+        assertEquals(Attacks.rook(square, blockers) & (1L << Square.of(File.D, Rank.SEVEN)), 0L);
+    }
+
+}
@@ -0,0 +1,35 @@
+package pjv.sp.chess.model.board;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MaterialTest {
+
+    @Test
+    public void testInsufficient() {
+        assertTrue(Fen.parse("8/8/4k3/8/8/3K4/8/8 w - - 0 1").getMaterial().isInsufficient());
+        assertTrue(Fen.parse("8/8/4k3/8/8/3K4/8/6N1 w - - 0 1").getMaterial().isInsufficient());
+        assertTrue(Fen.parse("8/8/4k3/8/3b4/3K4/8/6B1 w - - 0 1").getMaterial().isInsufficient());
+        assertFalse(Fen.parse("8/8/4k3/8/2b5/3K4/8/6B1 w - - 0 1").getMaterial().isInsufficient());
+        assertFalse(Fen.parse("8/8/4k3/8/8/3K4/8/5NN1 w - - 0 1").getMaterial().isInsufficient());
+        assertFalse(Fen.parse("8/8/4k3/8/8/3K4/7P/8 w - - 0 1").getMaterial().isInsufficient());
+    }
+
+    @Test
+    public void testIncremental() {
+        BitBoard bitBoard = Fen.parse(Fen.STANDARD);
+        Material material = bitBoard.getMaterial();
+        long key = material.getKey();
+        assertEquals(material.getPhase(), Material.MAX_PHASE);
+        assertEquals(material.getLightBishops(BitBoard.WHITE), 1);
+        assertEquals(material.getDarkBishops(BitBoard.BLACK), 1);
+        assertEquals(material.toString(), "KQRRBBNNPPPPPPPPvKQRRBBNNPPPPPPPP");
+        bitBoard.remove(Square.of(File.D, Rank.ONE));
+        assertEquals(material.getPhase(), Material.MAX_PHASE - 4);
+        assertNotEquals(material.getKey(), key);
+        bitBoard.put(Square.of(File.D, Rank.FOUR), BitBoard.WHITE, BitBoard.QUEEN);
+        assertEquals(material.getKey(), key);
+        assertTrue(Fen.parse("8/5pk1/8/8/8/8/5PK1/8 w - - 0 1").getMaterial().isPawnEnding());
+    }
+}
@@ -0,0 +1,123 @@
+package pjv.sp.chess.model.board;
+
+import pjv.sp.chess.model.pieces.MoveType;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MoveGeneratorTest {
+
+    @Test
+    public void testEnPassantDiscoveredCheck() {
+        // white king and black rook on the fifth rank, en passant would remove both pawns between them
+        BitBoard bitBoard = new BitBoard();
+        bitBoard.put(Square.of(File.A, Rank.FIVE), BitBoard.WHITE, BitBoard.KING);
+        bitBoard.put(Square.of(File.D, Rank.FIVE), BitBoard.WHITE, BitBoard.PAWN);
+        bitBoard.put(Square.of(File.E, Rank.FIVE), BitBoard.BLACK, BitBoard.PAWN);
+        bitBoard.put(Square.of(File.H, Rank.FIVE), BitBoard.BLACK, BitBoard.ROOK);
+        bitBoard.put(Square.of(File.E, Rank.EIGHT), BitBoard.BLACK, BitBoard.KING);
+        MoveGenerator generator = new MoveGenerator(bitBoard);
+        int enPassant = Square.of(File.E, Rank.SIX);
+        generator.update(BitBoard.WHITE, 0, enPassant);
+        assertEquals(generator.getTargets(Square.of(File.D, Rank.FIVE)), 1L << Square.of(File.D, Rank.SIX));
+        // without the rook the capture is legal
+        bitBoard.remove(Square.of(File.H, Rank.FIVE));
+        generator.update(BitBoard.WHITE, 0, enPassant);
+        assertNotEquals(generator.getTargets(Square.of(File.D, Rank.FIVE)) & (1L << enPassant), 0L);
+    }
+
+    @Test
+    public void testPinAndCheck() {
+        BitBoard bitBoard = new BitBoard();
+        bitBoard.put(Square.of(File.E, Rank.ONE), BitBoard.WHITE, BitBoard.KING);
+        bitBoard.put(Square.of(File.E, Rank.THREE), BitBoard.WHITE, BitBoard.ROOK);
+        bitBoard.put(Square.of(File.B, Rank.ONE), BitBoard.WHITE, BitBoard.KNIGHT);
+        bitBoard.put(Square.of(File.E, Rank.EIGHT), BitBoard.BLACK, BitBoard.ROOK);
+        bitBoard.put(Square.of(File.A, Rank.EIGHT), BitBoard.BLACK, BitBoard.KING);
+        MoveGenerator generator = new MoveGenerator(bitBoard);
+        generator.update(BitBoard.WHITE, 0, Square.NONE);
+        assertEquals(generator.getPinned(), 1L << Square.of(File.E, Rank.THREE));
+        // pinned rook stays on the e file
+        assertEquals(generator.getTargets(Square.of(File.E, Rank.THREE)), Attacks.between(Square.of(File.E, Rank.ONE), Square.of(File.E, Rank.EIGHT)) & ~(1L << Square.of(File.E, Rank.THREE)) | (1L << Square.of(File.E, Rank.EIGHT)));
+        // after the rook leaves the knight can only block or capture
+        bitBoard.remove(Square.of(File.E, Rank.THREE));
+        generator.update(BitBoard.WHITE, 0, Square.NONE);
+        assertTrue(generator.isCheck());
+        assertEquals(generator.getTargets(Square.of(File.B, Rank.ONE)), 0L);
+        bitBoard.put(Square.of(File.C, Rank.ONE), BitBoard.WHITE, BitBoard.KNIGHT);
+        generator.update(BitBoard.WHITE, 0, Square.NONE);
+        assertEquals(generator.getTargets(Square.of(File.C, Rank.ONE)), 1L << Square.of(File.E, Rank.TWO));
+    }
+
+    @Test
+    public void testGenerateStandardBoard() {
+        Board board = new Board(false);
+        MoveGenerator generator = new MoveGenerator(board.getBitBoard());
+        MoveList moves = new MoveList();
+        generator.update(BitBoard.WHITE, 0, Square.NONE);
+        generator.generate(moves);
+        assertEquals(moves.size(), 20);
+        int move = PackedMove.of(Square.of(File.E, Rank.TWO), Square.of(File.E, Rank.FOUR), MoveType.NORMAL, BitBoard.PAWN, BitBoard.EMPTY, BitBoard.EMPTY);
+        assertTrue(moves.contains(move));
+        assertEquals(PackedMove.getLabel(move), "e2e4");
+        assertEquals(PackedMove.getType(move), MoveType.NORMAL);
+        assertFalse(PackedMove.isCapture(move));
+    }
+
+    @Test
+    public void testPromotionCapture() {
+        BitBoard bitBoard = new BitBoard();
+        bitBoard.put(Square.of(File.A, Rank.ONE), BitBoard.WHITE, BitBoard.KING);
+        bitBoard.put(Square.of(File.H, Rank.ONE), BitBoard.BLACK, BitBoard.KING);
+        bitBoard.put(Square.of(File.B, Rank.SEVEN), BitBoard.WHITE, BitBoard.PAWN);
+        bitBoard.put(Square.of(File.C, Rank.EIGHT), BitBoard.BLACK, BitBoard.ROOK);
+        bitBoard.put(Square.of(File.B, Rank.EIGHT), BitBoard.BLACK, BitBoard.KNIGHT);
+        MoveGenerator generator = new MoveGenerator(bitBoard);
+        MoveList moves = new MoveList();
+        generator.update(BitBoard.WHITE, 0, Square.NONE);
+        generator.generate(Square.of(File.B, Rank.SEVEN), moves);
+        assertEquals(moves.size(), 4);
+        int move = moves.get(0);
+        assertEquals(PackedMove.getCaptured(move), BitBoard.ROOK);
+        assertEquals(PackedMove.getPromotion(move), BitBoard.QUEEN);
+        assertEquals(PackedMove.getLabel(move), "b7c8q");
+    }
+
+    @Test
+    public void testGivesCheck() {
+        String[] positions = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1",
+            "5k2/8/8/8/8/8/8/4K2R w K - 0 1",
+            "8/P1k5/K7/8/8/8/8/8 w - - 0 1"
+        };
+        for (String fen : positions) {
+            BitBoard bitBoard = Fen.parse(fen);
+            this.checkGivesCheck(bitBoard, new MoveGenerator(bitBoard), MoveList.createStack(3), 0, 3);
+        }
+    }
+
+    private void checkGivesCheck(BitBoard bitBoard, MoveGenerator generator, MoveList[] stack, int ply, int depth) {
+        if (depth == 0) {
+            return;
+        }
+        MoveList moves = stack[ply];
+        generator.update(bitBoard.getSideToMove(), bitBoard.getCastling(), bitBoard.getEnPassant());
+        generator.generate(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            generator.update(bitBoard.getSideToMove(), bitBoard.getCastling(), bitBoard.getEnPassant());
+            boolean givesCheck = generator.givesCheck(move);
+            bitBoard.makeMove(move);
+            int king = bitBoard.getKingSquare(bitBoard.getSideToMove());
+            assertEquals(Fen.format(bitBoard) + " " + PackedMove.getLabel(move), bitBoard.isAttacked(king, bitBoard.getSideToMove() ^ 1), givesCheck);
+            this.checkGivesCheck(bitBoard, generator, stack, ply + 1, depth - 1);
+            bitBoard.unmakeMove();
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+package pjv.sp.chess.model.board;
+
+import pjv.sp.chess.model.perft.PerftPosition;
+import pjv.sp.chess.model.perft.PerftSuite;
+import pjv.sp.chess.model.pieces.MoveType;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MovePickerTest {
+
+    @Test
+    public void testStages() {
+        BitBoard bitBoard = Fen.parse(Fen.STANDARD);
+        MovePicker picker = new MovePicker(bitBoard);
+        int e2e4 = PackedMove.of(Square.of(File.E, Rank.TWO), Square.of(File.E, Rank.FOUR), MoveType.NORMAL, BitBoard.PAWN, BitBoard.EMPTY, BitBoard.EMPTY);
+        int g1f3 = PackedMove.of(Square.of(File.G, Rank.ONE), Square.of(File.F, Rank.THREE), MoveType.NORMAL, BitBoard.KNIGHT, BitBoard.EMPTY, BitBoard.EMPTY);
+        int e2e5 = PackedMove.of(Square.of(File.E, Rank.TWO), Square.of(File.E, Rank.FIVE), MoveType.NORMAL, BitBoard.PAWN, BitBoard.EMPTY, BitBoard.EMPTY);
+        picker.init(e2e4, e2e5, g1f3);
+        assertEquals(picker.next(), e2e4);
+        // quiet moves are not generated before they are needed
+        assertEquals(picker.getStage(), MovePicker.CAPTURES);
+        assertEquals(picker.next(), g1f3);
+        assertEquals(picker.getStage(), MovePicker.KILLERS);
+        int count = 2;
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            assertNotEquals(move, e2e4);
+            assertNotEquals(move, g1f3);
+            count++;
+        }
+        assertEquals(count, 20);
+        assertEquals(picker.getStage(), MovePicker.DONE);
+        // illegal hash move is skipped
+        picker.init(e2e5, PackedMove.NONE, PackedMove.NONE);
+        assertNotEquals(picker.next(), e2e5);
+    }
+
+    @Test
+    public void testCaptureOrder() {
+        BitBoard bitBoard = Fen.parse("4k3/8/2q1r3/1P6/3N4/8/8/K7 w - - 0 1");
+        MovePicker picker = new MovePicker(bitBoard);
+        picker.init(PackedMove.NONE, PackedMove.NONE, PackedMove.NONE);
+        // the queen is taken first, by the pawn before the knight
+        assertEquals(PackedMove.getLabel(picker.next()), "b5c6");
+        assertEquals(PackedMove.getLabel(picker.next()), "d4c6");
+        assertEquals(PackedMove.getLabel(picker.next()), "d4e6");
+        assertFalse(PackedMove.isCapture(picker.next()));
+        assertEquals(picker.getStage(), MovePicker.QUIETS);
+    }
+
+    @Test
+    public void testHistoryOrder() {
+        BitBoard bitBoard = Fen.parse(Fen.STANDARD);
+        MoveHistory history = new MoveHistory();
+        MovePicker picker = new MovePicker(bitBoard, history);
+        int e2e4 = PackedMove.of(Square.of(File.E, Rank.TWO), Square.of(File.E, Rank.FOUR), MoveType.NORMAL, BitBoard.PAWN, BitBoard.EMPTY, BitBoard.EMPTY);
+        int g1f3 = PackedMove.of(Square.of(File.G, Rank.ONE), Square.of(File.F, Rank.THREE), MoveType.NORMAL, BitBoard.KNIGHT, BitBoard.EMPTY, BitBoard.EMPTY);
+        int b1c3 = PackedMove.of(Square.of(File.B, Rank.ONE), Square.of(File.C, Rank.THREE), MoveType.NORMAL, BitBoard.KNIGHT, BitBoard.EMPTY, BitBoard.EMPTY);
+        history.update(BitBoard.WHITE, g1f3, 100);
+        history.update(BitBoard.WHITE, e2e4, 400);
+        history.update(BitBoard.BLACK, b1c3, 1000);
+        // the countermove goes before quiet moves ordered by history
+        picker.init(PackedMove.NONE, PackedMove.NONE, PackedMove.NONE, b1c3);
+        assertEquals(picker.next(), b1c3);
+        assertEquals(picker.next(), e2e4);
+        assertEquals(picker.next(), g1f3);
+        assertTrue(history.getScore(BitBoard.WHITE, e2e4) <= MoveHistory.MAX_SCORE);
+        // switched off parts of the ordering keep the order of generation
+        picker.setOrdering(MovePicker.ORDER_ALL & ~MovePicker.ORDER_HISTORY & ~MovePicker.ORDER_COUNTERMOVES & ~MovePicker.ORDER_HASH);
+        picker.init(e2e4, PackedMove.NONE, PackedMove.NONE, b1c3);
+        MovePicker plain = new MovePicker(bitBoard);
+        plain.init(PackedMove.NONE, PackedMove.NONE, PackedMove.NONE);
+        for (int move = plain.next(); move != PackedMove.NONE; move = plain.next()) {
+            assertEquals(picker.next(), move);
+        }
+        // countermoves are remembered per previous move
+        history.setCounter(BitBoard.BLACK, e2e4, g1f3);
+        assertEquals(history.getCounter(BitBoard.BLACK, e2e4), g1f3);
+        assertEquals(history.getCounter(BitBoard.WHITE, e2e4), PackedMove.NONE);
+        assertEquals(history.getCounter(BitBoard.BLACK, PackedMove.NONE), PackedMove.NONE);
+    }
+
+    @Test
+    public void testCaptureOrderOff() {
+        BitBoard bitBoard = Fen.parse("4k3/8/2q1r3/1P6/3N4/8/8/K7 w - - 0 1");
+        MovePicker picker = new MovePicker(bitBoard);
+        picker.setOrdering(MovePicker.ORDER_ALL & ~MovePicker.ORDER_MVV_LVA);
+        picker.init(PackedMove.NONE, PackedMove.NONE, PackedMove.NONE);
+        MoveList captures = new MoveList();
+        picker.getGenerator().generateCaptures(captures);
+        for (int i = 0; i < captures.size(); i++) {
+            assertEquals(picker.next(), captures.get(i));
+        }
+    }
+
+    @Test
+    public void testSameMovesAsGenerator() throws IOException {
+        MoveList expected = new MoveList();
+        for (PerftPosition position : PerftSuite.load()) {
+            BitBoard bitBoard = Fen.parse(position.getFen());
+            MoveGenerator generator = new MoveGenerator(bitBoard);
+            MoveList moves = new MoveList();
+            generator.update(bitBoard.getSideToMove(), bitBoard.getCastling(), bitBoard.getEnPassant());
+            generator.generate(moves);
+            for (int i = 0; i < moves.size(); i++) {
+                bitBoard.makeMove(moves.get(i));
+                generator.update(bitBoard.getSideToMove(), bitBoard.getCastling(), bitBoard.getEnPassant());
+                generator.generate(expected);
+                // moves of the parent position are mostly illegal here, killers are any quiet moves
+                this.checkPicker(bitBoard, expected, moves.get(i), moves.get(moves.size() - 1 - i), expected.isEmpty() ? PackedMove.NONE : expected.get(expected.size() - 1));
+                bitBoard.unmakeMove();
+            }
+        }
+    }
+
+    @Test
+    public void testPerft() {
+        BitBoard bitBoard = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(this.perft(bitBoard, MovePicker.createStack(bitBoard, 3), 0, 3), 97862L);
+    }
+
+    /**
+     * Checks that the picker returns each expected move once, captures before quiet moves
+     */
+    private void checkPicker(BitBoard bitBoard, MoveList expected, int hashMove, int firstKiller, int secondKiller) {
+        MovePicker picker = new MovePicker(bitBoard);
+        picker.init(hashMove, firstKiller, secondKiller);
+        int[] picked = new int[MoveList.CAPACITY];
+        int count = 0;
+        boolean quiet = false;
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            assertTrue(expected.contains(move));
+            assertTrue(count > 0 || move == hashMove || !expected.contains(hashMove));
+            boolean noisy = PackedMove.isCapture(move) || PackedMove.isPromotion(move);
+            if (count > 0 || move != hashMove) {
+                assertFalse(quiet && noisy);
+                quiet |= !noisy;
+            }
+            picked[count++] = move;
+        }
+        assertEquals(count, expected.size());
+        Arrays.sort(picked, 0, count);
+        for (int i = 1; i < count; i++) {
+            assertNotEquals(picked[i - 1], picked[i]);
+        }
+    }
+
+    /**
+     * Counts leaves with moves of the pickers
+     */
+    private long perft(BitBoard bitBoard, MovePicker[] stack, int ply, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        MovePicker picker = stack[ply];
+        picker.init(PackedMove.NONE, PackedMove.NONE, PackedMove.NONE);
+        long nodes = 0;
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            bitBoard.makeMove(move);
+            nodes += this.perft(bitBoard, stack, ply + 1, depth - 1);
+            bitBoard.unmakeMove();
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,50 @@
+package pjv.sp.chess.model.perft;
+
+import static org.junit.Assert.*;
+
+import pjv.sp.chess.model.board.Fen;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+public class MoveFuzzerTest {
+
+    /**
+     * Seed of the random games, fixed so the test always plays the same games
+     */
+    private static final long SEED = 20200517L;
+
+    @Test
+    public void testCounterexamples() throws IOException {
+        int count = 0;
+        try (InputStream stream = MoveFuzzerTest.class.getResourceAsStream("counterexamples.fen")) {
+            assertNotNull(stream);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    assertEquals(line, MoveFuzzer.describe(line), "");
+                    count++;
+                }
+            }
+        }
+        assertTrue(count > 0);
+    }
+
+    @Test
+    public void testRandomGames() throws IOException {
+        MoveFuzzer fuzzer = new MoveFuzzer(MoveFuzzerTest.SEED, 120);
+        assertEquals(fuzzer.run(Fen.STANDARD, 10), 0);
+        for (PerftPosition position : PerftSuite.load()) {
+            assertEquals(position.getName(), fuzzer.run(position.getFen(), 2), 0);
+        }
+        assertTrue(fuzzer.getPositions() > 1000);
+        assertTrue(fuzzer.getCounterexamples().isEmpty());
+    }
+}
@@ -0,0 +1,55 @@
+package pjv.sp.chess.model.perft;
+
+import static org.junit.Assert.*;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Fen;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+public class ParallelPerftTest {
+
+    /**
+     * Position with castling, en passant and promotions (Kiwipete)
+     */
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    public void testCount() {
+        BitBoard bitBoard = Fen.parse(ParallelPerftTest.KIWIPETE);
+        long key = bitBoard.getKey();
+        ParallelPerft perft = new ParallelPerft(4, new PerftTable(4));
+        assertEquals(perft.count(bitBoard, 1), 48L);
+        assertEquals(perft.count(bitBoard, 3), 97862L);
+        assertEquals(perft.count(bitBoard, 4), 4085603L);
+        // the second count is answered mostly from the table
+        assertEquals(perft.count(bitBoard, 4), 4085603L);
+        assertEquals(new ParallelPerft(3, null).count(Fen.parse(Fen.STANDARD), 4), 197281L);
+        assertEquals(Fen.format(bitBoard), ParallelPerftTest.KIWIPETE);
+        assertEquals(bitBoard.getKey(), key);
+    }
+
+    @Test
+    public void testDivide() {
+        BitBoard bitBoard = Fen.parse(ParallelPerftTest.KIWIPETE);
+        Map<String, Long> divide = new ParallelPerft(2, new PerftTable(1)).divide(bitBoard, 4);
+        assertEquals(divide, new PerftCounter(bitBoard).divide(4));
+    }
+
+    @Test
+    public void testTable() {
+        PerftTable table = new PerftTable(1);
+        assertEquals(table.getCapacity(), 65536);
+        table.store(0x123456789L, 5, 4865609L);
+        assertEquals(table.probe(0x123456789L, 5), 4865609L);
+        assertEquals(table.probe(0x123456789L, 4), -1L);
+        assertEquals(table.probe(0x123456788L, 5), -1L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongThreads() {
+        new ParallelPerft(0, null);
+    }
+}
@@ -0,0 +1,52 @@
+package pjv.sp.chess.model.perft;
+
+import static org.junit.Assert.*;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Fen;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class PerftSuiteTest {
+
+    /**
+     * Counts larger than this are skipped to keep the test fast
+     */
+    private static final long LIMIT = 2_000_000L;
+
+    @Test
+    public void testSuite() throws IOException {
+        List<PerftPosition> positions = PerftSuite.load();
+        assertFalse(positions.isEmpty());
+        for (PerftPosition position : positions) {
+            BitBoard bitBoard = Fen.parse(position.getFen());
+            long key = bitBoard.getKey();
+            PerftCounter counter = new PerftCounter(bitBoard);
+            for (Map.Entry<Integer, Long> expected : position.getCounts().entrySet()) {
+                if (expected.getValue() <= PerftSuiteTest.LIMIT) {
+                    assertEquals(position + " D" + expected.getKey(), (long) expected.getValue(), counter.count(expected.getKey()));
+                }
+            }
+            assertEquals(Fen.format(bitBoard), position.getFen());
+            assertEquals(bitBoard.getKey(), key);
+        }
+    }
+
+    @Test
+    public void testDivide() {
+        PerftCounter counter = new PerftCounter(Fen.parse(Fen.STANDARD));
+        Map<String, Long> divide = counter.divide(3);
+        assertEquals(divide.size(), 20);
+        assertEquals((long) divide.get("e2e4"), 600L);
+        assertEquals(divide.values().stream().mapToLong(Long::longValue).sum(), 8902L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongFen() {
+        Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1");
+    }
+}
@@ -0,0 +1,66 @@
+package pjv.sp.chess.model.search;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Fen;
+import pjv.sp.chess.model.board.MoveGenerator;
+import pjv.sp.chess.model.board.MoveList;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EvaluationTest {
+
+    @Test
+    public void testSymmetry() {
+        assertEquals(Evaluation.evaluate(Fen.parse(Fen.STANDARD)), 0);
+        int white = Evaluation.evaluate(Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"));
+        int black = Evaluation.evaluate(Fen.parse("r3k2r/pppbbppp/2n2q1P/1P2p3/3pn3/BN2PNP1/P1PPQPB1/R3K2R b KQkq - 0 1"));
+        assertEquals(black, white);
+    }
+
+    @Test
+    public void testTapered() {
+        // with queens the king stays home, in a pawn ending it goes to the center
+        int home = Evaluation.evaluate(Fen.parse("r1bqkb1r/8/8/8/8/8/8/R1BQKB1R w - - 0 1"));
+        int center = Evaluation.evaluate(Fen.parse("r1bqkb1r/8/8/8/3K4/8/8/R1BQ1B1R w - - 0 1"));
+        assertTrue(home > center);
+        home = Evaluation.evaluate(Fen.parse("4k3/4p3/8/8/8/8/4P3/4K3 w - - 0 1"));
+        center = Evaluation.evaluate(Fen.parse("4k3/4p3/8/8/3K4/8/4P3/8 w - - 0 1"));
+        assertTrue(home < center);
+        // pawns are worth more when they advance
+        assertTrue(Evaluation.evaluate(Fen.parse("4k3/8/4P3/8/8/8/8/4K3 w - - 0 1")) > Evaluation.evaluate(Fen.parse("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1")));
+    }
+
+    @Test
+    public void testIncremental() {
+        BitBoard bitBoard = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        MoveList[] stack = {new MoveList(), new MoveList(), new MoveList()};
+        this.walk(bitBoard, new MoveGenerator(bitBoard), stack, 0);
+        // debug mode checks every evaluation of a search
+        Evaluation.setDebug(true);
+        try {
+            new Search(Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"), new long[0]).search(new SearchLimits(4, 0, 0));
+        } finally {
+            Evaluation.setDebug(false);
+        }
+    }
+
+    /**
+     * Plays all moves to the depth of the stack and compares the incremental evaluation with the full one
+     */
+    private void walk(BitBoard bitBoard, MoveGenerator generator, MoveList[] stack, int ply) {
+        assertEquals(Evaluation.evaluate(bitBoard), Evaluation.evaluateFull(bitBoard));
+        if (ply == stack.length) {
+            return;
+        }
+        MoveList moves = stack[ply];
+        generator.update(bitBoard.getSideToMove(), bitBoard.getCastling(), bitBoard.getEnPassant());
+        generator.generate(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            bitBoard.makeMove(moves.get(i));
+            this.walk(bitBoard, generator, stack, ply + 1);
+            bitBoard.unmakeMove();
+        }
+    }
+}
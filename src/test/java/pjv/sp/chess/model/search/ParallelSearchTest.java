@@ -0,0 +1,43 @@
+package pjv.sp.chess.model.search;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Fen;
+import pjv.sp.chess.model.board.PackedMove;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ParallelSearchTest {
+
+    @Test
+    public void testSearch() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        BitBoard bitBoard = Fen.parse(fen);
+        ParallelSearch search = new ParallelSearch(bitBoard, new long[0], new TranspositionTable(4), 3);
+        assertEquals(search.getThreads(), 3);
+        SearchResult result = search.search(new SearchLimits(4, 0, 0));
+        assertNotEquals(result.getMove(), PackedMove.NONE);
+        assertTrue(result.getDepth() >= 4);
+        assertEquals(Fen.format(bitBoard), fen);
+        // the search can be repeated and it stops on time
+        long start = System.nanoTime();
+        result = search.search(SearchLimits.ofMillis(200));
+        assertTrue((System.nanoTime() - start) / 1_000_000L < 1000);
+        assertNotEquals(result.getMove(), PackedMove.NONE);
+        assertEquals(Fen.format(bitBoard), fen);
+    }
+
+    @Test
+    public void testMate() {
+        ParallelSearch search = new ParallelSearch(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), new long[0], new TranspositionTable(1), 2);
+        SearchResult result = search.search(new SearchLimits(4, 0, 0));
+        assertEquals(PackedMove.getLabel(result.getMove()), "a1a8");
+        assertEquals(result.getScore(), Search.MATE - 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongThreads() {
+        new ParallelSearch(Fen.parse(Fen.STANDARD), new long[0], new TranspositionTable(1), 0);
+    }
+}
@@ -0,0 +1,123 @@
+package pjv.sp.chess.model.search;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Fen;
+import pjv.sp.chess.model.board.PackedMove;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SearchTest {
+
+    @Test
+    public void testMate() {
+        // back rank mate in one
+        SearchResult result = this.search("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", new SearchLimits(4, 0, 0));
+        assertEquals(PackedMove.getLabel(result.getMove()), "a1a8");
+        assertEquals(result.getScore(), Search.MATE - 1);
+        // mate in two with the queen sacrifice, found at depth 3 (plus check extensions)
+        result = this.search("6k1/5ppp/8/8/8/8/1Q6/1R4K1 w - - 0 1", new SearchLimits(5, 0, 0));
+        assertTrue(result.getScore() >= Search.MATE_BOUND);
+        // side to move is mated
+        result = this.search("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1", new SearchLimits(3, 0, 0));
+        assertEquals(result.getMove(), PackedMove.NONE);
+        assertEquals(result.getScore(), -Search.MATE);
+    }
+
+    @Test
+    public void testMaterial() {
+        // the hanging queen is taken, not the defended knight
+        SearchResult result = this.search("4k3/8/2n5/3q4/8/8/3R4/4K1N1 w - - 0 1", new SearchLimits(3, 0, 0));
+        assertEquals(PackedMove.getLabel(result.getMove()), "d2d5");
+        assertEquals(result.getDepth(), 3);
+    }
+
+    @Test
+    public void testQuiescence() {
+        // the pawn is defended, taking it loses the queen after the horizon of depth 1
+        SearchResult result = this.search("4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1", new SearchLimits(1, 0, 0));
+        assertNotEquals(PackedMove.getLabel(result.getMove()), "d1d5");
+        // the queen is kept
+        assertTrue(result.getScore() > 500);
+        // the knight takes the rook, the bishop does not take back as the rook would win it
+        result = this.search("4k3/8/2b5/3r4/8/4N3/3R4/4K3 w - - 0 1", new SearchLimits(1, 0, 0));
+        assertEquals(PackedMove.getLabel(result.getMove()), "e3d5");
+        // white knight and rook against the bishop
+        assertTrue(result.getScore() > 300 && result.getScore() < 700);
+    }
+
+    @Test
+    public void testLimits() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        BitBoard bitBoard = Fen.parse(fen);
+        SearchResult result = new Search(bitBoard, new long[0]).search(new SearchLimits(Search.MAX_DEPTH, 0, 20000));
+        assertNotEquals(result.getMove(), PackedMove.NONE);
+        assertTrue(result.getNodes() <= 20000 + 1024);
+        assertTrue(result.getDepth() < Search.MAX_DEPTH);
+        // limits do not stop the first iteration, every root move gets its score
+        result = new Search(bitBoard, new long[0]).search(new SearchLimits(Search.MAX_DEPTH, 0, 1));
+        assertNotEquals(result.getMove(), PackedMove.NONE);
+        assertEquals(result.getDepth(), 1);
+        // the board is restored after the search
+        assertEquals(Fen.format(bitBoard), fen);
+        long start = System.nanoTime();
+        result = new Search(bitBoard, new long[0]).search(SearchLimits.ofMillis(200));
+        assertTrue((System.nanoTime() - start) / 1_000_000L < 1000);
+        assertNotEquals(result.getMove(), PackedMove.NONE);
+        assertEquals(Fen.format(bitBoard), fen);
+    }
+
+    @Test
+    public void testExpiredDeadline() {
+        // rams of pawns give long chains of captures in the quiescence search
+        String fen = "4k3/8/8/pppppppp/PPPPPPPP/8/8/4K3 w - - 0 1";
+        SearchResult reference = new Search(Fen.parse(fen), new long[0]).search(new SearchLimits(1, 0, 0));
+        // limits are checked many times during the first iteration
+        assertTrue(reference.getNodes() > 1024);
+        Search search = new Search(Fen.parse(fen), new long[0]);
+        // the time ran out a second ago, still every root move gets its searched score
+        SearchResult result = search.iterate(new SearchLimits(1, 1, 0), System.nanoTime() - 1_000_000_000L);
+        assertEquals(result.getDepth(), 1);
+        assertEquals(result.getNodes(), reference.getNodes());
+        assertEquals(result.getMove(), reference.getMove());
+        assertEquals(result.getScore(), reference.getScore());
+    }
+
+    @Test
+    public void testRepetition() {
+        // white is lost, but the knight can return to g3 where the same position with black to move
+        // already occurred in the game (queen went a2-b2-a2 while the knight went g3-h1)
+        long seen = Fen.parse("6k1/8/8/8/8/6N1/q7/6K1 b - - 1 1").getKey();
+        BitBoard bitBoard = Fen.parse("6k1/8/8/8/8/8/q7/6KN w - - 4 3");
+        long[] history = {seen, 1L, 2L, bitBoard.getKey()};
+        SearchResult result = new Search(bitBoard, history).search(new SearchLimits(3, 0, 0));
+        assertEquals(PackedMove.getLabel(result.getMove()), "h1g3");
+        assertEquals(result.getScore(), 0);
+        result = new Search(bitBoard, new long[0]).search(new SearchLimits(3, 0, 0));
+        assertTrue(result.getScore() < -500);
+    }
+
+    @Test
+    public void testClock() {
+        // the budget shrinks with the clock
+        assertEquals(SearchLimits.ofClock(400_000, 0).getMillis(), 10_000);
+        assertEquals(SearchLimits.ofClock(40_000, 0).getMillis(), 1_000);
+        assertEquals(SearchLimits.ofClock(40_000, 2_000).getMillis(), 2_500);
+        // time is left on the clock, but the search always gets some
+        assertEquals(SearchLimits.ofClock(300, 1_000).getMillis(), 100);
+        assertEquals(SearchLimits.ofClock(0, 0).getMillis(), SearchLimits.MIN_MILLIS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongLimits() {
+        new SearchLimits(0, 100, 0);
+    }
+
+    /**
+     * Searches position without history of the game
+     */
+    private SearchResult search(String fen, SearchLimits limits) {
+        return new Search(Fen.parse(fen), new long[0]).search(limits);
+    }
+}
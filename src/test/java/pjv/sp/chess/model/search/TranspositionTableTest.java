@@ -0,0 +1,81 @@
+package pjv.sp.chess.model.search;
+
+import pjv.sp.chess.model.board.BitBoard;
+import pjv.sp.chess.model.board.Fen;
+import pjv.sp.chess.model.board.PackedMove;
+import pjv.sp.chess.model.board.Square;
+import pjv.sp.chess.model.pieces.MoveType;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(table.getCapacity(), 65536);
+        int move = PackedMove.of(Square.ofLabel("e2"), Square.ofLabel("e4"), MoveType.NORMAL, BitBoard.PAWN, BitBoard.EMPTY, BitBoard.EMPTY);
+        table.store(0x1234567890ABCDEFL, move, -250, 7, TranspositionTable.LOWER);
+        long data = table.probe(0x1234567890ABCDEFL);
+        assertEquals(TranspositionTable.getMove(data), move);
+        assertEquals(TranspositionTable.getScore(data), -250);
+        assertEquals(TranspositionTable.getDepth(data), 7);
+        assertEquals(TranspositionTable.getBound(data), TranspositionTable.LOWER);
+        assertEquals(table.probe(0x1234567890ABCDEEL), 0L);
+        // the best move is kept when the position is stored again without it
+        table.store(0x1234567890ABCDEFL, PackedMove.NONE, 30, 8, TranspositionTable.UPPER);
+        data = table.probe(0x1234567890ABCDEFL);
+        assertEquals(TranspositionTable.getMove(data), move);
+        assertEquals(TranspositionTable.getScore(data), 30);
+        assertEquals(table.getProbes(), 3L);
+        assertEquals(table.getHits(), 2L);
+        assertEquals(table.getStores(), 2L);
+    }
+
+    @Test
+    public void testReplacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        long bucketSpan = table.getCapacity() / 4;
+        // five positions of the same bucket, the shallowest one is replaced
+        for (int i = 0; i < 4; i++) {
+            table.store(5 + i * bucketSpan, PackedMove.NONE, 0, 10 - i, TranspositionTable.EXACT);
+        }
+        table.store(5 + 4 * bucketSpan, PackedMove.NONE, 0, 1, TranspositionTable.EXACT);
+        assertNotEquals(table.probe(5), 0L);
+        assertEquals(table.probe(5 + 3 * bucketSpan), 0L);
+        assertNotEquals(table.probe(5 + 4 * bucketSpan), 0L);
+        // entries of old searches are replaced even when they are deeper
+        for (int i = 0; i < 3; i++) {
+            table.newSearch();
+        }
+        table.store(5 + 5 * bucketSpan, PackedMove.NONE, 0, 2, TranspositionTable.EXACT);
+        table.store(5 + 6 * bucketSpan, PackedMove.NONE, 0, 2, TranspositionTable.EXACT);
+        assertNotEquals(table.probe(5 + 5 * bucketSpan), 0L);
+        assertNotEquals(table.probe(5 + 6 * bucketSpan), 0L);
+        assertTrue(table.getFillRate() > 0);
+        table.clear();
+        assertEquals(table.probe(5), 0L);
+        assertEquals(table.getFillRate(), 0, 0);
+    }
+
+    @Test
+    public void testMateScores() {
+        int mate = Search.MATE - 5;
+        assertEquals(TranspositionTable.fromTable(TranspositionTable.toTable(mate, 3), 3), mate);
+        assertEquals(TranspositionTable.fromTable(TranspositionTable.toTable(-mate, 3), 1), -mate - 2);
+        assertEquals(TranspositionTable.toTable(120, 9), 120);
+    }
+
+    @Test
+    public void testSearchReuse() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        TranspositionTable table = new TranspositionTable(4);
+        SearchResult first = new Search(Fen.parse(fen), new long[0], table).search(new SearchLimits(4, 0, 0));
+        SearchResult second = new Search(Fen.parse(fen), new long[0], table).search(new SearchLimits(4, 0, 0));
+        assertEquals(second.getMove(), first.getMove());
+        assertTrue(second.getNodes() * 2 < first.getNodes());
+        assertTrue(table.getHitRate() > 0);
+    }
+}